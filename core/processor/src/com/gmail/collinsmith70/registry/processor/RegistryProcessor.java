@@ -0,0 +1,155 @@
+package com.gmail.collinsmith70.registry.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code Registry} for each class annotated with {@code GenerateRegistry}. The
+ * generated registry references each collected field directly, so registering them does not
+ * require reflection and the fields survive shrinking.
+ */
+public class RegistryProcessor extends AbstractProcessor {
+
+  private static final String ANNOTATION = "com.gmail.collinsmith70.registry.GenerateRegistry";
+
+  private static final String REGISTRY = "com.gmail.collinsmith70.registry.Registry";
+
+  private static final String SUFFIX = "_Registry";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(ANNOTATION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+    if (annotation == null) {
+      return false;
+    }
+
+    for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+      if (element.getKind() != ElementKind.CLASS
+          || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+        error(element, "@GenerateRegistry can only be applied to top-level classes");
+        continue;
+      }
+
+      final TypeElement owner = (TypeElement) element;
+      final TypeMirror type = getEntryType(owner, annotation);
+      if (type == null) {
+        error(owner, "@GenerateRegistry must specify the type of entries to collect");
+        continue;
+      }
+
+      final List<String> entries = new ArrayList<>();
+      collect(owner, owner.getSimpleName().toString(), type, entries);
+      try {
+        write(owner, type, entries);
+      } catch (IOException e) {
+        error(owner, "Unable to write registry: " + e.getMessage());
+      }
+    }
+
+    return true;
+  }
+
+  private TypeMirror getEntryType(TypeElement owner, TypeElement annotation) {
+    final Types types = processingEnv.getTypeUtils();
+    for (AnnotationMirror mirror : owner.getAnnotationMirrors()) {
+      if (!types.isSameType(mirror.getAnnotationType(), annotation.asType())) {
+        continue;
+      }
+
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+          : mirror.getElementValues().entrySet()) {
+        if (entry.getKey().getSimpleName().contentEquals("value")) {
+          return types.erasure((TypeMirror) entry.getValue().getValue());
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Collects references to the fields declared within the specified class followed by those
+   * within its nested classes, in the same order as the reflective registry.
+   */
+  private void collect(TypeElement clazz, String path, TypeMirror type, List<String> entries) {
+    final Types types = processingEnv.getTypeUtils();
+    for (Element enclosed : clazz.getEnclosedElements()) {
+      if (enclosed.getKind() == ElementKind.FIELD
+          && enclosed.getModifiers().contains(Modifier.PUBLIC)
+          && enclosed.getModifiers().contains(Modifier.STATIC)
+          && types.isAssignable(types.erasure(enclosed.asType()), type)) {
+        entries.add(path + "." + enclosed.getSimpleName());
+      }
+    }
+
+    for (Element enclosed : clazz.getEnclosedElements()) {
+      if (enclosed.getKind().isClass()
+          && enclosed.getModifiers().contains(Modifier.PUBLIC)
+          && enclosed.getModifiers().contains(Modifier.STATIC)) {
+        collect((TypeElement) enclosed, path + "." + enclosed.getSimpleName(), type, entries);
+      }
+    }
+  }
+
+  private void write(TypeElement owner, TypeMirror type, List<String> entries) throws IOException {
+    final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(owner);
+    final String name = owner.getSimpleName() + SUFFIX;
+    final String qualifiedName = pkg.isUnnamed()
+        ? name
+        : pkg.getQualifiedName() + "." + name;
+    final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, owner);
+    try (PrintWriter out = new PrintWriter(file.openWriter())) {
+      if (!pkg.isUnnamed()) {
+        out.printf("package %s;%n%n", pkg.getQualifiedName());
+      }
+
+      out.printf("/**%n * Generated from {@link %s}. Do not edit.%n */%n", owner.getSimpleName());
+      out.printf("@SuppressWarnings(\"rawtypes\")%n");
+      out.printf("public final class %s implements %s<%s> {%n%n", name, REGISTRY, type);
+      out.printf("  @Override%n");
+      out.printf("  public java.util.List<%s> entries() {%n", type);
+      out.printf("    return java.util.Arrays.<%s>asList(", type);
+      for (int i = 0; i < entries.size(); i++) {
+        out.printf("%n        %s%s", entries.get(i), i < entries.size() - 1 ? "," : "");
+      }
+
+      out.printf(");%n  }%n%n}%n");
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+}
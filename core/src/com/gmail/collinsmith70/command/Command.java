@@ -1,5 +1,6 @@
 package com.gmail.collinsmith70.command;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -11,11 +12,16 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.gmail.collinsmith70.serializer.SerializeException;
-import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.util.ListenerProfiler;
+import com.gmail.collinsmith70.validator.ValidationResult;
 import com.gmail.collinsmith70.validator.Validator;
 
 import org.apache.commons.collections4.iterators.ArrayIterator;
 
+import java.io.BufferedReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
@@ -35,6 +41,25 @@ public class Command implements Validator {
   @NonNull
   private static final Parameter[] EMPTY_PARAMS = new Parameter[0];
 
+  /**
+   * Placeholder for arguments of an {@link Instance} which have not been deserialized.
+   */
+  @NonNull
+  private static final Object UNSET = new Object();
+
+  /**
+   * Output and input of the innermost instance being executed with them on each thread.
+   */
+  @NonNull
+  private static final ThreadLocal<Invocation> INVOCATION = new ThreadLocal<>();
+
+  @NonNull
+  private static final ValidationResult NULL = ValidationResult.failure("obj cannot be null");
+
+  @NonNull
+  private static final ValidationResult NOT_AN_INSTANCE
+      = ValidationResult.failure("obj is not a subclass of Command.Instance");
+
   @NonNull
   /*package*/ final String ALIAS;
 
@@ -47,9 +72,19 @@ public class Command implements Validator {
   @NonNull
   /*package*/ final Action ACTION;
 
+  /**
+   * Whether or not {@link #ACTION} may be executed off of the thread which processed the command.
+   *
+   * @see CommandJobs
+   */
+  /*package*/ final boolean ASYNC;
+
   @IntRange(from = 0)
   private final int MINIMUM_ARGS;
 
+  @NonNull
+  private final ValidationResult BAD_SYNTAX;
+
   @NonNull
   private final Set<AssignmentListener> ASSIGNMENT_LISTENERS;
 
@@ -61,7 +96,9 @@ public class Command implements Validator {
     this.DESCRIPTION = Strings.nullToEmpty(builder.description);
     this.PARAMS = MoreObjects.firstNonNull(builder.params, EMPTY_PARAMS);
     this.ACTION = MoreObjects.firstNonNull(builder.action, Action.DO_NOTHING);
+    this.ASYNC = builder.async;
     this.MINIMUM_ARGS = PARAMS == EMPTY_PARAMS ? 0 : calculateMinimumArgs(PARAMS);
+    this.BAD_SYNTAX = ValidationResult.failure("Bad syntax, expected: " + this);
     this.ASSIGNMENT_LISTENERS = new CopyOnWriteArraySet<>();
     this.aliases = builder.aliases;
   }
@@ -93,6 +130,14 @@ public class Command implements Validator {
     return DESCRIPTION;
   }
 
+  /**
+   * Returns whether or not instances of this command should be executed asynchronously, i.e.,
+   * submitted to a {@link CommandJobs} rather than executed by the thread which processed them.
+   */
+  public boolean isAsync() {
+    return ASYNC;
+  }
+
   @NonNull
   public Set<String> getAliases() {
     if (aliases == null) {
@@ -155,7 +200,9 @@ public class Command implements Validator {
 
     aliases.add(alias);
     for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+      final long start = ListenerProfiler.start();
       l.onAssigned(this, alias);
+      ListenerProfiler.stop(l, ALIAS, start);
     }
 
     return this;
@@ -171,7 +218,9 @@ public class Command implements Validator {
     boolean unassigned = aliases.remove(alias);
     if (unassigned) {
       for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+        final long start = ListenerProfiler.start();
         l.onUnassigned(this, alias);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
     }
 
@@ -208,34 +257,40 @@ public class Command implements Validator {
 
   @Override
   public boolean isValid(@Nullable Object obj) {
-    try {
-      validate(obj);
-      return true;
-    } catch (Exception e) {
-      return false;
-    }
+    return check(obj).isValid();
   }
 
   @Override
   public void validate(@Nullable Object obj) {
+    check(obj).throwIfInvalid();
+  }
+
+  @NonNull
+  @Override
+  public ValidationResult check(@Nullable Object obj) {
     if (obj == null) {
-      throw new ValidationException("obj cannot be null");
+      return NULL;
     } else if (!(obj instanceof Instance)) {
-      throw new ValidationException("obj is not a subclass of Command.Instance");
+      return NOT_AN_INSTANCE;
     }
 
     Instance instance = (Instance) obj;
     if (instance.numArgs() < MINIMUM_ARGS) {
-      throw new ValidationException("Bad syntax, expected: " + this);
+      return BAD_SYNTAX;
     }
 
     int numArgs = Math.min(instance.numArgs(), PARAMS.length);
     for (int i = 0; i < numArgs; i++) {
       Parameter param = PARAMS[i];
       if (param.canValidate()) {
-        param.validate(instance.getArg(i));
+        ValidationResult result = param.check(instance.getArg(i));
+        if (!result.isValid()) {
+          return result;
+        }
       }
     }
+
+    return ValidationResult.VALID;
   }
 
   @NonNull
@@ -261,6 +316,11 @@ public class Command implements Validator {
 
   }
 
+  /**
+   * An invocation of a {@link Command} with a set of arguments. Instances can be
+   * {@linkplain #compile compiled} so that they can be executed any number of times without
+   * validating or deserializing their arguments again.
+   */
   @SuppressWarnings("unused")
   public class Instance implements Iterable<String> {
 
@@ -272,6 +332,15 @@ public class Command implements Validator {
     @NonNull
     private final String[] ARGS;
 
+    /**
+     * Deserialized arguments, or {@code null} if none have been deserialized. Arguments which have
+     * not been deserialized are {@link #UNSET}.
+     */
+    @Nullable
+    private volatile Object[] values;
+
+    private volatile boolean compiled;
+
     private Instance(@NonNull String alias) {
       this(alias, EMPTY_ARGS);
     }
@@ -302,16 +371,93 @@ public class Command implements Validator {
       return ARGS[compressed ? i + 1 : i];
     }
 
+    /**
+     * Deserializes the specified argument using its {@link Parameter}. Arguments are only
+     * deserialized once, and later calls return the same value.
+     */
     @SuppressWarnings("unchecked")
     public <T> T deserializeArg(int i) {
+      Object[] values = this.values;
+      if (values != null && values[i] != UNSET) {
+        return (T) values[i];
+      }
+
+      final T value;
       try {
         String arg = getArg(i);
-        return (T) PARAMS[i].deserialize(arg);
+        value = (T) PARAMS[i].deserialize(arg);
       } catch (SerializeException e) {
         throw e;
       } catch (Exception e) {
         throw new SerializeException(e);
       }
+
+      if (values == null) {
+        values = new Object[Math.min(numArgs(), PARAMS.length)];
+        Arrays.fill(values, UNSET);
+        this.values = values;
+      }
+
+      values[i] = value;
+      return value;
+    }
+
+    /**
+     * Validates the arguments of this instance and deserializes each one whose parameter has a
+     * serializer, so that executing it does neither. Arguments which cannot be deserialized are
+     * left to fail when they are {@linkplain #deserializeArg deserialized} by the action.
+     * <p>
+     * Note: Compiled instances are only validated once, except for the arguments of
+     *       {@linkplain Parameter#stateDependent state-dependent} parameters, which are validated
+     *       again each time the instance is executed.
+     *
+     * @return This instance
+     *
+     * @throws com.gmail.collinsmith70.validator.ValidationException if the arguments are invalid
+     */
+    @NonNull
+    public Instance compile() {
+      if (compiled) {
+        return this;
+      }
+
+      validate(this);
+      final int numArgs = Math.min(numArgs(), PARAMS.length);
+      for (int i = 0; i < numArgs; i++) {
+        if (PARAMS[i].canSerialize()) {
+          try {
+            deserializeArg(i);
+          } catch (SerializeException ignored) {
+            // thrown again if the action deserializes the argument
+          }
+        }
+      }
+
+      this.compiled = true;
+      return this;
+    }
+
+    /**
+     * Validates the arguments of the {@linkplain Parameter#stateDependent state-dependent}
+     * parameters of this compiled instance.
+     */
+    private void revalidate() {
+      final int numArgs = Math.min(numArgs(), PARAMS.length);
+      for (int i = 0; i < numArgs; i++) {
+        final Parameter param = PARAMS[i];
+        if (param.isStateDependent() && param.canValidate()) {
+          param.check(getArg(i)).throwIfInvalid();
+        }
+      }
+    }
+
+    public boolean isCompiled() {
+      return compiled;
+    }
+
+    @NonNull
+    public Command getCommand() {
+      return Command.this;
     }
 
     @IntRange(from = 0)
@@ -325,11 +471,118 @@ public class Command implements Validator {
       return new ArrayIterator<>(ARGS, compressed ? 1 : 0);
     }
 
+    /**
+     * Returns the command line of this instance, quoting arguments which contain whitespace.
+     */
+    @Override
+    @NonNull
+    public String toString() {
+      final StringBuilder sb = new StringBuilder(ALIAS);
+      for (int i = 0, numArgs = numArgs(); i < numArgs; i++) {
+        final String arg = getArg(i);
+        sb.append(' ');
+        if (arg.isEmpty() || CharMatcher.whitespace().matchesAnyOf(arg)) {
+          final char quote = arg.indexOf('"') == -1 ? '"' : '\'';
+          sb.append(quote).append(arg).append(quote);
+        } else {
+          sb.append(arg);
+        }
+      }
+
+      return sb.toString();
+    }
+
     public void execute() {
-      validate(this);
+      if (!compiled) {
+        validate(this);
+      } else {
+        revalidate();
+      }
+
       ACTION.onExecuted(this);
     }
 
+    /**
+     * Executes this instance with the specified output and input, which are returned by
+     * {@link #out()} and {@link #in()} until it returns, including to any instances which it
+     * executes in turn, e.g., the lines of a script.
+     *
+     * @param out Sink which the action should write its output into
+     * @param in  Output of the previous command within a pipeline, or {@code null}
+     */
+    public void execute(@NonNull PrintStream out, @Nullable Reader in) {
+      execute(null, out, in);
+    }
+
+    /**
+     * Executes the specified action in place of the action of this instance, e.g., the remainder
+     * of an action which was {@linkplain CommandJobs#submit(Instance, Action, CommandJobs.Listener)
+     * submitted} as a job. The arguments are not validated again.
+     *
+     * @param action Action to execute, or {@code null} to {@linkplain #execute() execute} this
+     *               instance
+     */
+    /*package*/ void execute(@Nullable Action action, @NonNull PrintStream out,
+                             @Nullable Reader in) {
+      Preconditions.checkArgument(out != null, "out cannot be null");
+      final Invocation parent = INVOCATION.get();
+      INVOCATION.set(new Invocation(out, in, parent));
+      try {
+        if (action == null) {
+          execute();
+        } else {
+          action.onExecuted(this);
+        }
+      } finally {
+        if (parent == null) {
+          INVOCATION.remove();
+        } else {
+          INVOCATION.set(parent);
+        }
+      }
+    }
+
+    /**
+     * Returns the sink which the action should write its output into. Unless this instance is
+     * being {@linkplain #execute(PrintStream, Reader) executed with an output}, this is the output
+     * of the enclosing execution, if any, otherwise {@link System#out}.
+     */
+    @NonNull
+    public PrintStream out() {
+      final Invocation invocation = INVOCATION.get();
+      return invocation != null ? invocation.OUT : System.out;
+    }
+
+    /**
+     * Returns the output of the previous command within a pipeline, or {@code null} if this
+     * instance is not being executed as part of a pipeline.
+     */
+    @Nullable
+    public BufferedReader in() {
+      final Invocation invocation = INVOCATION.get();
+      return invocation != null ? invocation.IN : null;
+    }
+
+  }
+
+  private static final class Invocation {
+
+    @NonNull
+    final PrintStream OUT;
+
+    @Nullable
+    final BufferedReader IN;
+
+    Invocation(@NonNull PrintStream out, @Nullable Reader in, @Nullable Invocation parent) {
+      this.OUT = out;
+      if (in != null) {
+        this.IN = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+      } else {
+        // commands executed by a command within a pipeline share its input
+        this.IN = parent != null ? parent.IN : null;
+      }
+    }
+
   }
 
   public static class Builder {
@@ -349,6 +602,8 @@ public class Command implements Validator {
     @Nullable
     private Action action;
 
+    private boolean async;
+
     private Builder() {}
 
     @NonNull
@@ -388,6 +643,17 @@ public class Command implements Validator {
       return this;
     }
 
+    /**
+     * Marks the action as safe to execute on a worker thread, e.g., an action which writes files.
+     * Asynchronous actions should not modify state which is only accessed by the render thread
+     * directly, and should instead post those modifications back to it.
+     */
+    @NonNull
+    public Builder async(boolean b) {
+      this.async = b;
+      return this;
+    }
+
     @NonNull
     public Command build() {
       return new Command(this);
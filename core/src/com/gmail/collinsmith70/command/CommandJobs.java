@@ -0,0 +1,256 @@
+package com.gmail.collinsmith70.command;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes {@linkplain Command#isAsync asynchronous} command instances on a worker executor and
+ * keeps track of them until they finish. The outcome of each job is delivered to its
+ * {@link Listener} on a separate executor, e.g., the render thread, so that it can safely modify
+ * state which is only accessed there. Output written by a job is buffered and can be read by its
+ * listener using {@link Job#getOutput}.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class CommandJobs {
+
+  @NonNull
+  private final Executor WORKER;
+
+  @NonNull
+  private final Executor CALLBACK;
+
+  /**
+   * Jobs which have been submitted and have not finished yet, keyed by their ids.
+   */
+  @NonNull
+  private final Map<Integer, Job> JOBS;
+
+  @NonNull
+  private final AtomicInteger IDS;
+
+  /**
+   * @param worker   Executor which command instances are executed on
+   * @param callback Executor which listeners are notified on
+   */
+  public CommandJobs(@NonNull Executor worker, @NonNull Executor callback) {
+    Preconditions.checkArgument(worker != null, "worker cannot be null");
+    Preconditions.checkArgument(callback != null, "callback cannot be null");
+    this.WORKER = worker;
+    this.CALLBACK = callback;
+    this.JOBS = new ConcurrentSkipListMap<>();
+    this.IDS = new AtomicInteger();
+  }
+
+  /**
+   * Submits the specified instance to be executed on the worker executor. The instance should
+   * already be {@linkplain Command.Instance#compile compiled}, otherwise it is validated on the
+   * worker.
+   *
+   * @param l Listener notified once the instance has been executed, or {@code null}
+   *
+   * @throws RejectedExecutionException if the worker executor rejected the job
+   */
+  @NonNull
+  public Job submit(@NonNull Command.Instance instance, @Nullable Listener l) {
+    Preconditions.checkArgument(instance != null, "instance cannot be null");
+    return submit(new Job(IDS.incrementAndGet(), instance, null, l));
+  }
+
+  /**
+   * Submits the remainder of the execution of the specified instance to be executed on the worker
+   * executor, e.g., the I/O of an action whose other work must be done on the thread which
+   * processed it. The job is listed as {@code instance}, and executes {@code action} in its place.
+   *
+   * @param l Listener notified once the action has been executed, or {@code null}
+   *
+   * @throws RejectedExecutionException if the worker executor rejected the job
+   */
+  @NonNull
+  public Job submit(@NonNull Command.Instance instance, @NonNull Action action,
+                    @Nullable Listener l) {
+    Preconditions.checkArgument(instance != null, "instance cannot be null");
+    Preconditions.checkArgument(action != null, "action cannot be null");
+    return submit(new Job(IDS.incrementAndGet(), instance, action, l));
+  }
+
+  @NonNull
+  private Job submit(@NonNull Job job) {
+    JOBS.put(job.ID, job);
+    try {
+      WORKER.execute(job);
+    } catch (RejectedExecutionException e) {
+      JOBS.remove(job.ID);
+      throw e;
+    }
+
+    return job;
+  }
+
+  /**
+   * Returns the jobs which have not finished yet, in the order they were submitted.
+   */
+  @NonNull
+  public List<Job> getJobs() {
+    return new ArrayList<>(JOBS.values());
+  }
+
+  @Nullable
+  public Job getJob(int id) {
+    return JOBS.get(id);
+  }
+
+  public int size() {
+    return JOBS.size();
+  }
+
+  @NonNull
+  private static PrintStream newPrintStream(@NonNull OutputStream out) {
+    try {
+      return new PrintStream(out, false, Charsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * A command instance which has been submitted to a {@link CommandJobs}.
+   */
+  public final class Job implements Runnable {
+
+    private final int ID;
+
+    @NonNull
+    private final Command.Instance INSTANCE;
+
+    /**
+     * Action executed in place of the action of {@link #INSTANCE}, or {@code null}.
+     */
+    @Nullable
+    private final Action ACTION;
+
+    @Nullable
+    private final Listener LISTENER;
+
+    @NonNull
+    private final ByteArrayOutputStream OUTPUT;
+
+    private final long SUBMITTED;
+
+    /**
+     * Thread executing this job, or {@code null} if it is queued or has finished.
+     */
+    @Nullable
+    private volatile Thread thread;
+
+    private Job(int id, @NonNull Command.Instance instance, @Nullable Action action,
+                @Nullable Listener l) {
+      this.ID = id;
+      this.INSTANCE = instance;
+      this.ACTION = action;
+      this.LISTENER = l;
+      this.OUTPUT = new ByteArrayOutputStream();
+      this.SUBMITTED = System.currentTimeMillis();
+    }
+
+    public int getId() {
+      return ID;
+    }
+
+    @NonNull
+    public Command.Instance getInstance() {
+      return INSTANCE;
+    }
+
+    /**
+     * Returns the time this job was submitted in milliseconds since the epoch.
+     */
+    public long getSubmitTime() {
+      return SUBMITTED;
+    }
+
+    /**
+     * Returns the thread executing this job, or {@code null} if it has not started yet.
+     */
+    @Nullable
+    public Thread getThread() {
+      return thread;
+    }
+
+    /**
+     * Returns the output written by this job so far. Listeners may read it to print it once the
+     * job has finished.
+     */
+    @NonNull
+    public String getOutput() {
+      try {
+        return OUTPUT.toString(Charsets.UTF_8.name());
+      } catch (UnsupportedEncodingException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public void run() {
+      thread = Thread.currentThread();
+      Throwable failure = null;
+      final PrintStream out = newPrintStream(OUTPUT);
+      try {
+        INSTANCE.execute(ACTION, out, null);
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        out.flush();
+        thread = null;
+        JOBS.remove(ID);
+      }
+
+      if (LISTENER != null) {
+        final Throwable t = failure;
+        CALLBACK.execute(new Runnable() {
+          @Override
+          public void run() {
+            if (t == null) {
+              LISTENER.onCompleted(Job.this);
+            } else {
+              LISTENER.onFailed(Job.this, t);
+            }
+          }
+        });
+      }
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+      return INSTANCE.toString();
+    }
+
+  }
+
+  /**
+   * Receives the outcome of a {@link Job} on the callback executor.
+   */
+  public interface Listener {
+
+    void onCompleted(@NonNull Job job);
+
+    void onFailed(@NonNull Job job, @NonNull Throwable t);
+
+  }
+
+}
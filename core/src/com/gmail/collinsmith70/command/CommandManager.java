@@ -21,6 +21,11 @@ public class CommandManager implements Command.AssignmentListener {
   @NonNull
   private final Trie<String, Command> COMMANDS;
 
+  /**
+   * Number of times an alias has been assigned or unassigned.
+   */
+  private volatile int modCount;
+
   public CommandManager() {
     this.COMMANDS = new PatriciaTrie<>();
   }
@@ -61,6 +66,7 @@ public class CommandManager implements Command.AssignmentListener {
   @Override
   public void onAssigned(@NonNull Command command, @NonNull String alias) {
     COMMANDS.put(alias, command);
+    modCount++;
   }
 
   @Override
@@ -70,6 +76,7 @@ public class CommandManager implements Command.AssignmentListener {
 
   private boolean unassign(@NonNull String alias) {
     Preconditions.checkArgument(alias != null, "Aliases cannot be null");
+    modCount++;
     return COMMANDS.remove(alias) != null;
   }
 
@@ -79,6 +86,7 @@ public class CommandManager implements Command.AssignmentListener {
     Command queriedCommand = COMMANDS.get(alias);
     if (Objects.equal(queriedCommand, command)) {
       COMMANDS.remove(alias);
+      modCount++;
     }
 
     return true;
@@ -97,6 +105,14 @@ public class CommandManager implements Command.AssignmentListener {
     return unassigned;
   }
 
+  /**
+   * Returns the number of times the aliases managed by this {@code CommandManager} have changed,
+   * e.g., to discard command lines which were resolved against older aliases.
+   */
+  public int getModCount() {
+    return modCount;
+  }
+
   @Nullable
   public Command get(@Nullable String alias) {
     return COMMANDS.get(alias);
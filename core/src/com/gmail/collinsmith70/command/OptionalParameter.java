@@ -29,6 +29,12 @@ public class OptionalParameter<T> extends Parameter<T> {
     return this;
   }
 
+  @NonNull
+  public OptionalParameter<T> stateDependent() {
+    super.stateDependent();
+    return this;
+  }
+
   @NonNull
   public OptionalParameter<T> suggester(@NonNull Console.SuggestionProvider suggestionProvider) {
     super.suggester(suggestionProvider);
@@ -8,8 +8,11 @@ import android.support.annotation.Nullable;
 
 import com.gmail.collinsmith70.libgdx.Console;
 import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.validator.ValidationResult;
 import com.gmail.collinsmith70.validator.Validator;
 
+import java.io.IOException;
+
 public class Parameter<T> implements StringSerializer<T>, Validator, Console.SuggestionProvider {
 
   @NonNull
@@ -29,6 +32,8 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
   @Nullable
   private Console.SuggestionProvider suggestionProvider;
 
+  private boolean stateDependent;
+
   Parameter(@NonNull Class<T> type) {
     this.TYPE = Preconditions.checkNotNull(type, "type cannot be null");
   }
@@ -45,6 +50,17 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
     return this;
   }
 
+  /**
+   * Marks the validity of this parameter as depending on state which can change over time, e.g.,
+   * whether or not a file exists, so that {@linkplain Command.Instance#compile compiled} instances
+   * validate it again each time they are executed.
+   */
+  @NonNull
+  public Parameter<T> stateDependent() {
+    this.stateDependent = true;
+    return this;
+  }
+
   @NonNull
   public Parameter<T> suggester(@NonNull Console.SuggestionProvider suggestionProvider) {
     this.suggestionProvider
@@ -64,6 +80,10 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
     return suggestionProvider != null;
   }
 
+  public boolean isStateDependent() {
+    return stateDependent;
+  }
+
   @NonNull
   public Class<T> getType() {
     return TYPE;
@@ -84,6 +104,15 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
     return serializer.serialize(obj);
   }
 
+  @Override
+  public void serialize(@NonNull T obj, @NonNull Appendable out) throws IOException {
+    if (serializer == null) {
+      throw new UnsupportedOperationException(this + " is not serializable");
+    }
+
+    serializer.serialize(obj, out);
+  }
+
   @NonNull
   @Override
   public T deserialize(@NonNull String string) {
@@ -94,6 +123,16 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
     return serializer.deserialize(string);
   }
 
+  @NonNull
+  @Override
+  public T deserialize(@NonNull CharSequence chars, int start, int end) {
+    if (serializer == null) {
+      throw new UnsupportedOperationException(this + " is not deserializable");
+    }
+
+    return serializer.deserialize(chars, start, end);
+  }
+
   @Override
   public void validate(@Nullable Object obj) {
     if (validator == null) {
@@ -112,6 +151,16 @@ public class Parameter<T> implements StringSerializer<T>, Validator, Console.Sug
     return validator.isValid(obj);
   }
 
+  @NonNull
+  @Override
+  public ValidationResult check(@Nullable Object obj) {
+    if (validator == null) {
+      throw new UnsupportedOperationException(this + " is not validatable");
+    }
+
+    return validator.check(obj);
+  }
+
   @Override
   public int suggest(@NonNull Console console, @NonNull CharSequence buffer,
                      @NonNull String[] args, @IntRange(from = 0) int arg) {
@@ -0,0 +1,461 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
+import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.Validator;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Cvar} specialized for {@code boolean} values. The value is stored unboxed, so reading
+ * it through {@link #getBoolean()}, changing it through {@link #set(boolean)} and delivering changes
+ * to {@linkplain StateListener primitive listeners} does not allocate.
+ * <p>
+ * Note: {@link Cvar.StateListener} instances are still notified, but receive boxed values. The
+ *       managing {@link CvarManager} is notified without boxing them.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class BooleanCvar extends Cvar<Boolean> {
+
+  @NonNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @NonNull
+  private static final StateListener[] EMPTY_STATE_LISTENERS = new StateListener[0];
+
+  /*package*/ final boolean DEFAULT;
+
+  /**
+   * Validator used for values which cannot be checked without boxing them first. This is
+   * {@code null} if the validator was a range or accepted all non-null values.
+   */
+  @Nullable
+  private final Validator BOXED_VALIDATOR;
+
+  @NonNull
+  private volatile StateListener[] primitiveStateListeners;
+
+  @Nullable
+  private volatile CvarManager manager;
+
+  private volatile boolean value;
+
+  /**
+   * Value before the first change which has not yet been delivered, if changes are
+   * {@linkplain DeliveryPolicy coalesced}.
+   */
+  private boolean pendingFrom;
+
+  public BooleanCvar(@NonNull Builder builder) {
+    super(builder);
+    Preconditions.checkArgument(DEFAULT_VALUE != null, "Default values cannot be null");
+    this.DEFAULT = DEFAULT_VALUE;
+    this.value = DEFAULT;
+    this.primitiveStateListeners = EMPTY_STATE_LISTENERS;
+    this.BOXED_VALIDATOR = isTrivial(VALIDATOR) ? null : VALIDATOR;
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return Boolean.toString(value);
+  }
+
+  public boolean getBoolean() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @NonNull
+  @Override
+  public Boolean get() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @Override
+  public void set(@Nullable Boolean value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    set(value.booleanValue());
+  }
+
+  public void set(boolean value) {
+    materialize();
+    if (this.value == value) {
+      return;
+    }
+
+    validate(value);
+    final boolean prev;
+    if (CONCURRENT) {
+      synchronized (this) {
+        prev = this.value;
+        this.value = value;
+      }
+    } else {
+      prev = this.value;
+      this.value = value;
+    }
+
+    if (prev != value) {
+      deliver(prev, value);
+    }
+  }
+
+  @Override
+  public boolean compareAndSet(@Nullable Boolean expected, @Nullable Boolean update) {
+    if (update == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    return expected != null && compareAndSet(expected.booleanValue(), update.booleanValue());
+  }
+
+  /**
+   * Atomically sets the value of this cvar to {@code update} if its current value is
+   * {@code expected}.
+   *
+   * @return {@code true} if the current value was {@code expected}, otherwise {@code false}
+   */
+  public boolean compareAndSet(boolean expected, boolean update) {
+    materialize();
+    validate(update);
+    final boolean prev;
+    synchronized (this) {
+      prev = this.value;
+      if (prev != expected) {
+        return false;
+      }
+
+      this.value = update;
+    }
+
+    if (prev != update) {
+      deliver(prev, update);
+    }
+
+    return true;
+  }
+
+  private void validate(boolean value) {
+    if (BOXED_VALIDATOR != null) {
+      BOXED_VALIDATOR.check(value).throwIfInvalid();
+    }
+  }
+
+  @Override
+  /*package*/ void check(@Nullable Boolean value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    validate(value.booleanValue());
+  }
+
+  @NonNull
+  @Override
+  /*package*/ Boolean exchange(@Nullable Boolean value) {
+    return exchange(value.booleanValue());
+  }
+
+  private boolean exchange(boolean value) {
+    materialize();
+    if (CONCURRENT) {
+      synchronized (this) {
+        final boolean prev = this.value;
+        this.value = value;
+        return prev;
+      }
+    }
+
+    final boolean prev = this.value;
+    this.value = value;
+    return prev;
+  }
+
+  @Override
+  /*package*/ void initialize(@Nullable Boolean value) {
+    this.value = value.booleanValue();
+  }
+
+  @Override
+  /*package*/ void deliver(@Nullable Boolean from, @Nullable Boolean to) {
+    deliver(from.booleanValue(), to.booleanValue());
+  }
+
+  private void deliver(boolean from, boolean to) {
+    final boolean loaded = isLoaded;
+    this.isLoaded = true;
+    dispatch(loaded, from, to);
+  }
+
+  @Override
+  public void reset() {
+    final boolean prev = exchange(DEFAULT);
+    if (prev != DEFAULT) {
+      dispatch(true, prev, DEFAULT);
+    }
+  }
+
+  private void dispatch(boolean loaded, boolean from, boolean to) {
+    if (isCoalesced()) {
+      if (beginCoalescing(loaded)) {
+        this.pendingFrom = from;
+        scheduleFlush();
+      }
+
+      return;
+    }
+
+    post(loaded, from, to);
+  }
+
+  @Override
+  /*package*/ void flushPending() {
+    final boolean from = pendingFrom;
+    final boolean loaded = endCoalescing();
+    final boolean to = value;
+    if (!loaded || from != to) {
+      post(loaded, from, to);
+    }
+  }
+
+  private void post(final boolean loaded, final boolean from, final boolean to) {
+    if (DELIVERY == null) {
+      notifyListeners(loaded, from, to);
+      return;
+    }
+
+    DELIVERY.execute(new Runnable() {
+      @Override
+      public void run() {
+        notifyListeners(loaded, from, to);
+      }
+    });
+  }
+
+  private void notifyListeners(boolean loaded, boolean from, boolean to) {
+    if (loaded) {
+      notifyChanged(from, to);
+    } else {
+      notifyLoaded(to);
+    }
+  }
+
+  private void notifyChanged(boolean from, boolean to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onChanged(this, from, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onChanged(this, from, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireChanged(from, to);
+    }
+  }
+
+  private void notifyLoaded(boolean to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onLoaded(this, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onLoaded(this, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireLoaded(to);
+    }
+  }
+
+  public boolean addStateListener(@NonNull StateListener l) {
+    Preconditions.checkArgument(l != null, "l cannot be null");
+    boolean added;
+    synchronized (this) {
+      added = !ArrayUtils.contains(primitiveStateListeners, l);
+      if (added) {
+        primitiveStateListeners = ArrayUtils.add(primitiveStateListeners, l);
+      }
+    }
+
+    materialize();
+    l.onLoaded(this, value);
+    return added;
+  }
+
+  @Override
+  /*package*/ void attach(@NonNull CvarManager manager) {
+    this.manager = manager;
+  }
+
+  @Override
+  /*package*/ void detach(@NonNull CvarManager manager) {
+    if (this.manager == manager) {
+      this.manager = null;
+    }
+  }
+
+  @Override
+  /*package*/ boolean hasStateListeners() {
+    return primitiveStateListeners.length > 0 || super.hasStateListeners();
+  }
+
+  public boolean containsStateListener(@Nullable StateListener l) {
+    return l != null && ArrayUtils.contains(primitiveStateListeners, l);
+  }
+
+  public boolean removeStateListener(@Nullable StateListener l) {
+    if (l == null) {
+      return false;
+    }
+
+    synchronized (this) {
+      StateListener[] listeners = primitiveStateListeners;
+      if (!ArrayUtils.contains(listeners, l)) {
+        return false;
+      }
+
+      primitiveStateListeners = ArrayUtils.removeElement(listeners, l);
+      return true;
+    }
+  }
+
+  /**
+   * Callback for changes to a {@link BooleanCvar} which receives unboxed values.
+   */
+  public interface StateListener {
+
+    void onChanged(@NonNull BooleanCvar cvar, boolean from, boolean to);
+
+    void onLoaded(@NonNull BooleanCvar cvar, boolean to);
+
+  }
+
+  public static class Builder extends Cvar.Builder<Boolean> {
+
+    private Builder() {
+      super(Boolean.class);
+      defaultValue(false);
+    }
+
+    @NonNull
+    @Override
+    public Builder alias(@NonNull String alias) {
+      super.alias(alias);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder description(@NonNull String description) {
+      super.description(description);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder defaultValue(@Nullable Boolean defaultValue) {
+      Preconditions.checkArgument(defaultValue != null, "Default values cannot be null");
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    public Builder defaultValue(boolean defaultValue) {
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder validator(@NonNull Validator validator) {
+      super.validator(validator);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder suggestions(@NonNull SuggestionProvider suggestions) {
+      super.suggestions(suggestions);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder serializer(@NonNull StringSerializer<Boolean> serializer) {
+      super.serializer(serializer);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder requiresRestart(boolean b) {
+      super.requiresRestart(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder concurrent(boolean b) {
+      super.concurrent(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder deliverOn(@NonNull Executor executor) {
+      super.deliverOn(executor);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder delivery(@NonNull DeliveryPolicy policy) {
+      super.delivery(policy);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public BooleanCvar build() {
+      return new BooleanCvar(this);
+    }
+
+  }
+
+}
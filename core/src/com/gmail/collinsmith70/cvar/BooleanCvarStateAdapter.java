@@ -0,0 +1,15 @@
+package com.gmail.collinsmith70.cvar;
+
+import android.support.annotation.NonNull;
+
+public abstract class BooleanCvarStateAdapter implements BooleanCvar.StateListener {
+
+  @Override
+  public void onChanged(@NonNull BooleanCvar cvar, boolean from, boolean to) {}
+
+  @Override
+  public void onLoaded(@NonNull BooleanCvar cvar, boolean to) {
+    onChanged(cvar, to, to);
+  }
+
+}
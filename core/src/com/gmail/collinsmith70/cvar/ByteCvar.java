@@ -0,0 +1,487 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
+import com.gmail.collinsmith70.validator.NumberRangeValidator;
+import com.gmail.collinsmith70.validator.RangeValidationException;
+import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.Validator;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Cvar} specialized for {@code byte} values. The value is stored unboxed, so reading
+ * it through {@link #getByte()}, changing it through {@link #set(byte)} and delivering changes
+ * to {@linkplain StateListener primitive listeners} does not allocate.
+ * <p>
+ * Note: {@link Cvar.StateListener} instances are still notified, but receive boxed values. The
+ *       managing {@link CvarManager} is notified without boxing them.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class ByteCvar extends Cvar<Byte> {
+
+  @NonNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @NonNull
+  private static final StateListener[] EMPTY_STATE_LISTENERS = new StateListener[0];
+
+  /*package*/ final byte DEFAULT;
+
+  @Nullable
+  private final NumberRangeValidator<?> RANGE;
+
+  private final byte MIN;
+
+  private final byte MAX;
+
+  /**
+   * Validator used for values which cannot be checked without boxing them first. This is
+   * {@code null} if the validator was a range or accepted all non-null values.
+   */
+  @Nullable
+  private final Validator BOXED_VALIDATOR;
+
+  @NonNull
+  private volatile StateListener[] primitiveStateListeners;
+
+  @Nullable
+  private volatile CvarManager manager;
+
+  private volatile byte value;
+
+  /**
+   * Value before the first change which has not yet been delivered, if changes are
+   * {@linkplain DeliveryPolicy coalesced}.
+   */
+  private byte pendingFrom;
+
+  public ByteCvar(@NonNull Builder builder) {
+    super(builder);
+    Preconditions.checkArgument(DEFAULT_VALUE != null, "Default values cannot be null");
+    this.DEFAULT = DEFAULT_VALUE;
+    this.value = DEFAULT;
+    this.primitiveStateListeners = EMPTY_STATE_LISTENERS;
+    if (VALIDATOR instanceof NumberRangeValidator) {
+      this.RANGE = (NumberRangeValidator<?>) VALIDATOR;
+      final long min = lowerBound(RANGE.getMin(), Byte.MIN_VALUE);
+      final long max = upperBound(RANGE.getMax(), Byte.MAX_VALUE);
+      Preconditions.checkArgument(min <= max, "%s does not accept any byte values", RANGE);
+      this.MIN = (byte) min;
+      this.MAX = (byte) max;
+      this.BOXED_VALIDATOR = null;
+    } else {
+      this.RANGE = null;
+      this.MIN = Byte.MIN_VALUE;
+      this.MAX = Byte.MAX_VALUE;
+      this.BOXED_VALIDATOR = isTrivial(VALIDATOR) ? null : VALIDATOR;
+    }
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return Byte.toString(value);
+  }
+
+  public byte getByte() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @NonNull
+  @Override
+  public Byte get() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @Override
+  public void set(@Nullable Byte value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    set(value.byteValue());
+  }
+
+  public void set(byte value) {
+    materialize();
+    if (this.value == value) {
+      return;
+    }
+
+    validate(value);
+    final byte prev;
+    if (CONCURRENT) {
+      synchronized (this) {
+        prev = this.value;
+        this.value = value;
+      }
+    } else {
+      prev = this.value;
+      this.value = value;
+    }
+
+    if (prev != value) {
+      deliver(prev, value);
+    }
+  }
+
+  @Override
+  public boolean compareAndSet(@Nullable Byte expected, @Nullable Byte update) {
+    if (update == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    return expected != null && compareAndSet(expected.byteValue(), update.byteValue());
+  }
+
+  /**
+   * Atomically sets the value of this cvar to {@code update} if its current value is
+   * {@code expected}.
+   *
+   * @return {@code true} if the current value was {@code expected}, otherwise {@code false}
+   */
+  public boolean compareAndSet(byte expected, byte update) {
+    materialize();
+    validate(update);
+    final byte prev;
+    synchronized (this) {
+      prev = this.value;
+      if (prev != expected) {
+        return false;
+      }
+
+      this.value = update;
+    }
+
+    if (prev != update) {
+      deliver(prev, update);
+    }
+
+    return true;
+  }
+
+  private void validate(byte value) {
+    if (RANGE != null) {
+      if (!(MIN <= value && value <= MAX)) {
+        throw new RangeValidationException(RANGE.getMin(), RANGE.getMax());
+      }
+    } else if (BOXED_VALIDATOR != null) {
+      BOXED_VALIDATOR.check(value).throwIfInvalid();
+    }
+  }
+
+  @Override
+  /*package*/ void check(@Nullable Byte value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    validate(value.byteValue());
+  }
+
+  @NonNull
+  @Override
+  /*package*/ Byte exchange(@Nullable Byte value) {
+    return exchange(value.byteValue());
+  }
+
+  private byte exchange(byte value) {
+    materialize();
+    if (CONCURRENT) {
+      synchronized (this) {
+        final byte prev = this.value;
+        this.value = value;
+        return prev;
+      }
+    }
+
+    final byte prev = this.value;
+    this.value = value;
+    return prev;
+  }
+
+  @Override
+  /*package*/ void initialize(@Nullable Byte value) {
+    this.value = value.byteValue();
+  }
+
+  @Override
+  /*package*/ void deliver(@Nullable Byte from, @Nullable Byte to) {
+    deliver(from.byteValue(), to.byteValue());
+  }
+
+  private void deliver(byte from, byte to) {
+    final boolean loaded = isLoaded;
+    this.isLoaded = true;
+    dispatch(loaded, from, to);
+  }
+
+  @Override
+  public void reset() {
+    final byte prev = exchange(DEFAULT);
+    if (prev != DEFAULT) {
+      dispatch(true, prev, DEFAULT);
+    }
+  }
+
+  private void dispatch(boolean loaded, byte from, byte to) {
+    if (isCoalesced()) {
+      if (beginCoalescing(loaded)) {
+        this.pendingFrom = from;
+        scheduleFlush();
+      }
+
+      return;
+    }
+
+    post(loaded, from, to);
+  }
+
+  @Override
+  /*package*/ void flushPending() {
+    final byte from = pendingFrom;
+    final boolean loaded = endCoalescing();
+    final byte to = value;
+    if (!loaded || from != to) {
+      post(loaded, from, to);
+    }
+  }
+
+  private void post(final boolean loaded, final byte from, final byte to) {
+    if (DELIVERY == null) {
+      notifyListeners(loaded, from, to);
+      return;
+    }
+
+    DELIVERY.execute(new Runnable() {
+      @Override
+      public void run() {
+        notifyListeners(loaded, from, to);
+      }
+    });
+  }
+
+  private void notifyListeners(boolean loaded, byte from, byte to) {
+    if (loaded) {
+      notifyChanged(from, to);
+    } else {
+      notifyLoaded(to);
+    }
+  }
+
+  private void notifyChanged(byte from, byte to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onChanged(this, from, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onChanged(this, from, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireChanged(from, to);
+    }
+  }
+
+  private void notifyLoaded(byte to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onLoaded(this, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onLoaded(this, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireLoaded(to);
+    }
+  }
+
+  public boolean addStateListener(@NonNull StateListener l) {
+    Preconditions.checkArgument(l != null, "l cannot be null");
+    boolean added;
+    synchronized (this) {
+      added = !ArrayUtils.contains(primitiveStateListeners, l);
+      if (added) {
+        primitiveStateListeners = ArrayUtils.add(primitiveStateListeners, l);
+      }
+    }
+
+    materialize();
+    l.onLoaded(this, value);
+    return added;
+  }
+
+  @Override
+  /*package*/ void attach(@NonNull CvarManager manager) {
+    this.manager = manager;
+  }
+
+  @Override
+  /*package*/ void detach(@NonNull CvarManager manager) {
+    if (this.manager == manager) {
+      this.manager = null;
+    }
+  }
+
+  @Override
+  /*package*/ boolean hasStateListeners() {
+    return primitiveStateListeners.length > 0 || super.hasStateListeners();
+  }
+
+  public boolean containsStateListener(@Nullable StateListener l) {
+    return l != null && ArrayUtils.contains(primitiveStateListeners, l);
+  }
+
+  public boolean removeStateListener(@Nullable StateListener l) {
+    if (l == null) {
+      return false;
+    }
+
+    synchronized (this) {
+      StateListener[] listeners = primitiveStateListeners;
+      if (!ArrayUtils.contains(listeners, l)) {
+        return false;
+      }
+
+      primitiveStateListeners = ArrayUtils.removeElement(listeners, l);
+      return true;
+    }
+  }
+
+  /**
+   * Callback for changes to a {@link ByteCvar} which receives unboxed values.
+   */
+  public interface StateListener {
+
+    void onChanged(@NonNull ByteCvar cvar, byte from, byte to);
+
+    void onLoaded(@NonNull ByteCvar cvar, byte to);
+
+  }
+
+  public static class Builder extends Cvar.Builder<Byte> {
+
+    private Builder() {
+      super(Byte.class);
+      defaultValue((byte) 0);
+    }
+
+    @NonNull
+    @Override
+    public Builder alias(@NonNull String alias) {
+      super.alias(alias);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder description(@NonNull String description) {
+      super.description(description);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder defaultValue(@Nullable Byte defaultValue) {
+      Preconditions.checkArgument(defaultValue != null, "Default values cannot be null");
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    public Builder defaultValue(byte defaultValue) {
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder validator(@NonNull Validator validator) {
+      super.validator(validator);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder suggestions(@NonNull SuggestionProvider suggestions) {
+      super.suggestions(suggestions);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder serializer(@NonNull StringSerializer<Byte> serializer) {
+      super.serializer(serializer);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder requiresRestart(boolean b) {
+      super.requiresRestart(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder concurrent(boolean b) {
+      super.concurrent(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder deliverOn(@NonNull Executor executor) {
+      super.deliverOn(executor);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder delivery(@NonNull DeliveryPolicy policy) {
+      super.delivery(policy);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public ByteCvar build() {
+      return new ByteCvar(this);
+    }
+
+  }
+
+}
@@ -0,0 +1,15 @@
+package com.gmail.collinsmith70.cvar;
+
+import android.support.annotation.NonNull;
+
+public abstract class ByteCvarStateAdapter implements ByteCvar.StateListener {
+
+  @Override
+  public void onChanged(@NonNull ByteCvar cvar, byte from, byte to) {}
+
+  @Override
+  public void onLoaded(@NonNull ByteCvar cvar, byte to) {
+    onChanged(cvar, to, to);
+  }
+
+}
@@ -10,12 +10,14 @@ import android.support.annotation.Nullable;
 
 import com.gmail.collinsmith70.serializer.SerializeException;
 import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
 import com.gmail.collinsmith70.validator.Validator;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
 public class Cvar<T> implements SuggestionProvider {
 
@@ -24,6 +26,45 @@ public class Cvar<T> implements SuggestionProvider {
     return new Builder<>(type);
   }
 
+  /**
+   * Returns whether or not the specified validator accepts every non-null value, in which case
+   * specialized cvars which cannot hold {@code null} may skip it entirely.
+   */
+  /*package*/ static boolean isTrivial(@Nullable Validator validator) {
+    return validator == null
+        || validator == Validator.ACCEPT_ALL
+        || validator == Validator.ACCEPT_NON_NULL;
+  }
+
+  /**
+   * Returns the smallest integral value which is at least {@code min}, or {@code lower} if it is
+   * greater. Used by specialized cvars so that range bounds which do not fit their type are
+   * clamped rather than wrapped.
+   */
+  /*package*/ static long lowerBound(@Nullable Number min, long lower) {
+    if (min == null) {
+      return lower;
+    }
+
+    final double bound = Math.ceil(min.doubleValue());
+    return bound > lower ? (long) bound : lower;
+  }
+
+  /**
+   * Returns the largest integral value which is at most {@code max}, or {@code upper} if it is
+   * less.
+   *
+   * @see #lowerBound
+   */
+  /*package*/ static long upperBound(@Nullable Number max, long upper) {
+    if (max == null) {
+      return upper;
+    }
+
+    final double bound = Math.floor(max.doubleValue());
+    return bound < upper ? (long) bound : upper;
+  }
+
   @NonNull
   /*package*/ final String ALIAS;
 
@@ -47,15 +88,64 @@ public class Cvar<T> implements SuggestionProvider {
 
   /*package*/ final boolean REQUIRES_RESTART;
 
+  /**
+   * Whether or not writes to this cvar are serialized so that it may be safely changed from
+   * multiple threads. Reads never lock.
+   */
+  /*package*/ final boolean CONCURRENT;
+
+  /**
+   * Executor which state listeners are notified on, or {@code null} if they should be notified on
+   * the thread which changed the value.
+   */
+  @Nullable
+  /*package*/ final Executor DELIVERY;
+
+  /**
+   * Policy which determines when changes are delivered to state listeners.
+   */
+  @NonNull
+  /*package*/ final DeliveryPolicy POLICY;
+
+  /**
+   * Delivers coalesced changes, or {@code null} if changes are delivered immediately. Also guards
+   * the state of coalesced changes.
+   */
+  @Nullable
+  private final Runnable FLUSH;
+
+  private boolean pending;
+
+  private boolean pendingLoaded;
+
+  private long lastChange;
+
+  @Nullable
+  private T pendingFrom;
+
   @NonNull
-  private final Set<StateListener<T>> STATE_LISTENERS;
+  /*package*/ final Set<StateListener<T>> STATE_LISTENERS;
 
   @Nullable
-  private T value;
+  private volatile T value;
 
-  private boolean isLoaded;
+  /*package*/ volatile boolean isLoaded;
 
-  public Cvar(Cvar.Builder<T> builder) {
+  /**
+   * Manager which will load the value of this cvar the first time it is accessed, or
+   * {@code null} if the value has already been loaded.
+   */
+  @Nullable
+  /*package*/ volatile SaveableCvarManager loader;
+
+  /**
+   * Whether or not {@link #loader} may still be set. This is deliberately not volatile so that
+   * reading the value of a loaded cvar costs a plain field read rather than a second volatile
+   * one; a stale {@code true} only costs a call to {@link #materialize()}.
+   */
+  /*package*/ boolean unloaded;
+
+  public Cvar(@NonNull Cvar.Builder<T> builder) {
     this.ALIAS = Strings.nullToEmpty(builder.alias);
     this.DESCRIPTION = Strings.nullToEmpty(builder.description);
     this.TYPE = builder.TYPE;
@@ -64,6 +154,17 @@ public class Cvar<T> implements SuggestionProvider {
     this.SUGGESTIONS = builder.suggestions;
     this.SERIALIZER = builder.serializer;
     this.REQUIRES_RESTART = builder.requiresRestart;
+    this.CONCURRENT = builder.concurrent;
+    this.POLICY = builder.policy;
+    Preconditions.checkArgument(builder.delivery != null || !POLICY.requiresExecutor(),
+        "%s must deliver on an executor to use its delivery policy", ALIAS);
+    this.DELIVERY = POLICY.isDeliveredOn(builder.delivery) ? null : builder.delivery;
+    this.FLUSH = POLICY == DeliveryPolicy.IMMEDIATE ? null : new Runnable() {
+      @Override
+      public void run() {
+        flush();
+      }
+    };
     this.value = DEFAULT_VALUE;
     this.isLoaded = false;
 
@@ -73,7 +174,7 @@ public class Cvar<T> implements SuggestionProvider {
   @NonNull
   @Override
   public String toString() {
-    final T value = this.value;
+    final T value = get();
     if (value == null) {
       return "null";
     }
@@ -109,6 +210,10 @@ public class Cvar<T> implements SuggestionProvider {
     return isLoaded;
   }
 
+  public boolean isConcurrent() {
+    return CONCURRENT;
+  }
+
   public boolean hasSerializer() {
     return SERIALIZER != null;
   }
@@ -118,32 +223,67 @@ public class Cvar<T> implements SuggestionProvider {
     return SERIALIZER;
   }
 
+  /**
+   * Returns the value of this cvar. The value of a cvar which was added to a
+   * {@linkplain SaveableCvarManager#setLazyLoading lazily loading} manager is loaded the first time
+   * it is read.
+   */
   @Nullable
   public T get() {
+    if (unloaded) {
+      materialize();
+    }
+
     return value;
   }
 
   public void set(@Nullable T value) {
-    final T prev = this.value;
-    if (Objects.equal(prev, value)) {
+    materialize();
+    if (Objects.equal(this.value, value)) {
       return;
     }
 
-    if (VALIDATOR != null) {
-      VALIDATOR.validate(value);
-    }
-
-    this.value = value;
-    if (isLoaded) {
-      for (StateListener<T> l : STATE_LISTENERS) {
-        l.onChanged(this, prev, value);
+    check(value);
+    final T prev;
+    if (CONCURRENT) {
+      synchronized (this) {
+        prev = this.value;
+        this.value = value;
       }
     } else {
-      this.isLoaded = true;
-      for (StateListener<T> l : STATE_LISTENERS) {
-        l.onLoaded(this, value);
+      prev = this.value;
+      this.value = value;
+    }
+
+    if (!Objects.equal(prev, value)) {
+      deliver(prev, value);
+    }
+  }
+
+  /**
+   * Atomically sets the value of this cvar to {@code update} if its current value is equal to
+   * {@code expected}.
+   *
+   * @return {@code true} if the current value was equal to {@code expected}, otherwise {@code false}
+   */
+  public boolean compareAndSet(@Nullable T expected, @Nullable T update) {
+    materialize();
+    check(update);
+    final T prev;
+    synchronized (this) {
+      prev = this.value;
+      if (!Objects.equal(prev, expected)) {
+        return false;
       }
+
+      this.value = update;
     }
+
+    if (!Objects.equal(prev, update)) {
+      deliver(prev, update);
+    }
+
+    return true;
   }
 
   public void set(@NonNull String str) {
@@ -172,22 +312,252 @@ public class Cvar<T> implements SuggestionProvider {
   }
 
   public void reset() {
-    if (!Objects.equal(value, DEFAULT_VALUE)) {
-      final T prev = this.value;
-      this.value = DEFAULT_VALUE;
-      for (StateListener<T> l : STATE_LISTENERS) {
-        l.onChanged(this, prev, value);
+    final T prev = exchange(DEFAULT_VALUE);
+    if (!Objects.equal(prev, DEFAULT_VALUE)) {
+      dispatch(true, prev, DEFAULT_VALUE);
+    }
+  }
+
+  /**
+   * Validates {@code value} without changing this cvar.
+   */
+  /*package*/ void check(@Nullable T value) {
+    if (VALIDATOR != null) {
+      VALIDATOR.check(value).throwIfInvalid();
+    }
+  }
+
+  /**
+   * Changes the value of this cvar without notifying any listeners. The value should already have
+   * been {@linkplain #check checked}.
+   *
+   * @return The previous value
+   */
+  @Nullable
+  /*package*/ T exchange(@Nullable T value) {
+    materialize();
+    if (CONCURRENT) {
+      synchronized (this) {
+        final T prev = this.value;
+        this.value = value;
+        return prev;
       }
     }
+
+    final T prev = this.value;
+    this.value = value;
+    return prev;
+  }
+
+  /**
+   * Loads the value of this cvar if it is still {@linkplain SaveableCvarManager#isLazyLoading
+   * pending}.
+   */
+  /*package*/ final void materialize() {
+    final SaveableCvarManager loader = this.loader;
+    if (loader != null) {
+      loader.materialize(this);
+    }
+  }
+
+  /**
+   * Returns the value of this cvar, loading it first if it is still pending. Used by managers,
+   * which must observe loaded values.
+   */
+  @Nullable
+  /*package*/ final T read() {
+    materialize();
+    return get();
+  }
+
+  /**
+   * Sets the initial value of this cvar without notifying any listeners. Used when loading
+   * values lazily.
+   */
+  /*package*/ void initialize(@Nullable T value) {
+    this.value = value;
+  }
+
+  /**
+   * Notifies listeners of a change previously made using {@link #exchange}. The first change
+   * made to a cvar is delivered as {@linkplain StateListener#onLoaded loaded}.
+   */
+  /*package*/ void deliver(@Nullable T from, @Nullable T to) {
+    final boolean loaded = isLoaded;
+    this.isLoaded = true;
+    dispatch(loaded, from, to);
+  }
+
+  private void dispatch(boolean loaded, @Nullable T from, @Nullable T to) {
+    if (isCoalesced()) {
+      if (beginCoalescing(loaded)) {
+        this.pendingFrom = from;
+        scheduleFlush();
+      }
+
+      return;
+    }
+
+    post(loaded, from, to);
+  }
+
+  /**
+   * Returns whether or not listeners are notified on an executor rather than on the thread which
+   * changed this cvar.
+   */
+  /*package*/ final boolean deliversOnExecutor() {
+    return DELIVERY != null || POLICY.getExecutor() != null;
+  }
+
+  /**
+   * Returns the executor which changes to this cvar are posted to as soon as they are made, or
+   * {@code null} if listeners are notified on the thread which made them or only after a delay.
+   */
+  @Nullable
+  /*package*/ final Executor getDeliveryExecutor() {
+    if (POLICY.requiresExecutor()) {
+      // posted once the policy has waited
+      return null;
+    }
+
+    return DELIVERY != null ? DELIVERY : POLICY.getExecutor();
+  }
+
+  /**
+   * Returns whether or not changes to this cvar are coalesced by its {@link DeliveryPolicy}.
+   */
+  /*package*/ final boolean isCoalesced() {
+    return FLUSH != null;
+  }
+
+  /**
+   * Records a change which will be delivered by the next flush.
+   *
+   * @return {@code true} if no other changes are pending, in which case the caller must record the
+   *         value being changed from and then {@linkplain #scheduleFlush schedule a flush}
+   */
+  /*package*/ final boolean beginCoalescing(boolean loaded) {
+    synchronized (FLUSH) {
+      lastChange = System.nanoTime();
+      if (pending) {
+        return false;
+      }
+
+      pending = true;
+      pendingLoaded = loaded;
+      return true;
+    }
+  }
+
+  /*package*/ final void scheduleFlush() {
+    POLICY.schedule(FLUSH, POLICY.getDelay(0));
+  }
+
+  /**
+   * Marks the pending changes as delivered. Any value being changed from should have been read
+   * before calling this.
+   *
+   * @return Whether or not this cvar was loaded before the first pending change
+   */
+  /*package*/ final boolean endCoalescing() {
+    synchronized (FLUSH) {
+      pending = false;
+      return pendingLoaded;
+    }
+  }
+
+  private void flush() {
+    final long delay;
+    synchronized (FLUSH) {
+      delay = POLICY.getDelay(System.nanoTime() - lastChange);
+    }
+
+    if (delay > 0) {
+      POLICY.schedule(FLUSH, delay);
+      return;
+    }
+
+    flushPending();
+  }
+
+  /**
+   * Delivers the change from the value before the first pending change to the current value.
+   */
+  /*package*/ void flushPending() {
+    final T from = pendingFrom;
+    this.pendingFrom = null;
+    final boolean loaded = endCoalescing();
+    final T to = value;
+    if (!loaded || !Objects.equal(from, to)) {
+      post(loaded, from, to);
+    }
+  }
+
+  private void post(final boolean loaded, @Nullable final T from, @Nullable final T to) {
+    if (DELIVERY == null) {
+      fire(loaded, from, to);
+      return;
+    }
+
+    DELIVERY.execute(new Runnable() {
+      @Override
+      public void run() {
+        fire(loaded, from, to);
+      }
+    });
+  }
+
+  private void fire(boolean loaded, @Nullable T from, @Nullable T to) {
+    if (loaded) {
+      fireChanged(from, to);
+    } else {
+      fireLoaded(to);
+    }
+  }
+
+  /*package*/ void fireChanged(@Nullable T from, @Nullable T to) {
+    for (StateListener<T> l : STATE_LISTENERS) {
+      final long start = ListenerProfiler.start();
+      l.onChanged(this, from, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+  }
+
+  /*package*/ void fireLoaded(@Nullable T to) {
+    for (StateListener<T> l : STATE_LISTENERS) {
+      final long start = ListenerProfiler.start();
+      l.onLoaded(this, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
   }
 
   public boolean addStateListener(@NonNull StateListener<T> l) {
     Preconditions.checkArgument(l != null, "l cannot be null");
     boolean added = STATE_LISTENERS.add(l);
-    l.onLoaded(this, value);
+    l.onLoaded(this, read());
     return added;
   }
 
+  /**
+   * Notifies the specified manager of changes to this cvar. Unlike {@link #addStateListener}, the
+   * manager is not notified of the current value, which would otherwise force lazily loaded
+   * values to load. Specialized cvars override this to notify the manager without boxing values.
+   */
+  /*package*/ void attach(@NonNull CvarManager manager) {
+    STATE_LISTENERS.add(manager);
+  }
+
+  /*package*/ void detach(@NonNull CvarManager manager) {
+    STATE_LISTENERS.remove(manager);
+  }
+
+  /**
+   * Returns whether or not any listeners are observing this cvar.
+   */
+  /*package*/ boolean hasStateListeners() {
+    return !STATE_LISTENERS.isEmpty();
+  }
+
   public boolean containsStateListener(@Nullable StateListener<T> l) {
     return l != null && STATE_LISTENERS.contains(l);
 
@@ -239,7 +609,15 @@ public class Cvar<T> implements SuggestionProvider {
 
     private boolean requiresRestart = false;
 
-    private Builder(@NonNull Class<T> type) {
+    private boolean concurrent = false;
+
+    @Nullable
+    private Executor delivery;
+
+    @NonNull
+    private DeliveryPolicy policy = DeliveryPolicy.IMMEDIATE;
+
+    /*package*/ Builder(@NonNull Class<T> type) {
       Preconditions.checkArgument(type != null, "Type cannot be null");
       this.TYPE = type;
     }
@@ -291,6 +669,42 @@ public class Cvar<T> implements SuggestionProvider {
       return this;
     }
 
+    /**
+     * Sets whether or not the cvar may be changed from multiple threads. Concurrent cvars serialize
+     * writes, but reading them remains a single (volatile) field load. Concurrent cvars must
+     * {@linkplain #deliverOn deliver on} an executor to be added to a {@link CvarManager}.
+     */
+    @NonNull
+    public Builder<T> concurrent(boolean b) {
+      this.concurrent = b;
+      return this;
+    }
+
+    /**
+     * Sets the executor which state listeners are notified on. By default listeners are notified
+     * on the thread which changed the cvar. The managing {@link CvarManager} is also notified on
+     * it, so it should run tasks on the thread which the manager is used on.
+     */
+    @NonNull
+    public Builder<T> deliverOn(@NonNull Executor executor) {
+      Preconditions.checkArgument(executor != null, "Executors cannot be null");
+      this.delivery = executor;
+      return this;
+    }
+
+    /**
+     * Sets the policy which determines when changes are delivered to state listeners, e.g., to
+     * only deliver the latest value once per frame. By default changes are delivered immediately.
+     *
+     * @see DeliveryPolicy
+     */
+    @NonNull
+    public Builder<T> delivery(@NonNull DeliveryPolicy policy) {
+      Preconditions.checkArgument(policy != null, "DeliveryPolicies cannot be null");
+      this.policy = policy;
+      return this;
+    }
+
     @NonNull
     public Cvar<T> build() {
       return new Cvar<>(this);
@@ -0,0 +1,347 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.cvar.CvarManager.Layer;
+
+/**
+ * A bounded journal of the changes made to the cvars managed by a {@link CvarManager}, newest
+ * first. Entries are recorded into a ring buffer of parallel arrays which are allocated up front,
+ * and values of primitive wrapper types are stored as their raw bits rather than as references, so
+ * recording a change never allocates and does not keep boxed values alive. Values are only boxed
+ * again when an {@link Entry} is read.
+ * <p>
+ * Note: Changes delivered as {@linkplain Cvar.StateListener#onLoaded loaded} and changes to
+ *       {@linkplain DerivedCvar derived cvars} are not recorded.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class CvarJournal {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private static final Layer[] LAYERS = Layer.values();
+
+  /*package*/ static final byte REFERENCE = 0;
+  /*package*/ static final byte BYTE = 1;
+  /*package*/ static final byte SHORT = 2;
+  /*package*/ static final byte INT = 3;
+  /*package*/ static final byte LONG = 4;
+  /*package*/ static final byte FLOAT = 5;
+  /*package*/ static final byte DOUBLE = 6;
+  /*package*/ static final byte BOOLEAN = 7;
+  /*package*/ static final byte CHAR = 8;
+
+  @NonNull
+  private final CvarManager MANAGER;
+
+  private final int CAPACITY;
+
+  /**
+   * Slots of the changed cvars within {@link #MANAGER}.
+   */
+  @NonNull
+  private final int[] SLOTS;
+
+  @NonNull
+  private final long[] TIMES;
+
+  @NonNull
+  private final byte[] SOURCES;
+
+  @NonNull
+  private final byte[] FROM_KINDS;
+
+  @NonNull
+  private final byte[] TO_KINDS;
+
+  @NonNull
+  private final long[] FROM_BITS;
+
+  @NonNull
+  private final long[] TO_BITS;
+
+  @NonNull
+  private final Object[] FROM_REFS;
+
+  @NonNull
+  private final Object[] TO_REFS;
+
+  /**
+   * Index of the next entry to be written.
+   */
+  private int head;
+
+  private int size;
+
+  private volatile boolean enabled;
+
+  /*package*/ CvarJournal(@NonNull CvarManager manager, int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+    this.MANAGER = manager;
+    this.CAPACITY = capacity;
+    this.SLOTS = new int[capacity];
+    this.TIMES = new long[capacity];
+    this.SOURCES = new byte[capacity];
+    this.FROM_KINDS = new byte[capacity];
+    this.TO_KINDS = new byte[capacity];
+    this.FROM_BITS = new long[capacity];
+    this.TO_BITS = new long[capacity];
+    this.FROM_REFS = new Object[capacity];
+    this.TO_REFS = new Object[capacity];
+    this.enabled = true;
+  }
+
+  public int capacity() {
+    return CAPACITY;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean b) {
+    this.enabled = b;
+  }
+
+  public synchronized void clear() {
+    head = 0;
+    size = 0;
+    for (int i = 0; i < CAPACITY; i++) {
+      FROM_REFS[i] = null;
+      TO_REFS[i] = null;
+    }
+  }
+
+  /**
+   * Records a change, overwriting the oldest entry if the journal is full.
+   */
+  /*package*/ synchronized void record(int slot, @Nullable Object from, @Nullable Object to,
+                                       @NonNull Layer source) {
+    if (!enabled) {
+      return;
+    }
+
+    final int i = head;
+    SLOTS[i] = slot;
+    TIMES[i] = System.currentTimeMillis();
+    SOURCES[i] = (byte) source.ordinal();
+    final byte fromKind = kindOf(from);
+    FROM_KINDS[i] = fromKind;
+    FROM_BITS[i] = fromKind == REFERENCE ? 0 : toBits(from);
+    FROM_REFS[i] = fromKind == REFERENCE ? from : null;
+    final byte toKind = kindOf(to);
+    TO_KINDS[i] = toKind;
+    TO_BITS[i] = toKind == REFERENCE ? 0 : toBits(to);
+    TO_REFS[i] = toKind == REFERENCE ? to : null;
+    head = (i + 1) % CAPACITY;
+    if (size < CAPACITY) {
+      size++;
+    }
+  }
+
+  /**
+   * Records a change to a value of a primitive wrapper type, given the {@linkplain #toBits raw
+   * bits} of its values, without boxing them.
+   *
+   * @param kind The kind of both values, e.g., {@link #INT}
+   */
+  /*package*/ synchronized void record(int slot, byte kind, long from, long to,
+                                       @NonNull Layer source) {
+    if (!enabled) {
+      return;
+    }
+
+    final int i = head;
+    SLOTS[i] = slot;
+    TIMES[i] = System.currentTimeMillis();
+    SOURCES[i] = (byte) source.ordinal();
+    FROM_KINDS[i] = kind;
+    FROM_BITS[i] = from;
+    FROM_REFS[i] = null;
+    TO_KINDS[i] = kind;
+    TO_BITS[i] = to;
+    TO_REFS[i] = null;
+    head = (i + 1) % CAPACITY;
+    if (size < CAPACITY) {
+      size++;
+    }
+  }
+
+  /**
+   * Returns the entry recorded {@code age} changes ago, where {@code 0} is the newest entry.
+   */
+  @NonNull
+  public synchronized Entry get(int age) {
+    Preconditions.checkElementIndex(age, size);
+    return read((head - 1 - age + CAPACITY) % CAPACITY);
+  }
+
+  /**
+   * Removes and returns the newest entry, or {@code null} if the journal is empty.
+   */
+  @Nullable
+  /*package*/ synchronized Entry pop() {
+    if (size == 0) {
+      return null;
+    }
+
+    final int i = (head - 1 + CAPACITY) % CAPACITY;
+    final Entry entry = read(i);
+    FROM_REFS[i] = null;
+    TO_REFS[i] = null;
+    head = i;
+    size--;
+    return entry;
+  }
+
+  @NonNull
+  private Entry read(int i) {
+    return new Entry(MANAGER.getCvar(SLOTS[i]), TIMES[i], LAYERS[SOURCES[i]],
+        fromBits(FROM_KINDS[i], FROM_BITS[i], FROM_REFS[i]),
+        fromBits(TO_KINDS[i], TO_BITS[i], TO_REFS[i]));
+  }
+
+  /*package*/ static byte kindOf(@Nullable Object value) {
+    if (value instanceof Integer) {
+      return INT;
+    } else if (value instanceof Float) {
+      return FLOAT;
+    } else if (value instanceof Boolean) {
+      return BOOLEAN;
+    } else if (value instanceof Short) {
+      return SHORT;
+    } else if (value instanceof Byte) {
+      return BYTE;
+    } else if (value instanceof Long) {
+      return LONG;
+    } else if (value instanceof Double) {
+      return DOUBLE;
+    } else if (value instanceof Character) {
+      return CHAR;
+    }
+
+    return REFERENCE;
+  }
+
+  /**
+   * Returns the raw bits of a value of a primitive wrapper type. Floats and doubles are converted
+   * using {@link Float#floatToRawIntBits} and {@link Double#doubleToRawLongBits}, booleans are
+   * {@code 1} or {@code 0}, and integral values are sign-extended.
+   */
+  /*package*/ static long toBits(@NonNull Object value) {
+    if (value instanceof Float) {
+      return Float.floatToRawIntBits((Float) value);
+    } else if (value instanceof Double) {
+      return Double.doubleToRawLongBits((Double) value);
+    } else if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    } else if (value instanceof Character) {
+      return (Character) value;
+    }
+
+    return ((Number) value).longValue();
+  }
+
+  /**
+   * Returns whether or not {@code value} is of the specified kind and has the specified
+   * {@linkplain #toBits raw bits}.
+   */
+  /*package*/ static boolean matches(@Nullable Object value, byte kind, long bits) {
+    return kindOf(value) == kind && toBits(value) == bits;
+  }
+
+  @Nullable
+  /*package*/ static Object fromBits(byte kind, long bits, @Nullable Object ref) {
+    switch (kind) {
+      case BYTE:
+        return (byte) bits;
+      case SHORT:
+        return (short) bits;
+      case INT:
+        return (int) bits;
+      case LONG:
+        return bits;
+      case FLOAT:
+        return Float.intBitsToFloat((int) bits);
+      case DOUBLE:
+        return Double.longBitsToDouble(bits);
+      case BOOLEAN:
+        return bits != 0;
+      case CHAR:
+        return (char) bits;
+      default:
+        return ref;
+    }
+  }
+
+  /**
+   * A change recorded by a {@link CvarJournal}.
+   */
+  public static final class Entry {
+
+    @Nullable
+    private final Cvar CVAR;
+
+    private final long TIME;
+
+    @NonNull
+    private final Layer SOURCE;
+
+    @Nullable
+    private final Object FROM;
+
+    @Nullable
+    private final Object TO;
+
+    private Entry(@Nullable Cvar cvar, long time, @NonNull Layer source, @Nullable Object from,
+                  @Nullable Object to) {
+      this.CVAR = cvar;
+      this.TIME = time;
+      this.SOURCE = source;
+      this.FROM = from;
+      this.TO = to;
+    }
+
+    /**
+     * Returns the changed cvar, or {@code null} if it is no longer managed.
+     */
+    @Nullable
+    public Cvar getCvar() {
+      return CVAR;
+    }
+
+    /**
+     * Returns the time of the change in milliseconds since the epoch.
+     */
+    public long getTime() {
+      return TIME;
+    }
+
+    /**
+     * Returns the layer which supplied the new value.
+     */
+    @NonNull
+    public Layer getSource() {
+      return SOURCE;
+    }
+
+    @Nullable
+    public Object getFrom() {
+      return FROM;
+    }
+
+    @Nullable
+    public Object getTo() {
+      return TO;
+    }
+
+  }
+
+}
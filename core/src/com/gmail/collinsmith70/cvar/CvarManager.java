@@ -1,24 +1,135 @@
 package com.gmail.collinsmith70.cvar;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.gmail.collinsmith70.serializer.SerializeException;
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
+
 import org.apache.commons.collections4.Trie;
 import org.apache.commons.collections4.trie.PatriciaTrie;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
+/**
+ * Manages a namespace of cvars. The value of each managed cvar is resolved from a stack of
+ * {@linkplain Layer layers}, e.g., its default value, a config file, and overrides passed on the
+ * command-line. Whenever a layer changes, the value of the highest layer which has been set is
+ * stored into the cvar itself, so {@link Cvar#get()} never needs to consult the layers.
+ */
 public class CvarManager implements Cvar.StateListener, Iterable<Cvar> {
 
+  /**
+   * Placeholder for layers of a cvar which have not been set.
+   */
+  private static final Object UNSET = new Object();
+
+  /**
+   * Placeholder for the {@linkplain Layer#RUNTIME runtime} layer of cvars which were changed
+   * without going through a layer, e.g., using {@link Cvar#set}. Since the runtime layer is the
+   * highest one, its value is the current value of the cvar, which is read from the cvar instead
+   * of being stored, so recording a change to a specialized primitive cvar does not box it.
+   */
+  private static final Object CURRENT = new Object();
+
+  private static final Layer[] LAYERS = Layer.values();
+
   @NonNull
   private final Trie<String, Cvar> CVARS;
 
+  /**
+   * Index of the namespace formed by the dot-separated components of cvar aliases, keyed by
+   * lowercase path. The root is keyed by the empty string.
+   */
+  @NonNull
+  private final Map<String, Node> NODES;
+
+  /**
+   * Node of each managed cvar within {@link #NODES}, so that changes can be dispatched to subtree
+   * listeners by walking up the tree.
+   */
+  @NonNull
+  private final Map<Cvar, Node> LEAVES;
+
+  /**
+   * Number of {@link Transaction transactions} currently delivering their changes. Transactions
+   * may be nested if a listener commits another transaction while being notified.
+   */
+  private int transactionDepth;
+
+  /**
+   * Every managed {@link DerivedCvar}.
+   */
+  @NonNull
+  private final List<DerivedCvar> DERIVED;
+
+  /**
+   * Nodes of the cvars which changed since derived cvars were last recomputed.
+   */
+  @NonNull
+  private final Set<Node> CHANGED;
+
+  /**
+   * Nodes of the cvars which were changed by listeners while derived cvars were being recomputed.
+   */
+  @NonNull
+  private final Set<Node> DEFERRED;
+
+  /**
+   * {@link #DERIVED} sorted such that every derived cvar comes after its inputs, or {@code null}
+   * if the dependency graph has changed since it was last sorted.
+   */
+  @Nullable
+  private List<DerivedCvar> derivationOrder;
+
+  private boolean propagating;
+
+  /**
+   * Every cvar which has been added, indexed by its {@linkplain Node#slot slot}. This array is
+   * copied whenever it changes, so it can be shared by {@linkplain CvarSnapshot snapshots}.
+   */
+  @NonNull
+  private Cvar[] slots;
+
+  /**
+   * Most recently captured snapshot, whose chunks are shared by the next capture wherever their
+   * values have not changed.
+   */
+  @Nullable
+  private CvarSnapshot lastCapture;
+
+  @NonNull
+  private final CvarJournal JOURNAL;
+
   public CvarManager() {
     this.CVARS = new PatriciaTrie<>();
+    this.NODES = new HashMap<>();
+    this.LEAVES = new IdentityHashMap<>();
+    this.DERIVED = new ArrayList<>();
+    this.CHANGED = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+    this.DEFERRED = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+    this.slots = new Cvar[0];
+    this.JOURNAL = new CvarJournal(this, CvarJournal.DEFAULT_CAPACITY);
   }
 
   public Collection<Cvar> getCvars() {
@@ -40,10 +151,54 @@ public class CvarManager implements Cvar.StateListener, Iterable<Cvar> {
     } else if (queriedCvar != null) {
       throw new CvarManagerException("A Cvar with the alias %s has already been added",
           queriedCvar.ALIAS);
+    } else if (cvar.CONCURRENT && !cvar.deliversOnExecutor()) {
+      // changes made on other threads would otherwise be recorded on those threads
+      throw new CvarManagerException(
+          "%s is concurrent and must deliver on the thread which this manager is used on",
+          cvar.ALIAS);
+    }
+
+    final Node leaf = getOrCreateNode(alias);
+    if (cvar instanceof DerivedCvar) {
+      checkAcyclic((DerivedCvar) cvar, leaf);
     }
 
     CVARS.put(alias, cvar);
-    cvar.addStateListener(this);
+    LEAVES.put(cvar, leaf);
+    leaf.slot = slots.length;
+    slots = Arrays.copyOf(slots, slots.length + 1);
+    slots[leaf.slot] = cvar;
+    for (Node node = leaf; node != null; node = node.PARENT) {
+      node.CVARS.add(cvar);
+    }
+
+    if (cvar instanceof DerivedCvar) {
+      addDerived((DerivedCvar) cvar, leaf);
+    } else {
+      // values set before the cvar was added could only have been set at runtime
+      final Object value = cvar.read();
+      if (!Objects.equal(value, cvar.DEFAULT_VALUE)) {
+        putLayer(leaf, Layer.RUNTIME, value);
+      }
+    }
+
+    // the manager is attached instead of added through addStateListener(), which would otherwise
+    // force lazily loaded values to load. Subtree listeners are notified separately.
+    cvar.attach(this);
+    if (cvar instanceof DerivedCvar) {
+      // cvars derived from this one may have been computed before it was
+      markChanged(cvar);
+    }
+
+    if (hasSubtreeListeners(alias)) {
+      final Object value = cvar.read();
+      for (Node node = leaf; node != null; node = node.PARENT) {
+        for (Cvar.StateListener l : node.LISTENERS) {
+          l.onLoaded(cvar, value);
+        }
+      }
+    }
+
     return true;
   }
 
@@ -54,8 +209,193 @@ public class CvarManager implements Cvar.StateListener, Iterable<Cvar> {
 
     final String alias = cvar.ALIAS.toLowerCase();
     final Cvar queriedCvar = CVARS.get(alias);
-    return Objects.equal(queriedCvar, cvar)
-        && CVARS.remove(alias) != null;
+    if (!Objects.equal(queriedCvar, cvar) || CVARS.remove(alias) == null) {
+      return false;
+    }
+
+    cvar.detach(this);
+    final Node leaf = LEAVES.remove(cvar);
+    for (Node node = leaf; node != null; node = node.PARENT) {
+      node.CVARS.remove(cvar);
+    }
+
+    leaf.layers = null;
+    leaf.source = Layer.DEFAULT;
+    slots = slots.clone();
+    slots[leaf.slot] = null;
+    leaf.slot = -1;
+
+    if (cvar instanceof DerivedCvar) {
+      removeDerived((DerivedCvar) cvar, leaf);
+    }
+
+    return true;
+  }
+
+  /**
+   * Throws a {@link CvarManagerException} if adding the specified derived cvar would introduce a
+   * cycle into the dependency graph.
+   */
+  private void checkAcyclic(@NonNull DerivedCvar<?> cvar, @NonNull Node leaf) {
+    final Set<Node> inputs = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+    for (String input : cvar.INPUTS) {
+      inputs.add(getOrCreateNode(input.toLowerCase()));
+    }
+
+    final Deque<String> path = new ArrayDeque<>();
+    path.add(cvar.ALIAS);
+    if (inputs.contains(leaf)
+        || findPath(leaf, inputs, Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>()),
+            path)) {
+      path.add(cvar.ALIAS);
+      throw new CvarManagerException("Cyclic dependency: %s", Joiner.on(" -> ").join(path));
+    }
+  }
+
+  /**
+   * Searches the cvars derived from {@code from} for one within {@code targets}, appending the
+   * aliases along the way to {@code path}.
+   */
+  private boolean findPath(@NonNull Node from, @NonNull Set<Node> targets,
+                           @NonNull Set<Node> visited, @NonNull Deque<String> path) {
+    for (DerivedCvar dependent : from.DEPENDENTS) {
+      final Node node = LEAVES.get(dependent);
+      path.addLast(dependent.ALIAS);
+      if (targets.contains(node)
+          || (visited.add(node) && findPath(node, targets, visited, path))) {
+        return true;
+      }
+
+      path.removeLast();
+    }
+
+    return false;
+  }
+
+  private void addDerived(@NonNull DerivedCvar<?> cvar, @NonNull Node leaf) {
+    final List<String> inputs = cvar.INPUTS;
+    leaf.INPUTS = new Node[inputs.size()];
+    for (int i = 0; i < leaf.INPUTS.length; i++) {
+      final Node input = getOrCreateNode(inputs.get(i).toLowerCase());
+      input.DEPENDENTS.add(cvar);
+      leaf.INPUTS[i] = input;
+      final Cvar managed = get(inputs.get(i));
+      if (managed != null) {
+        // loading lazily does not notify dependents, so inputs are loaded up front
+        managed.materialize();
+      }
+    }
+
+    DERIVED.add(cvar);
+    derivationOrder = null;
+    cvar.recompute();
+  }
+
+  private void removeDerived(@NonNull DerivedCvar<?> cvar, @NonNull Node leaf) {
+    for (Node input : leaf.INPUTS) {
+      input.DEPENDENTS.remove(cvar);
+    }
+
+    leaf.INPUTS = null;
+    DERIVED.remove(cvar);
+    derivationOrder = null;
+  }
+
+  /**
+   * Returns whether or not any {@link DerivedCvar} managed by this {@code CvarManager} is derived
+   * from the cvar with the specified alias.
+   */
+  /*package*/ boolean hasDependents(@NonNull String alias) {
+    final Node node = NODES.get(alias.toLowerCase());
+    return node != null && !node.DEPENDENTS.isEmpty();
+  }
+
+  /**
+   * Returns every managed derived cvar, ordered such that each one comes after the derived cvars
+   * it depends on.
+   */
+  @NonNull
+  private List<DerivedCvar> getDerivationOrder() {
+    if (derivationOrder == null) {
+      final List<DerivedCvar> postOrder = new ArrayList<>(DERIVED.size());
+      final Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+      for (DerivedCvar cvar : DERIVED) {
+        visit(LEAVES.get(cvar), visited, postOrder);
+      }
+
+      Collections.reverse(postOrder);
+      derivationOrder = postOrder;
+    }
+
+    return derivationOrder;
+  }
+
+  private void visit(@NonNull Node leaf, @NonNull Set<Node> visited,
+                     @NonNull List<DerivedCvar> postOrder) {
+    if (!visited.add(leaf)) {
+      return;
+    }
+
+    for (DerivedCvar dependent : leaf.DEPENDENTS) {
+      visit(LEAVES.get(dependent), visited, postOrder);
+    }
+
+    postOrder.add((DerivedCvar) leaf.CVARS.get(0));
+  }
+
+  /**
+   * Records that the specified cvar has changed, recomputing the cvars derived from it unless a
+   * {@link Transaction} is being delivered, in which case they are recomputed once it has been.
+   */
+  private void markChanged(@NonNull Cvar cvar) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null || leaf.DEPENDENTS.isEmpty()) {
+      return;
+    } else if (propagating) {
+      // derived cvars are tracked by propagate() itself
+      if (!(cvar instanceof DerivedCvar)) {
+        DEFERRED.add(leaf);
+      }
+
+      return;
+    }
+
+    CHANGED.add(leaf);
+    if (!isInTransaction()) {
+      propagate();
+    }
+  }
+
+  /**
+   * Recomputes each derived cvar at most once per pass, in dependency order, and only if one of
+   * its inputs has changed.
+   */
+  private void propagate() {
+    propagating = true;
+    try {
+      while (!CHANGED.isEmpty()) {
+        for (DerivedCvar cvar : getDerivationOrder()) {
+          final Node leaf = LEAVES.get(cvar);
+          for (Node input : leaf.INPUTS) {
+            if (CHANGED.contains(input)) {
+              if (cvar.recompute()) {
+                CHANGED.add(leaf);
+              }
+
+              break;
+            }
+          }
+        }
+
+        CHANGED.clear();
+        CHANGED.addAll(DEFERRED);
+        DEFERRED.clear();
+      }
+    } finally {
+      CHANGED.clear();
+      DEFERRED.clear();
+      propagating = false;
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -86,11 +426,1026 @@ public class CvarManager implements Cvar.StateListener, Iterable<Cvar> {
     return alias != null && CVARS.containsKey(alias.toLowerCase());
   }
 
+  @NonNull
+  private Node getOrCreateNode(@NonNull String path) {
+    Node node = NODES.get(path);
+    if (node != null) {
+      return node;
+    }
+
+    final Node parent;
+    if (path.isEmpty()) {
+      parent = null;
+    } else {
+      final int i = path.lastIndexOf('.');
+      parent = getOrCreateNode(i == -1 ? "" : path.substring(0, i));
+    }
+
+    node = new Node(parent);
+    NODES.put(path, node);
+    return node;
+  }
+
+  /**
+   * Returns whether or not any subtree listeners would be notified of changes to a cvar with the
+   * specified alias.
+   */
+  /*package*/ boolean hasSubtreeListeners(@NonNull String alias) {
+    String path = alias.toLowerCase();
+    while (true) {
+      Node node = NODES.get(path);
+      if (node != null) {
+        for (; node != null; node = node.PARENT) {
+          if (!node.LISTENERS.isEmpty()) {
+            return true;
+          }
+        }
+
+        return false;
+      } else if (path.isEmpty()) {
+        return false;
+      }
+
+      final int i = path.lastIndexOf('.');
+      path = i == -1 ? "" : path.substring(0, i);
+    }
+  }
+
+  /**
+   * Returns the cvars managed by this {@code CvarManager} within the specified subtree of the
+   * namespace, e.g., {@code "Client.Console.Color"}, in the order they were added. The empty path
+   * represents every cvar.
+   */
+  @NonNull
+  public List<Cvar> getSubtree(@NonNull String path) {
+    Preconditions.checkArgument(path != null, "path cannot be null");
+    final Node node = NODES.get(path.toLowerCase());
+    if (node == null) {
+      return Collections.emptyList();
+    }
+
+    return Collections.unmodifiableList(node.CVARS);
+  }
+
+  /**
+   * Adds a listener which is notified of changes to every cvar within the specified subtree of
+   * the namespace, including cvars which are added to it later. The listener is immediately
+   * {@linkplain Cvar.StateListener#onLoaded notified} of the value of each cvar within the
+   * subtree, and of the value of each cvar added to it afterwards.
+   *
+   * @return {@code true} if the listener was not already listening to the subtree
+   */
+  public boolean addSubtreeListener(@NonNull String path, @NonNull Cvar.StateListener l) {
+    Preconditions.checkArgument(path != null, "path cannot be null");
+    Preconditions.checkArgument(l != null, "l cannot be null");
+    final Node node = getOrCreateNode(path.toLowerCase());
+    final boolean added = node.LISTENERS.add(l);
+    for (Cvar cvar : node.CVARS) {
+      l.onLoaded(cvar, cvar.read());
+    }
+
+    return added;
+  }
+
+  public boolean containsSubtreeListener(@NonNull String path, @Nullable Cvar.StateListener l) {
+    final Node node = NODES.get(path.toLowerCase());
+    return node != null && node.LISTENERS.contains(l);
+  }
+
+  public boolean removeSubtreeListener(@NonNull String path, @Nullable Cvar.StateListener l) {
+    final Node node = NODES.get(path.toLowerCase());
+    return node != null && node.LISTENERS.remove(l);
+  }
+
+  /**
+   * Resets every cvar within the specified subtree to its default value as a single
+   * {@link Transaction}.
+   *
+   * @return The cvars which were changed
+   */
+  @NonNull
+  public Collection<Cvar> resetSubtree(@NonNull String path) {
+    final Transaction transaction = beginTransaction();
+    for (Cvar cvar : getSubtree(path)) {
+      transaction.reset(cvar);
+    }
+
+    return transaction.commit();
+  }
+
+  /**
+   * Returns the values of every cvar within the specified subtree, keyed by alias, in the order
+   * the cvars were added.
+   */
+  @NonNull
+  public Map<String, Object> snapshotSubtree(@NonNull String path) {
+    final List<Cvar> cvars = getSubtree(path);
+    final Map<String, Object> snapshot = new LinkedHashMap<>(cvars.size() * 4 / 3 + 1);
+    for (Cvar cvar : cvars) {
+      snapshot.put(cvar.ALIAS, cvar.read());
+    }
+
+    return Collections.unmodifiableMap(snapshot);
+  }
+
+  /**
+   * Captures the current values of every managed cvar. Chunks of values which have not changed
+   * since the previous capture are shared with it rather than copied. Cvars which are loaded
+   * lazily are loaded by this method.
+   */
+  @NonNull
+  public CvarSnapshot capture() {
+    final Cvar[] slots = this.slots;
+    final CvarSnapshot prev = lastCapture;
+    final Object[][] chunks
+        = new Object[(slots.length + CvarSnapshot.CHUNK_SIZE - 1) >>> CvarSnapshot.CHUNK_BITS][];
+    for (int chunk = 0; chunk < chunks.length; chunk++) {
+      final int offset = chunk << CvarSnapshot.CHUNK_BITS;
+      final int length = Math.min(CvarSnapshot.CHUNK_SIZE, slots.length - offset);
+      final Object[] shared = prev != null && chunk < prev.CHUNKS.length
+          && prev.CHUNKS[chunk].length == length ? prev.CHUNKS[chunk] : null;
+      Object[] values = shared;
+      for (int i = 0; i < length; i++) {
+        final Cvar cvar = slots[offset + i];
+        final Object value = cvar == null ? null : cvar.read();
+        if (shared != null && prev.SLOTS[offset + i] == cvar && Objects.equal(shared[i], value)) {
+          continue;
+        } else if (values == shared) {
+          values = shared == null ? new Object[length] : shared.clone();
+        }
+
+        values[i] = value;
+      }
+
+      chunks[chunk] = values;
+    }
+
+    final CvarSnapshot snapshot = new CvarSnapshot(this, slots, chunks);
+    lastCapture = snapshot;
+    return snapshot;
+  }
+
+  /**
+   * Changes every managed cvar to its value within the specified snapshot as a single
+   * {@link Transaction}, so listeners are notified once all of them have been changed. Cvars which
+   * are no longer managed and derived cvars are skipped.
+   *
+   * @return The cvars which were changed
+   *
+   * @throws com.gmail.collinsmith70.validator.ValidationException if a value is invalid, in which
+   *         case no cvar is changed
+   */
+  @NonNull
+  @SuppressWarnings("unchecked")
+  public Collection<Cvar> restore(@NonNull CvarSnapshot snapshot) {
+    Preconditions.checkArgument(snapshot != null, "snapshot cannot be null");
+    Preconditions.checkArgument(snapshot.getManager() == this,
+        "snapshot was not captured from this CvarManager");
+    final Transaction transaction = beginTransaction();
+    for (int slot = 0; slot < snapshot.SLOTS.length; slot++) {
+      final Cvar cvar = snapshot.SLOTS[slot];
+      if (cvar == null || cvar instanceof DerivedCvar || !isManaging(cvar)) {
+        continue;
+      }
+
+      final Object value = snapshot.CHUNKS[slot >>> CvarSnapshot.CHUNK_BITS]
+          [slot & (CvarSnapshot.CHUNK_SIZE - 1)];
+      // unchanged cvars are left out so that their sources are not changed to the runtime layer
+      if (!Objects.equal(cvar.read(), value)) {
+        transaction.set(cvar, value);
+      }
+    }
+
+    return transaction.commit();
+  }
+
+  /**
+   * Returns the slot of the specified cvar within {@link CvarSnapshot snapshots}, or {@code -1} if
+   * it is not managed.
+   */
+  /*package*/ int getSlot(@NonNull Cvar cvar) {
+    final Node leaf = LEAVES.get(cvar);
+    return leaf == null ? -1 : leaf.slot;
+  }
+
+  /**
+   * Returns the managed cvar with the specified slot, or {@code null} if it has been removed.
+   */
+  @Nullable
+  /*package*/ Cvar getCvar(int slot) {
+    final Cvar[] slots = this.slots;
+    return 0 <= slot && slot < slots.length ? slots[slot] : null;
+  }
+
+  /**
+   * Returns the journal which records every change made to the cvars managed by this
+   * {@code CvarManager}.
+   */
+  @NonNull
+  public CvarJournal getJournal() {
+    return JOURNAL;
+  }
+
+  /**
+   * Reverts the newest change within the {@linkplain #getJournal journal} by setting its cvar back
+   * to its previous value. The change is removed from the journal, and reverting it is not
+   * recorded, even if it is delivered {@linkplain Cvar.Builder#deliverOn asynchronously} or
+   * {@linkplain Cvar.DeliveryPolicy coalesced}. Changes to cvars which are no longer managed are
+   * discarded.
+   *
+   * @return The change which was reverted, or {@code null} if the journal is empty
+   *
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the previous value is no
+   *         longer valid
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public CvarJournal.Entry undo() {
+    CvarJournal.Entry entry;
+    do {
+      entry = JOURNAL.pop();
+    } while (entry != null && !isManaging(entry.getCvar()));
+
+    if (entry == null) {
+      return null;
+    }
+
+    final Cvar cvar = entry.getCvar();
+    if (Objects.equal(cvar.read(), entry.getFrom())) {
+      // nothing will be delivered, so nothing would consume the revert
+      return entry;
+    }
+
+    // the revert may be delivered after this returns, so it is matched when it is delivered
+    final Node leaf = LEAVES.get(cvar);
+    leaf.revert = entry;
+    try {
+      cvar.set(entry.getFrom());
+    } catch (RuntimeException e) {
+      leaf.revert = null;
+      throw e;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Returns the serializer used to parse values for the specified cvar when they are set by alias.
+   */
+  @Nullable
+  public <T> StringSerializer<T> getSerializer(@NonNull Cvar<T> cvar) {
+    return cvar.getSerializer();
+  }
+
+  /**
+   * Sets the value of the specified layer of a cvar, changing the cvar if the layer is the highest
+   * one which has been set.
+   *
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the value is invalid
+   */
+  public <T> void setLayer(@NonNull Layer layer, @NonNull Cvar<T> cvar, @Nullable T value) {
+    final Node leaf = checkLayer(layer, cvar);
+    cvar.check(value);
+    putLayer(leaf, layer, value);
+    resolve(cvar, leaf);
+  }
+
+  /**
+   * Sets the value of the specified layer of the cvar with the specified alias to the
+   * deserialization of {@code value}.
+   *
+   * @throws SerializeException if the value could not be deserialized
+   *
+   * @see #setLayer(Layer, Cvar, Object)
+   */
+  @SuppressWarnings("unchecked")
+  public void setLayer(@NonNull Layer layer, @NonNull String alias, @NonNull String value) {
+    final Cvar cvar = get(alias);
+    if (cvar == null) {
+      throw new CvarManagerException("%s is not managed by this CvarManager", alias);
+    }
+
+    final StringSerializer serializer = getSerializer(cvar);
+    if (serializer == null) {
+      throw new SerializeException(cvar.ALIAS + " does not have a serializer attached");
+    }
+
+    setLayer(layer, cvar, serializer.deserialize(value));
+  }
+
+  /**
+   * Unsets the specified layer of a cvar, changing the cvar to the value of the next highest layer
+   * if the layer was the highest one which had been set.
+   *
+   * @return {@code true} if the layer had been set
+   */
+  public boolean clearLayer(@NonNull Layer layer, @NonNull Cvar cvar) {
+    final Node leaf = checkLayer(layer, cvar);
+    if (leaf.layers == null || leaf.layers[layer.ordinal()] == UNSET) {
+      return false;
+    }
+
+    putLayer(leaf, layer, UNSET);
+    resolve(cvar, leaf);
+    return true;
+  }
+
+  /**
+   * Returns whether or not the specified layer of a cvar has been set. The
+   * {@linkplain Layer#DEFAULT default} layer is always set.
+   */
+  public boolean isLayerSet(@NonNull Layer layer, @NonNull Cvar cvar) {
+    Preconditions.checkArgument(layer != null, "layer cannot be null");
+    final Node leaf = getLeaf(cvar);
+    return layer == Layer.DEFAULT
+        || (leaf.layers != null && leaf.layers[layer.ordinal()] != UNSET);
+  }
+
+  /**
+   * Returns the value of the specified layer of a cvar, or {@code null} if it has not been set.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T getLayerValue(@NonNull Layer layer, @NonNull Cvar<T> cvar) {
+    Preconditions.checkArgument(layer != null, "layer cannot be null");
+    final Node leaf = getLeaf(cvar);
+    if (layer == Layer.DEFAULT) {
+      return cvar.DEFAULT_VALUE;
+    } else if (leaf.layers == null || leaf.layers[layer.ordinal()] == UNSET) {
+      return null;
+    } else if (leaf.layers[layer.ordinal()] == CURRENT) {
+      return cvar.read();
+    }
+
+    return (T) leaf.layers[layer.ordinal()];
+  }
+
+  /**
+   * Returns the layer which supplied the current value of a cvar, or {@code null} if it is not
+   * managed by this {@code CvarManager}.
+   */
+  @Nullable
+  public Layer getSource(@Nullable Cvar cvar) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      return null;
+    }
+
+    cvar.materialize();
+    return leaf.source;
+  }
+
+  @NonNull
+  private Node getLeaf(@Nullable Cvar cvar) {
+    Preconditions.checkArgument(cvar != null, "cvar cannot be null");
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      throw new CvarManagerException("%s is not managed by this CvarManager", cvar.ALIAS);
+    }
+
+    // lazily loaded values are part of the saved layer
+    cvar.materialize();
+    return leaf;
+  }
+
+  @NonNull
+  private Node checkLayer(@Nullable Layer layer, @Nullable Cvar cvar) {
+    Preconditions.checkArgument(layer != null, "layer cannot be null");
+    Preconditions.checkArgument(layer != Layer.DEFAULT, "default values cannot be changed");
+    final Node leaf = getLeaf(cvar);
+    if (cvar instanceof DerivedCvar) {
+      throw new CvarManagerException("%s is derived and cannot be set", cvar.ALIAS);
+    }
+
+    return leaf;
+  }
+
+  /**
+   * Stores the value of a layer of the specified cvar without changing the cvar. This is used by
+   * subclasses to record values which the cvar has already been set to.
+   */
+  /*package*/ void putLayer(@NonNull Cvar cvar, @NonNull Layer layer, @Nullable Object value) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf != null) {
+      putLayer(leaf, layer, value);
+    }
+  }
+
+  private static void putLayer(@NonNull Node leaf, @NonNull Layer layer, @Nullable Object value) {
+    if (leaf.layers == null) {
+      if (value == UNSET) {
+        return;
+      }
+
+      leaf.layers = new Object[LAYERS.length];
+      Arrays.fill(leaf.layers, UNSET);
+    }
+
+    leaf.layers[layer.ordinal()] = value;
+    Layer source = Layer.DEFAULT;
+    for (int i = LAYERS.length - 1; i > 0; i--) {
+      if (leaf.layers[i] != UNSET) {
+        source = LAYERS[i];
+        break;
+      }
+    }
+
+    leaf.source = source;
+  }
+
+  /**
+   * Returns the value of the highest layer of the specified cvar which has been set.
+   */
+  @Nullable
+  private static Object getEffectiveValue(@NonNull Cvar cvar, @NonNull Node leaf) {
+    if (leaf.source == Layer.DEFAULT) {
+      return cvar.DEFAULT_VALUE;
+    }
+
+    final Object value = leaf.layers[leaf.source.ordinal()];
+    return value == CURRENT ? cvar.read() : value;
+  }
+
+  /**
+   * Changes the specified cvar to the value of its highest layer, notifying listeners if it
+   * differs from the current value.
+   */
+  @SuppressWarnings("unchecked")
+  private void resolve(@NonNull Cvar cvar, @NonNull Node leaf) {
+    final Object value = getEffectiveValue(cvar, leaf);
+    if (!Objects.equal(cvar.read(), value)) {
+      cvar.deliver(cvar.exchange(value), value);
+    }
+  }
+
+  /**
+   * Records changes which were not made through a layer, e.g., using {@link Cvar#set}, as the
+   * {@linkplain Layer#RUNTIME runtime} layer.
+   */
+  private static void recordRuntime(@NonNull Cvar cvar, @NonNull Node leaf,
+                                    @Nullable Object value) {
+    if (!isCurrent(leaf) && !(cvar instanceof DerivedCvar)
+        && !Objects.equal(value, getEffectiveValue(cvar, leaf))) {
+      putLayer(leaf, Layer.RUNTIME, CURRENT);
+    }
+  }
+
+  /**
+   * Records changes to specialized primitive cvars as the {@linkplain Layer#RUNTIME runtime}
+   * layer without boxing their values.
+   *
+   * @see CvarJournal#toBits
+   */
+  private static void recordRuntime(@NonNull Cvar cvar, @NonNull Node leaf, byte kind,
+                                    long value) {
+    if (!isCurrent(leaf) && !CvarJournal.matches(getEffectiveValue(cvar, leaf), kind, value)) {
+      putLayer(leaf, Layer.RUNTIME, CURRENT);
+    }
+  }
+
+  /**
+   * Returns whether or not the runtime layer of the cvar at the specified node is its current
+   * value.
+   */
+  private static boolean isCurrent(@NonNull Node leaf) {
+    return leaf.layers != null && leaf.layers[Layer.RUNTIME.ordinal()] == CURRENT;
+  }
+
+  /**
+   * Creates a new {@link Transaction} which can be used to change many cvars managed by this
+   * {@code CvarManager} at once.
+   */
+  @NonNull
+  public Transaction beginTransaction() {
+    return new Transaction(Layer.RUNTIME);
+  }
+
+  /**
+   * Creates a new {@link Transaction} which changes the specified layer of many cvars managed by
+   * this {@code CvarManager} at once.
+   */
+  @NonNull
+  public Transaction beginTransaction(@NonNull Layer layer) {
+    Preconditions.checkArgument(layer != null, "layer cannot be null");
+    Preconditions.checkArgument(layer != Layer.DEFAULT, "default values cannot be changed");
+    return new Transaction(layer);
+  }
+
+  public boolean isInTransaction() {
+    return transactionDepth > 0;
+  }
+
+  private void beginDelivery() {
+    transactionDepth++;
+    onTransactionBegin();
+  }
+
+  /**
+   * @param changed The cvars whose changes have been delivered since the matching
+   *                {@link #beginDelivery}
+   */
+  private void endDelivery(@NonNull List<Cvar> changed) {
+    transactionDepth--;
+    if (transactionDepth == 0 && !CHANGED.isEmpty()) {
+      propagate();
+    }
+
+    if (!changed.isEmpty()) {
+      onTransactionCommitted(Collections.unmodifiableList(changed));
+    }
+  }
+
+  /**
+   * Called before a {@link Transaction} begins delivering its changes. Subclasses may use this to
+   * defer work done in {@link #onChanged} until {@link #onTransactionCommitted}.
+   */
+  protected void onTransactionBegin() {}
+
+  /**
+   * Called after a {@link Transaction} has delivered all of its changes.
+   *
+   * @param changed The cvars which were changed by the transaction
+   */
+  protected void onTransactionCommitted(@NonNull Collection<Cvar> changed) {}
+
+  /**
+   * Called once a change to a managed cvar has been recorded and delivered to subtree listeners.
+   * Unlike {@link #onChanged}, this is also called for changes to specialized primitive cvars,
+   * whose values are not boxed.
+   */
+  protected void onCvarChanged(@NonNull Cvar cvar) {}
+
   @Override
-  public void onChanged(@NonNull Cvar cvar, @Nullable Object from, @Nullable Object to) {}
+  public void onChanged(@NonNull Cvar cvar, @Nullable Object from, @Nullable Object to) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      return;
+    }
+
+    recordRuntime(cvar, leaf, to);
+    if (!isRevert(leaf, from, to) && !(cvar instanceof DerivedCvar)) {
+      JOURNAL.record(leaf.slot, from, to, leaf.source);
+    }
+
+    fireChanged(leaf, cvar, from, to);
+    markChanged(cvar);
+    onCvarChanged(cvar);
+  }
 
   @Override
-  public void onLoaded(@NonNull Cvar cvar, @Nullable Object to) {}
+  public void onLoaded(@NonNull Cvar cvar, @Nullable Object to) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      return;
+    }
+
+    recordRuntime(cvar, leaf, to);
+    fireLoaded(leaf, cvar, to);
+    markChanged(cvar);
+  }
+
+  /*package*/ void onChanged(@NonNull BooleanCvar cvar, boolean from, boolean to) {
+    onChanged(cvar, CvarJournal.BOOLEAN, from ? 1 : 0, to ? 1 : 0);
+  }
+
+  /*package*/ void onChanged(@NonNull ByteCvar cvar, byte from, byte to) {
+    onChanged(cvar, CvarJournal.BYTE, from, to);
+  }
+
+  /*package*/ void onChanged(@NonNull ShortCvar cvar, short from, short to) {
+    onChanged(cvar, CvarJournal.SHORT, from, to);
+  }
+
+  /*package*/ void onChanged(@NonNull IntCvar cvar, int from, int to) {
+    onChanged(cvar, CvarJournal.INT, from, to);
+  }
+
+  /*package*/ void onChanged(@NonNull FloatCvar cvar, float from, float to) {
+    onChanged(cvar, CvarJournal.FLOAT, Float.floatToRawIntBits(from), Float.floatToRawIntBits(to));
+  }
+
+  /*package*/ void onLoaded(@NonNull BooleanCvar cvar, boolean to) {
+    onLoaded(cvar, CvarJournal.BOOLEAN, to ? 1 : 0);
+  }
+
+  /*package*/ void onLoaded(@NonNull ByteCvar cvar, byte to) {
+    onLoaded(cvar, CvarJournal.BYTE, to);
+  }
+
+  /*package*/ void onLoaded(@NonNull ShortCvar cvar, short to) {
+    onLoaded(cvar, CvarJournal.SHORT, to);
+  }
+
+  /*package*/ void onLoaded(@NonNull IntCvar cvar, int to) {
+    onLoaded(cvar, CvarJournal.INT, to);
+  }
+
+  /*package*/ void onLoaded(@NonNull FloatCvar cvar, float to) {
+    onLoaded(cvar, CvarJournal.FLOAT, Float.floatToRawIntBits(to));
+  }
+
+  /**
+   * Handles a change to a specialized primitive cvar, whose values are passed as their
+   * {@linkplain CvarJournal#toBits raw bits}. Values are only boxed if there are subtree listeners
+   * to deliver them to.
+   */
+  private void onChanged(@NonNull Cvar cvar, byte kind, long from, long to) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      return;
+    }
+
+    recordRuntime(cvar, leaf, kind, to);
+    if (!isRevert(leaf, kind, from, to)) {
+      JOURNAL.record(leaf.slot, kind, from, to, leaf.source);
+    }
+
+    if (hasListeners(leaf)) {
+      fireChanged(leaf, cvar,
+          CvarJournal.fromBits(kind, from, null), CvarJournal.fromBits(kind, to, null));
+    }
+
+    markChanged(cvar);
+    onCvarChanged(cvar);
+  }
+
+  private void onLoaded(@NonNull Cvar cvar, byte kind, long to) {
+    final Node leaf = LEAVES.get(cvar);
+    if (leaf == null) {
+      return;
+    }
+
+    recordRuntime(cvar, leaf, kind, to);
+    if (hasListeners(leaf)) {
+      fireLoaded(leaf, cvar, CvarJournal.fromBits(kind, to, null));
+    }
+
+    markChanged(cvar);
+  }
+
+  /**
+   * Returns whether or not a change delivered to the cvar at the specified node is the
+   * {@linkplain #undo revert} of a change, in which case it is not recorded. Any pending revert is
+   * consumed by the next change delivered, since a change which does not match it was coalesced
+   * with a later one and is recorded as such.
+   */
+  private static boolean isRevert(@NonNull Node leaf, @Nullable Object from, @Nullable Object to) {
+    final CvarJournal.Entry revert = leaf.revert;
+    if (revert == null) {
+      return false;
+    }
+
+    leaf.revert = null;
+    return Objects.equal(revert.getTo(), from) && Objects.equal(revert.getFrom(), to);
+  }
+
+  private static boolean isRevert(@NonNull Node leaf, byte kind, long from, long to) {
+    final CvarJournal.Entry revert = leaf.revert;
+    if (revert == null) {
+      return false;
+    }
+
+    leaf.revert = null;
+    return CvarJournal.matches(revert.getTo(), kind, from)
+        && CvarJournal.matches(revert.getFrom(), kind, to);
+  }
+
+  /**
+   * Returns whether or not any subtree listeners would be notified of changes to the cvar at the
+   * specified node.
+   */
+  private static boolean hasListeners(@NonNull Node leaf) {
+    for (Node node = leaf; node != null; node = node.PARENT) {
+      if (!node.LISTENERS.isEmpty()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void fireChanged(@NonNull Node leaf, @NonNull Cvar cvar, @Nullable Object from,
+                                  @Nullable Object to) {
+    for (Node node = leaf; node != null; node = node.PARENT) {
+      if (node.LISTENERS.isEmpty()) {
+        continue;
+      }
+
+      for (Cvar.StateListener l : node.LISTENERS) {
+        final long start = ListenerProfiler.start();
+        l.onChanged(cvar, from, to);
+        ListenerProfiler.stop(l, cvar.ALIAS, start);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void fireLoaded(@NonNull Node leaf, @NonNull Cvar cvar, @Nullable Object to) {
+    for (Node node = leaf; node != null; node = node.PARENT) {
+      if (node.LISTENERS.isEmpty()) {
+        continue;
+      }
+
+      for (Cvar.StateListener l : node.LISTENERS) {
+        final long start = ListenerProfiler.start();
+        l.onLoaded(cvar, to);
+        ListenerProfiler.stop(l, cvar.ALIAS, start);
+      }
+    }
+  }
+
+  private static final class Node {
+
+    @Nullable
+    final Node PARENT;
+
+    /**
+     * Every cvar within the subtree rooted at this node.
+     */
+    @NonNull
+    final List<Cvar> CVARS;
+
+    @NonNull
+    final Set<Cvar.StateListener> LISTENERS;
+
+    /**
+     * Derived cvars which have the cvar with this node's path as an input, whether or not that cvar
+     * is managed.
+     */
+    @NonNull
+    final List<DerivedCvar> DEPENDENTS;
+
+    /**
+     * Nodes of the inputs of the derived cvar at this node, if it is one.
+     */
+    @Nullable
+    Node[] INPUTS;
+
+    /**
+     * Value of each {@link Layer} of the cvar at this node, or {@code null} if only its default
+     * value has been set.
+     */
+    @Nullable
+    Object[] layers;
+
+    /**
+     * Highest layer of the cvar at this node which has been set.
+     */
+    @NonNull
+    Layer source;
+
+    /**
+     * Index of the cvar at this node within {@link #slots}, or {@code -1} if there is none.
+     */
+    int slot;
+
+    /**
+     * Change being {@linkplain #undo undone} whose revert has not been delivered yet.
+     */
+    @Nullable
+    volatile CvarJournal.Entry revert;
+
+    Node(@Nullable Node parent) {
+      this.PARENT = parent;
+      this.CVARS = new ArrayList<>();
+      this.LISTENERS = new CopyOnWriteArraySet<>();
+      this.DEPENDENTS = new ArrayList<>(0);
+      this.source = Layer.DEFAULT;
+      this.slot = -1;
+    }
+
+  }
+
+  /**
+   * A set of changes to cvars which are validated together and applied at once. Listeners are only
+   * notified once all values have been applied, so every listener observes the final state, and
+   * each changed cvar notifies its listeners exactly once regardless of how many times it was set
+   * within the transaction. Each transaction changes a single {@link Layer} of its cvars, which is
+   * the runtime layer unless another was specified when it began.
+   * <p>
+   * Changes to cvars which {@linkplain Cvar.Builder#deliverOn deliver on} an executor are delivered
+   * as a separate transaction on that executor, which must run its tasks in order on the thread
+   * this manager is used on, e.g., the render thread.
+   * <p>
+   * Note: Transactions are not thread-safe and may only be committed once.
+   */
+  public class Transaction {
+
+    @NonNull
+    private final Layer LAYER;
+
+    @NonNull
+    private final Map<Cvar, Object> VALUES;
+
+    @NonNull
+    private final Map<Cvar, String> SERIALIZED_VALUES;
+
+    private boolean committed;
+
+    private Transaction(@NonNull Layer layer) {
+      this.LAYER = layer;
+      this.VALUES = new LinkedHashMap<>();
+      this.SERIALIZED_VALUES = new LinkedHashMap<>();
+    }
+
+    @NonNull
+    private Cvar checkManaged(@Nullable Cvar cvar) {
+      Preconditions.checkState(!committed, "transaction has already been committed");
+      Preconditions.checkArgument(cvar != null, "cvar cannot be null");
+      if (!isManaging(cvar)) {
+        throw new CvarManagerException("%s is not managed by this CvarManager", cvar.ALIAS);
+      }
+
+      return cvar;
+    }
+
+    @NonNull
+    public <T> Transaction set(@NonNull Cvar<T> cvar, @Nullable T value) {
+      checkManaged(cvar);
+      SERIALIZED_VALUES.remove(cvar);
+      VALUES.put(cvar, value);
+      return this;
+    }
+
+    /**
+     * Sets the cvar with the specified alias to the deserialization of {@code value}. The value is
+     * deserialized when the transaction is committed.
+     */
+    @NonNull
+    public Transaction set(@NonNull String alias, @NonNull String value) {
+      Cvar cvar = get(alias);
+      if (cvar == null) {
+        throw new CvarManagerException("%s is not managed by this CvarManager", alias);
+      }
+
+      checkManaged(cvar);
+      VALUES.remove(cvar);
+      SERIALIZED_VALUES.put(cvar, value);
+      return this;
+    }
+
+    @NonNull
+    public <T> Transaction reset(@NonNull Cvar<T> cvar) {
+      return set(cvar, cvar.getDefault());
+    }
+
+    /**
+     * Unsets the layer of the specified cvar which this transaction changes.
+     *
+     * @see CvarManager#clearLayer
+     */
+    @NonNull
+    public Transaction clear(@NonNull Cvar cvar) {
+      checkManaged(cvar);
+      if (cvar instanceof DerivedCvar) {
+        throw new CvarManagerException("%s is derived and cannot be set", cvar.ALIAS);
+      }
+
+      SERIALIZED_VALUES.remove(cvar);
+      VALUES.put(cvar, UNSET);
+      return this;
+    }
+
+    @NonNull
+    public Layer getLayer() {
+      return LAYER;
+    }
+
+    public boolean isEmpty() {
+      return VALUES.isEmpty() && SERIALIZED_VALUES.isEmpty();
+    }
+
+    /**
+     * Validates every change in this transaction, and if all of them are valid, applies them and
+     * notifies listeners. If any change is invalid, no cvar is modified and the first failure is
+     * thrown.
+     *
+     * @return The cvars whose values were changed
+     *
+     * @throws com.gmail.collinsmith70.validator.ValidationException if a value is invalid
+     * @throws SerializeException if a value set by alias could not be deserialized
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public Collection<Cvar> commit() {
+      Preconditions.checkState(!committed, "transaction has already been committed");
+      this.committed = true;
+      for (Map.Entry<Cvar, String> entry : SERIALIZED_VALUES.entrySet()) {
+        Cvar cvar = entry.getKey();
+        StringSerializer serializer = getSerializer(cvar);
+        if (serializer == null) {
+          throw new SerializeException(cvar.ALIAS + " does not have a serializer attached");
+        }
+
+        VALUES.put(cvar, serializer.deserialize(entry.getValue()));
+      }
+
+      for (Map.Entry<Cvar, Object> entry : VALUES.entrySet()) {
+        Cvar cvar = entry.getKey();
+        Object value = entry.getValue();
+        if (value != UNSET) {
+          cvar.check(value);
+        }
+      }
+
+      final List<Cvar> changed = new ArrayList<>(VALUES.size());
+      final List<Object> values = new ArrayList<>(VALUES.size());
+      for (Map.Entry<Cvar, Object> entry : VALUES.entrySet()) {
+        Cvar cvar = entry.getKey();
+        Node leaf = getLeaf(cvar);
+        putLayer(leaf, LAYER, entry.getValue());
+        Object value = getEffectiveValue(cvar, leaf);
+        if (!Objects.equal(cvar.read(), value)) {
+          changed.add(cvar);
+          values.add(value);
+        }
+      }
+
+      if (changed.isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      final Object[] previous = new Object[changed.size()];
+      for (int i = 0; i < previous.length; i++) {
+        previous[i] = changed.get(i).exchange(values.get(i));
+      }
+
+      // changes which are posted to an executor are delivered between a begin and a commit posted
+      // to the same executor, so that they are still delivered as a single transaction
+      final List<Cvar> immediate = new ArrayList<>(changed.size());
+      final Map<Executor, List<Cvar>> posted = new LinkedHashMap<>();
+      for (Cvar cvar : changed) {
+        final Executor executor = cvar.getDeliveryExecutor();
+        if (executor == null) {
+          immediate.add(cvar);
+          continue;
+        }
+
+        List<Cvar> cvars = posted.get(executor);
+        if (cvars == null) {
+          cvars = new ArrayList<>();
+          posted.put(executor, cvars);
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              beginDelivery();
+            }
+          });
+        }
+
+        cvars.add(cvar);
+      }
+
+      beginDelivery();
+      try {
+        for (int i = 0; i < previous.length; i++) {
+          changed.get(i).deliver(previous[i], values.get(i));
+        }
+      } finally {
+        endDelivery(immediate);
+        for (Map.Entry<Executor, List<Cvar>> entry : posted.entrySet()) {
+          final List<Cvar> cvars = entry.getValue();
+          entry.getKey().execute(new Runnable() {
+            @Override
+            public void run() {
+              endDelivery(cvars);
+            }
+          });
+        }
+      }
+
+      return Collections.unmodifiableList(changed);
+    }
+
+  }
+
+  /**
+   * Sources of the values of cvars, in ascending order of priority.
+   */
+  public enum Layer {
+    /**
+     * Default values of cvars, which are compiled in and cannot be changed.
+     */
+    DEFAULT,
+    /**
+     * Values saved by a {@link SaveableCvarManager} during a previous session.
+     */
+    SAVED,
+    /**
+     * Values read from a config file.
+     */
+    CONFIG,
+    /**
+     * Values passed on the command-line, e.g., {@code +set Client.Windowed true}.
+     */
+    COMMAND_LINE,
+    /**
+     * Values set while running, e.g., from the console. Changes which are not made through a
+     * layer, such as {@link Cvar#set}, are recorded as this layer.
+     */
+    RUNTIME
+  }
 
   public static class CvarManagerException extends RuntimeException {
 
@@ -0,0 +1,207 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.StringSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the values of the cvars managed by a {@link CvarManager}, e.g., a settings
+ * profile which can be {@linkplain CvarManager#restore restored} later.
+ * <p>
+ * Values are stored in fixed-size chunks which are shared between snapshots wherever none of their
+ * values differ, so {@linkplain CvarManager#capture capturing} a snapshot only copies the chunks
+ * which have changed since the previous capture, {@link #with} only copies a single chunk, and
+ * {@link #diff} skips every chunk two snapshots have in common.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class CvarSnapshot {
+
+  /*package*/ static final int CHUNK_BITS = 5;
+
+  /*package*/ static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  @NonNull
+  private final CvarManager MANAGER;
+
+  /**
+   * Cvars with a value in this snapshot, indexed by their slots within {@link #MANAGER}. Slots of
+   * cvars which had been removed are {@code null}.
+   */
+  @NonNull
+  /*package*/ final Cvar[] SLOTS;
+
+  @NonNull
+  /*package*/ final Object[][] CHUNKS;
+
+  /*package*/ CvarSnapshot(@NonNull CvarManager manager, @NonNull Cvar[] slots,
+                           @NonNull Object[][] chunks) {
+    this.MANAGER = manager;
+    this.SLOTS = slots;
+    this.CHUNKS = chunks;
+  }
+
+  @NonNull
+  public CvarManager getManager() {
+    return MANAGER;
+  }
+
+  /**
+   * Returns whether or not this snapshot contains a value for the specified cvar.
+   */
+  public boolean contains(@Nullable Cvar cvar) {
+    return cvar != null && indexOf(cvar) != -1;
+  }
+
+  /**
+   * Returns the value of the specified cvar within this snapshot.
+   *
+   * @throws IllegalArgumentException if this snapshot does not contain the cvar
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Cvar<T> cvar) {
+    final int slot = checkContains(cvar);
+    return (T) CHUNKS[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)];
+  }
+
+  /**
+   * Returns a copy of this snapshot with the value of the specified cvar changed. Only the chunk
+   * containing the cvar is copied.
+   *
+   * @throws IllegalArgumentException if this snapshot does not contain the cvar
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the value is invalid
+   */
+  @NonNull
+  public <T> CvarSnapshot with(@NonNull Cvar<T> cvar, @Nullable T value) {
+    final int slot = checkContains(cvar);
+    final int chunk = slot >>> CHUNK_BITS;
+    final int i = slot & (CHUNK_SIZE - 1);
+    if (Objects.equal(CHUNKS[chunk][i], value)) {
+      return this;
+    }
+
+    cvar.check(value);
+    final Object[][] chunks = CHUNKS.clone();
+    chunks[chunk] = chunks[chunk].clone();
+    chunks[chunk][i] = value;
+    return new CvarSnapshot(MANAGER, SLOTS, chunks);
+  }
+
+  /**
+   * Returns the cvars whose values differ between this snapshot and another captured from the
+   * same manager, including cvars which are only contained by one of them.
+   */
+  @NonNull
+  public List<Cvar> diff(@NonNull CvarSnapshot that) {
+    Preconditions.checkArgument(that != null, "that cannot be null");
+    Preconditions.checkArgument(that.MANAGER == MANAGER,
+        "snapshots must be captured from the same CvarManager");
+    final List<Cvar> diff = new ArrayList<>();
+    final int length = Math.max(SLOTS.length, that.SLOTS.length);
+    for (int slot = 0; slot < length; slot++) {
+      final int chunk = slot >>> CHUNK_BITS;
+      if ((slot & (CHUNK_SIZE - 1)) == 0 && chunk < CHUNKS.length && chunk < that.CHUNKS.length
+          && CHUNKS[chunk] == that.CHUNKS[chunk]) {
+        // shared chunks are identical
+        slot += CHUNKS[chunk].length - 1;
+        continue;
+      }
+
+      final Cvar cvar = slot < SLOTS.length ? SLOTS[slot] : null;
+      final Cvar other = slot < that.SLOTS.length ? that.SLOTS[slot] : null;
+      if (cvar != other) {
+        if (cvar != null) {
+          diff.add(cvar);
+        }
+
+        if (other != null) {
+          diff.add(other);
+        }
+      } else if (cvar != null) {
+        final int i = slot & (CHUNK_SIZE - 1);
+        if (!Objects.equal(CHUNKS[chunk][i], that.CHUNKS[chunk][i])) {
+          diff.add(cvar);
+        }
+      }
+    }
+
+    return diff;
+  }
+
+  /**
+   * Returns the serialized values within this snapshot which differ from the defaults of their
+   * cvars, keyed by alias, e.g., to write them into a config file. Cvars without a serializer and
+   * derived cvars are skipped.
+   */
+  @NonNull
+  @SuppressWarnings("unchecked")
+  public Map<String, String> export() {
+    final Map<String, String> export = new LinkedHashMap<>();
+    for (int slot = 0; slot < SLOTS.length; slot++) {
+      final Cvar cvar = SLOTS[slot];
+      if (cvar == null || cvar instanceof DerivedCvar) {
+        continue;
+      }
+
+      final Object value = CHUNKS[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)];
+      if (Objects.equal(value, cvar.DEFAULT_VALUE)) {
+        continue;
+      }
+
+      final StringSerializer serializer = MANAGER.getSerializer(cvar);
+      if (serializer != null) {
+        export.put(cvar.ALIAS, serializer.serialize(value));
+      }
+    }
+
+    return Collections.unmodifiableMap(export);
+  }
+
+  /**
+   * Returns the number of cvars with a value within this snapshot.
+   */
+  public int size() {
+    int size = 0;
+    for (Cvar cvar : SLOTS) {
+      if (cvar != null) {
+        size++;
+      }
+    }
+
+    return size;
+  }
+
+  private int checkContains(@Nullable Cvar cvar) {
+    Preconditions.checkArgument(cvar != null, "cvar cannot be null");
+    final int slot = indexOf(cvar);
+    Preconditions.checkArgument(slot != -1, "%s is not contained by this snapshot", cvar.ALIAS);
+    return slot;
+  }
+
+  private int indexOf(@NonNull Cvar cvar) {
+    final int slot = MANAGER.getSlot(cvar);
+    if (0 <= slot && slot < SLOTS.length && SLOTS[slot] == cvar) {
+      return slot;
+    }
+
+    // the cvar may have been removed or added again since this snapshot was captured
+    for (int i = 0; i < SLOTS.length; i++) {
+      if (SLOTS[i] == cvar) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+}
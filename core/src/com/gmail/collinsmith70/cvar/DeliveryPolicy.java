@@ -0,0 +1,170 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines when the changes made to a {@link Cvar} are delivered to its state listeners. Any
+ * policy other than {@link #IMMEDIATE} coalesces changes: listeners (including the managing
+ * {@link CvarManager}, and therefore persistence) are notified once of the change from the value
+ * before the first coalesced change to the latest value, while {@link Cvar#get()} always returns
+ * the latest value.
+ *
+ * @see Cvar.Builder#delivery
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public abstract class DeliveryPolicy {
+
+  /**
+   * Delivers every change as it is made. This is the default policy.
+   */
+  public static final DeliveryPolicy IMMEDIATE = new DeliveryPolicy() {
+    @Override
+    /*package*/ long getDelay(long sinceLastChange) {
+      return 0;
+    }
+
+    @Override
+    /*package*/ void schedule(@NonNull Runnable flush, long delay) {
+      flush.run();
+    }
+  };
+
+  /**
+   * Delivers changes once no changes have been made for the specified amount of time. Cvars which
+   * use this policy must {@linkplain Cvar.Builder#deliverOn deliver on} an executor, e.g., the
+   * render thread, since it is waited on using a shared timer thread.
+   */
+  @NonNull
+  public static DeliveryPolicy debounced(long delay, @NonNull TimeUnit unit) {
+    Preconditions.checkArgument(delay > 0, "delay must be positive");
+    return new Debounced(unit.toNanos(delay));
+  }
+
+  /**
+   * Delivers changes at most once per task run on the specified executor, e.g., once per frame if
+   * it runs tasks on the render thread. Listeners are notified on {@code executor}.
+   */
+  @NonNull
+  public static DeliveryPolicy throttled(@NonNull Executor executor) {
+    Preconditions.checkArgument(executor != null, "Executors cannot be null");
+    return new Throttled(executor);
+  }
+
+  private DeliveryPolicy() {}
+
+  /**
+   * Returns how long to wait before delivering coalesced changes, in nanoseconds.
+   *
+   * @param sinceLastChange Nanoseconds elapsed since the latest change
+   */
+  /*package*/ abstract long getDelay(long sinceLastChange);
+
+  /**
+   * Schedules delivery of coalesced changes in {@code delay} nanoseconds.
+   */
+  /*package*/ abstract void schedule(@NonNull Runnable flush, long delay);
+
+  /**
+   * Returns whether or not cvars which use this policy must deliver on an executor, i.e., whether
+   * or not changes would otherwise be delivered on a thread which listeners do not expect.
+   */
+  /*package*/ boolean requiresExecutor() {
+    return false;
+  }
+
+  /**
+   * Returns the executor which coalesced changes are posted to as soon as they are made, or
+   * {@code null} if they are delivered on the thread which made them or only after a delay.
+   */
+  @Nullable
+  /*package*/ Executor getExecutor() {
+    return null;
+  }
+
+  /**
+   * Returns whether or not coalesced changes are already delivered on the specified executor,
+   * in which case they do not need to be posted to it again.
+   */
+  /*package*/ boolean isDeliveredOn(@Nullable Executor executor) {
+    return false;
+  }
+
+  private static final class Debounced extends DeliveryPolicy {
+
+    final long DELAY;
+
+    Debounced(long delay) {
+      this.DELAY = delay;
+    }
+
+    @Override
+    long getDelay(long sinceLastChange) {
+      return Math.max(DELAY - sinceLastChange, 0);
+    }
+
+    @Override
+    void schedule(@NonNull Runnable flush, long delay) {
+      Timer.INSTANCE.schedule(flush, delay, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    boolean requiresExecutor() {
+      return true;
+    }
+
+  }
+
+  private static final class Throttled extends DeliveryPolicy {
+
+    @NonNull
+    final Executor EXECUTOR;
+
+    Throttled(@NonNull Executor executor) {
+      this.EXECUTOR = executor;
+    }
+
+    @Override
+    long getDelay(long sinceLastChange) {
+      return 0;
+    }
+
+    @Override
+    void schedule(@NonNull Runnable flush, long delay) {
+      EXECUTOR.execute(flush);
+    }
+
+    @Override
+    Executor getExecutor() {
+      return EXECUTOR;
+    }
+
+    @Override
+    boolean isDeliveredOn(@Nullable Executor executor) {
+      return EXECUTOR == executor;
+    }
+
+  }
+
+  /**
+   * Holder of the timer shared by debounced cvars, which is only created when first used.
+   */
+  private static final class Timer {
+
+    static final ScheduledExecutorService INSTANCE
+        = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("DeliveryPolicy-debouncer")
+            .setDaemon(true)
+            .build());
+
+  }
+
+}
@@ -0,0 +1,223 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.Validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A read-only {@link Cvar} whose value is computed from other cvars. The inputs of a derived cvar
+ * are declared when it is built, and the {@link CvarManager} managing it recomputes its value
+ * whenever one of them changes. Inputs are referenced by alias, so they do not need to be managed
+ * (or even created) before the derived cvar is added.
+ * <p>
+ * Note: Derived cvars are never saved by a {@link SaveableCvarManager}.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class DerivedCvar<T> extends Cvar<T> {
+
+  @NonNull
+  public static <T> Builder<T> builder(@NonNull Class<T> type) {
+    return new Builder<>(type);
+  }
+
+  /**
+   * Aliases of the cvars this cvar is derived from.
+   */
+  @NonNull
+  /*package*/ final List<String> INPUTS;
+
+  @NonNull
+  private final Computation<T> COMPUTATION;
+
+  public DerivedCvar(@NonNull Builder<T> builder) {
+    super(builder);
+    Preconditions.checkArgument(builder.computation != null,
+        "Derived cvars must specify how they are computed");
+    Preconditions.checkArgument(!builder.inputs.isEmpty(),
+        "Derived cvars must depend on at least one cvar");
+    this.INPUTS = Collections.unmodifiableList(new ArrayList<>(builder.inputs));
+    this.COMPUTATION = builder.computation;
+  }
+
+  @NonNull
+  public List<String> getInputs() {
+    return INPUTS;
+  }
+
+  /**
+   * Recomputes the value of this cvar, i.e., its value is reset to the one computed from its
+   * inputs.
+   */
+  @Override
+  public void reset() {
+    recompute();
+  }
+
+  @Override
+  /*package*/ void check(@Nullable T value) {
+    throw new ValidationException(ALIAS + " is derived from " + INPUTS + " and cannot be set");
+  }
+
+  /**
+   * Recomputes the value of this cvar and notifies listeners if it changed.
+   *
+   * @return {@code true} if the value changed, otherwise {@code false}
+   */
+  /*package*/ boolean recompute() {
+    final T value = COMPUTATION.compute();
+    final T prev = exchange(value);
+    if (Objects.equal(prev, value)) {
+      isLoaded = true;
+      return false;
+    }
+
+    deliver(prev, value);
+    return true;
+  }
+
+  /**
+   * Computes the value of a {@link DerivedCvar} from the current values of its inputs.
+   */
+  public interface Computation<T> {
+
+    @Nullable
+    T compute();
+
+  }
+
+  public static class Builder<T> extends Cvar.Builder<T> {
+
+    @NonNull
+    private final List<String> inputs;
+
+    @Nullable
+    private Computation<T> computation;
+
+    private Builder(@NonNull Class<T> type) {
+      super(type);
+      this.inputs = new ArrayList<>();
+    }
+
+    /**
+     * Adds the specified cvars as inputs of this cvar.
+     */
+    @NonNull
+    public Builder<T> dependsOn(@NonNull Cvar<?>... cvars) {
+      for (Cvar<?> cvar : cvars) {
+        Preconditions.checkArgument(cvar != null, "inputs cannot be null");
+        inputs.add(cvar.ALIAS);
+      }
+
+      return this;
+    }
+
+    /**
+     * Adds the cvars with the specified aliases as inputs of this cvar.
+     */
+    @NonNull
+    public Builder<T> dependsOn(@NonNull String... aliases) {
+      for (String alias : aliases) {
+        Preconditions.checkArgument(alias != null, "inputs cannot be null");
+        inputs.add(alias);
+      }
+
+      return this;
+    }
+
+    @NonNull
+    public Builder<T> computedBy(@NonNull Computation<T> computation) {
+      Preconditions.checkArgument(computation != null, "computation cannot be null");
+      this.computation = computation;
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> alias(@NonNull String alias) {
+      super.alias(alias);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> description(@NonNull String description) {
+      super.description(description);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> defaultValue(@Nullable T defaultValue) {
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> validator(@NonNull Validator validator) {
+      super.validator(validator);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> suggestions(@NonNull SuggestionProvider suggestions) {
+      super.suggestions(suggestions);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> serializer(@NonNull StringSerializer<T> serializer) {
+      super.serializer(serializer);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> requiresRestart(boolean b) {
+      super.requiresRestart(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> concurrent(boolean b) {
+      super.concurrent(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> deliverOn(@NonNull Executor executor) {
+      super.deliverOn(executor);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<T> delivery(@NonNull DeliveryPolicy policy) {
+      super.delivery(policy);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public DerivedCvar<T> build() {
+      return new DerivedCvar<>(this);
+    }
+
+  }
+
+}
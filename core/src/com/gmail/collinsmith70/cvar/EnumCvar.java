@@ -0,0 +1,214 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.EnumStringSerializer;
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.Validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Cvar} whose values are the constants of an enum. Unless otherwise specified, values are
+ * (de)serialized by name using an {@link EnumStringSerializer}, and suggestions are generated from
+ * the names of the constants.
+ * <p>
+ * Values can also be read and changed by {@linkplain #getOrdinal() ordinal}, which resolves
+ * against a table of the constants captured when the cvar was created, e.g., to store the value as
+ * a single byte.
+ *
+ * @param <E> The type of enum whose constants this cvar holds
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class EnumCvar<E extends Enum<E>> extends Cvar<E> {
+
+  @NonNull
+  public static <E extends Enum<E>> Builder<E> builderOf(@NonNull Class<E> type) {
+    return new Builder<>(type);
+  }
+
+  @NonNull
+  private final E[] CONSTANTS;
+
+  public EnumCvar(@NonNull Builder<E> builder) {
+    super(builder);
+    Preconditions.checkArgument(DEFAULT_VALUE != null, "Default values cannot be null");
+    this.CONSTANTS = TYPE.getEnumConstants();
+  }
+
+  public int getOrdinal() {
+    return get().ordinal();
+  }
+
+  /**
+   * Sets the value of this cvar to the constant with the specified ordinal.
+   *
+   * @throws ValidationException if there is no constant with the specified ordinal
+   */
+  public void setOrdinal(int ordinal) {
+    if (ordinal < 0 || ordinal >= CONSTANTS.length) {
+      throw new ValidationException(String.format("%d is not an ordinal of %s",
+          ordinal, TYPE.getSimpleName()));
+    }
+
+    set(CONSTANTS[ordinal]);
+  }
+
+  /**
+   * Returns the constants of the enum, in ordinal order.
+   */
+  @NonNull
+  public List<E> getConstants() {
+    return ImmutableList.copyOf(CONSTANTS);
+  }
+
+  @NonNull
+  @Override
+  public E get() {
+    return super.get();
+  }
+
+  @Override
+  /*package*/ void check(@Nullable E value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    super.check(value);
+  }
+
+  /**
+   * Suggests the names of the constants of an enum which start with the specified string, ignoring
+   * case.
+   */
+  private static final class ConstantSuggester implements SuggestionProvider {
+
+    @NonNull
+    final String[] NAMES;
+
+    ConstantSuggester(@NonNull Class<? extends Enum<?>> type) {
+      final Enum<?>[] constants = type.getEnumConstants();
+      this.NAMES = new String[constants.length];
+      for (int i = 0; i < constants.length; i++) {
+        NAMES[i] = constants[i].name();
+      }
+    }
+
+    @Override
+    public Collection<String> suggest(@NonNull String str) {
+      List<String> suggestions = null;
+      for (String name : NAMES) {
+        if (name.regionMatches(true, 0, str, 0, str.length())) {
+          if (suggestions == null) {
+            suggestions = new ArrayList<>(NAMES.length);
+          }
+
+          suggestions.add(name);
+        }
+      }
+
+      return suggestions == null ? Collections.<String>emptyList() : suggestions;
+    }
+
+  }
+
+  public static class Builder<E extends Enum<E>> extends Cvar.Builder<E> {
+
+    private Builder(@NonNull Class<E> type) {
+      super(type);
+      Preconditions.checkArgument(type.getEnumConstants().length > 0,
+          "%s does not have any constants", type.getName());
+      defaultValue(type.getEnumConstants()[0]);
+      serializer(EnumStringSerializer.of(type));
+      suggestions(new ConstantSuggester(type));
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> alias(@NonNull String alias) {
+      super.alias(alias);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> description(@NonNull String description) {
+      super.description(description);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> defaultValue(@Nullable E defaultValue) {
+      Preconditions.checkArgument(defaultValue != null, "Default values cannot be null");
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> validator(@NonNull Validator validator) {
+      super.validator(validator);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> suggestions(@NonNull SuggestionProvider suggestions) {
+      super.suggestions(suggestions);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> serializer(@NonNull StringSerializer<E> serializer) {
+      super.serializer(serializer);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> requiresRestart(boolean b) {
+      super.requiresRestart(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> concurrent(boolean b) {
+      super.concurrent(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> deliverOn(@NonNull Executor executor) {
+      super.deliverOn(executor);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder<E> delivery(@NonNull DeliveryPolicy policy) {
+      super.delivery(policy);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public EnumCvar<E> build() {
+      return new EnumCvar<>(this);
+    }
+
+  }
+
+}
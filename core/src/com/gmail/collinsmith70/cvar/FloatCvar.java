@@ -0,0 +1,484 @@
+package com.gmail.collinsmith70.cvar;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
+import com.gmail.collinsmith70.validator.NumberRangeValidator;
+import com.gmail.collinsmith70.validator.RangeValidationException;
+import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.Validator;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Cvar} specialized for {@code float} values. The value is stored unboxed, so reading
+ * it through {@link #getFloat()}, changing it through {@link #set(float)} and delivering changes
+ * to {@linkplain StateListener primitive listeners} does not allocate.
+ * <p>
+ * Note: {@link Cvar.StateListener} instances are still notified, but receive boxed values. The
+ *       managing {@link CvarManager} is notified without boxing them.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class FloatCvar extends Cvar<Float> {
+
+  @NonNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @NonNull
+  private static final StateListener[] EMPTY_STATE_LISTENERS = new StateListener[0];
+
+  /*package*/ final float DEFAULT;
+
+  @Nullable
+  private final NumberRangeValidator<?> RANGE;
+
+  private final float MIN;
+
+  private final float MAX;
+
+  /**
+   * Validator used for values which cannot be checked without boxing them first. This is
+   * {@code null} if the validator was a range or accepted all non-null values.
+   */
+  @Nullable
+  private final Validator BOXED_VALIDATOR;
+
+  @NonNull
+  private volatile StateListener[] primitiveStateListeners;
+
+  @Nullable
+  private volatile CvarManager manager;
+
+  private volatile float value;
+
+  /**
+   * Value before the first change which has not yet been delivered, if changes are
+   * {@linkplain DeliveryPolicy coalesced}.
+   */
+  private float pendingFrom;
+
+  public FloatCvar(@NonNull Builder builder) {
+    super(builder);
+    Preconditions.checkArgument(DEFAULT_VALUE != null, "Default values cannot be null");
+    this.DEFAULT = DEFAULT_VALUE;
+    this.value = DEFAULT;
+    this.primitiveStateListeners = EMPTY_STATE_LISTENERS;
+    if (VALIDATOR instanceof NumberRangeValidator) {
+      this.RANGE = (NumberRangeValidator<?>) VALIDATOR;
+      this.MIN = RANGE.getMin() == null ? Float.NEGATIVE_INFINITY : RANGE.getMin().floatValue();
+      this.MAX = RANGE.getMax() == null ? Float.POSITIVE_INFINITY : RANGE.getMax().floatValue();
+      this.BOXED_VALIDATOR = null;
+    } else {
+      this.RANGE = null;
+      this.MIN = Float.NEGATIVE_INFINITY;
+      this.MAX = Float.POSITIVE_INFINITY;
+      this.BOXED_VALIDATOR = isTrivial(VALIDATOR) ? null : VALIDATOR;
+    }
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return Float.toString(value);
+  }
+
+  public float getFloat() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @NonNull
+  @Override
+  public Float get() {
+    if (unloaded) {
+      materialize();
+    }
+
+    return value;
+  }
+
+  @Override
+  public void set(@Nullable Float value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    set(value.floatValue());
+  }
+
+  public void set(float value) {
+    materialize();
+    if (Float.floatToIntBits(this.value) == Float.floatToIntBits(value)) {
+      return;
+    }
+
+    validate(value);
+    final float prev;
+    if (CONCURRENT) {
+      synchronized (this) {
+        prev = this.value;
+        this.value = value;
+      }
+    } else {
+      prev = this.value;
+      this.value = value;
+    }
+
+    if (Float.floatToIntBits(prev) != Float.floatToIntBits(value)) {
+      deliver(prev, value);
+    }
+  }
+
+  @Override
+  public boolean compareAndSet(@Nullable Float expected, @Nullable Float update) {
+    if (update == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    return expected != null && compareAndSet(expected.floatValue(), update.floatValue());
+  }
+
+  /**
+   * Atomically sets the value of this cvar to {@code update} if its current value is
+   * {@code expected}.
+   *
+   * @return {@code true} if the current value was {@code expected}, otherwise {@code false}
+   */
+  public boolean compareAndSet(float expected, float update) {
+    materialize();
+    validate(update);
+    final float prev;
+    synchronized (this) {
+      prev = this.value;
+      if (Float.floatToIntBits(prev) != Float.floatToIntBits(expected)) {
+        return false;
+      }
+
+      this.value = update;
+    }
+
+    if (Float.floatToIntBits(prev) != Float.floatToIntBits(update)) {
+      deliver(prev, update);
+    }
+
+    return true;
+  }
+
+  private void validate(float value) {
+    if (RANGE != null) {
+      if (!(MIN <= value && value <= MAX)) {
+        throw new RangeValidationException(RANGE.getMin(), RANGE.getMax());
+      }
+    } else if (BOXED_VALIDATOR != null) {
+      BOXED_VALIDATOR.check(value).throwIfInvalid();
+    }
+  }
+
+  @Override
+  /*package*/ void check(@Nullable Float value) {
+    if (value == null) {
+      throw new ValidationException("passed reference cannot be null");
+    }
+
+    validate(value.floatValue());
+  }
+
+  @NonNull
+  @Override
+  /*package*/ Float exchange(@Nullable Float value) {
+    return exchange(value.floatValue());
+  }
+
+  private float exchange(float value) {
+    materialize();
+    if (CONCURRENT) {
+      synchronized (this) {
+        final float prev = this.value;
+        this.value = value;
+        return prev;
+      }
+    }
+
+    final float prev = this.value;
+    this.value = value;
+    return prev;
+  }
+
+  @Override
+  /*package*/ void initialize(@Nullable Float value) {
+    this.value = value.floatValue();
+  }
+
+  @Override
+  /*package*/ void deliver(@Nullable Float from, @Nullable Float to) {
+    deliver(from.floatValue(), to.floatValue());
+  }
+
+  private void deliver(float from, float to) {
+    final boolean loaded = isLoaded;
+    this.isLoaded = true;
+    dispatch(loaded, from, to);
+  }
+
+  @Override
+  public void reset() {
+    final float prev = exchange(DEFAULT);
+    if (Float.floatToIntBits(prev) != Float.floatToIntBits(DEFAULT)) {
+      dispatch(true, prev, DEFAULT);
+    }
+  }
+
+  private void dispatch(boolean loaded, float from, float to) {
+    if (isCoalesced()) {
+      if (beginCoalescing(loaded)) {
+        this.pendingFrom = from;
+        scheduleFlush();
+      }
+
+      return;
+    }
+
+    post(loaded, from, to);
+  }
+
+  @Override
+  /*package*/ void flushPending() {
+    final float from = pendingFrom;
+    final boolean loaded = endCoalescing();
+    final float to = value;
+    if (!loaded || Float.floatToIntBits(from) != Float.floatToIntBits(to)) {
+      post(loaded, from, to);
+    }
+  }
+
+  private void post(final boolean loaded, final float from, final float to) {
+    if (DELIVERY == null) {
+      notifyListeners(loaded, from, to);
+      return;
+    }
+
+    DELIVERY.execute(new Runnable() {
+      @Override
+      public void run() {
+        notifyListeners(loaded, from, to);
+      }
+    });
+  }
+
+  private void notifyListeners(boolean loaded, float from, float to) {
+    if (loaded) {
+      notifyChanged(from, to);
+    } else {
+      notifyLoaded(to);
+    }
+  }
+
+  private void notifyChanged(float from, float to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onChanged(this, from, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onChanged(this, from, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireChanged(from, to);
+    }
+  }
+
+  private void notifyLoaded(float to) {
+    for (StateListener l : primitiveStateListeners) {
+      final long start = ListenerProfiler.start();
+      l.onLoaded(this, to);
+      ListenerProfiler.stop(l, ALIAS, start);
+    }
+
+    final CvarManager manager = this.manager;
+    if (manager != null) {
+      final long start = ListenerProfiler.start();
+      manager.onLoaded(this, to);
+      ListenerProfiler.stop(manager, ALIAS, start);
+    }
+
+    if (!STATE_LISTENERS.isEmpty()) {
+      fireLoaded(to);
+    }
+  }
+
+  public boolean addStateListener(@NonNull StateListener l) {
+    Preconditions.checkArgument(l != null, "l cannot be null");
+    boolean added;
+    synchronized (this) {
+      added = !ArrayUtils.contains(primitiveStateListeners, l);
+      if (added) {
+        primitiveStateListeners = ArrayUtils.add(primitiveStateListeners, l);
+      }
+    }
+
+    materialize();
+    l.onLoaded(this, value);
+    return added;
+  }
+
+  @Override
+  /*package*/ void attach(@NonNull CvarManager manager) {
+    this.manager = manager;
+  }
+
+  @Override
+  /*package*/ void detach(@NonNull CvarManager manager) {
+    if (this.manager == manager) {
+      this.manager = null;
+    }
+  }
+
+  @Override
+  /*package*/ boolean hasStateListeners() {
+    return primitiveStateListeners.length > 0 || super.hasStateListeners();
+  }
+
+  public boolean containsStateListener(@Nullable StateListener l) {
+    return l != null && ArrayUtils.contains(primitiveStateListeners, l);
+  }
+
+  public boolean removeStateListener(@Nullable StateListener l) {
+    if (l == null) {
+      return false;
+    }
+
+    synchronized (this) {
+      StateListener[] listeners = primitiveStateListeners;
+      if (!ArrayUtils.contains(listeners, l)) {
+        return false;
+      }
+
+      primitiveStateListeners = ArrayUtils.removeElement(listeners, l);
+      return true;
+    }
+  }
+
+  /**
+   * Callback for changes to a {@link FloatCvar} which receives unboxed values.
+   */
+  public interface StateListener {
+
+    void onChanged(@NonNull FloatCvar cvar, float from, float to);
+
+    void onLoaded(@NonNull FloatCvar cvar, float to);
+
+  }
+
+  public static class Builder extends Cvar.Builder<Float> {
+
+    private Builder() {
+      super(Float.class);
+      defaultValue(0.0f);
+    }
+
+    @NonNull
+    @Override
+    public Builder alias(@NonNull String alias) {
+      super.alias(alias);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder description(@NonNull String description) {
+      super.description(description);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder defaultValue(@Nullable Float defaultValue) {
+      Preconditions.checkArgument(defaultValue != null, "Default values cannot be null");
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    public Builder defaultValue(float defaultValue) {
+      super.defaultValue(defaultValue);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder validator(@NonNull Validator validator) {
+      super.validator(validator);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder suggestions(@NonNull SuggestionProvider suggestions) {
+      super.suggestions(suggestions);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder serializer(@NonNull StringSerializer<Float> serializer) {
+      super.serializer(serializer);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder requiresRestart(boolean b) {
+      super.requiresRestart(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder concurrent(boolean b) {
+      super.concurrent(b);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder deliverOn(@NonNull Executor executor) {
+      super.deliverOn(executor);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public Builder delivery(@NonNull DeliveryPolicy policy) {
+      super.delivery(policy);
+      return this;
+    }
+
+    @NonNull
+    @Override
+    public FloatCvar build() {
+      return new FloatCvar(this);
+    }
+
+  }
+
+}
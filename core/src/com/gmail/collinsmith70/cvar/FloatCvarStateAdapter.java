@@ -0,0 +1,15 @@
+package com.gmail.collinsmith70.cvar;
+
+import android.support.annotation.NonNull;
+
+public abstract class FloatCvarStateAdapter implements FloatCvar.StateListener {
+
+  @Override
+  public void onChanged(@NonNull FloatCvar cvar, float from, float to) {}
+
+  @Override
+  public void onLoaded(@NonNull FloatCvar cvar, float to) {
+    onChanged(cvar, to, to);
+  }
+
+}
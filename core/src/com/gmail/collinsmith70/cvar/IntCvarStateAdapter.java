@@ -0,0 +1,15 @@
+package com.gmail.collinsmith70.cvar;
+
+import android.support.annotation.NonNull;
+
+public abstract class IntCvarStateAdapter implements IntCvar.StateListener {
+
+  @Override
+  public void onChanged(@NonNull IntCvar cvar, int from, int to) {}
+
+  @Override
+  public void onLoaded(@NonNull IntCvar cvar, int to) {
+    onChanged(cvar, to, to);
+  }
+
+}
@@ -1,13 +1,17 @@
 package com.gmail.collinsmith70.cvar;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.gmail.collinsmith70.serializer.BooleanStringSerializer;
+import com.gmail.collinsmith70.serializer.ByteBufferSerializer;
+import com.gmail.collinsmith70.serializer.ByteBufferSerializerRegistry;
 import com.gmail.collinsmith70.serializer.ByteStringSerializer;
 import com.gmail.collinsmith70.serializer.CharacterStringSerializer;
 import com.gmail.collinsmith70.serializer.DoubleStringSerializer;
@@ -22,22 +26,116 @@ import com.gmail.collinsmith70.serializer.StringStringSerializer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class SaveableCvarManager extends CvarManager {
 
   @NonNull
   private final Map<Class, StringSerializer> SERIALIZERS;
 
+  @NonNull
+  private final ByteBufferSerializerRegistry BINARY_SERIALIZERS;
+
   private boolean autosave;
 
+  /**
+   * Whether or not cvars added to this manager load their values the first time they are accessed
+   * rather than when they are added.
+   */
+  private volatile boolean lazy;
+
+  /**
+   * Number of cvars which were added lazily and have not yet loaded their values.
+   */
+  @NonNull
+  private final AtomicInteger PENDING;
+
+  @NonNull
+  private final AtomicInteger MATERIALIZED;
+
+  @NonNull
+  private final AtomicLong TOTAL_LOAD_NANOS;
+
+  /**
+   * Cvars which have changed since the last write-behind {@linkplain #flush flush}.
+   */
+  @NonNull
+  private final Set<Cvar> DIRTY;
+
+  /**
+   * Whether or not a write-behind flush has been scheduled and has not yet started.
+   */
+  @NonNull
+  private final AtomicBoolean FLUSH_SCHEDULED;
+
+  /**
+   * Guards staging and committing so that a scheduled flush and {@link #saveAll} cannot
+   * interleave.
+   */
+  @NonNull
+  private final Object FLUSH_LOCK;
+
+  @NonNull
+  private final Runnable FLUSH_TASK;
+
+  @NonNull
+  private final AtomicLong CHANGES;
+
+  @NonNull
+  private final AtomicLong WRITES;
+
+  @NonNull
+  private final AtomicLong FLUSHES;
+
+  @NonNull
+  private final AtomicLong TOTAL_FLUSH_NANOS;
+
+  @NonNull
+  private final AtomicLong MAX_FLUSH_NANOS;
+
+  /**
+   * Interval in milliseconds between write-behind flushes, or {@code 0} if changes are saved as
+   * soon as they are made.
+   */
+  private volatile long writeBehindInterval;
+
+  @Nullable
+  private volatile ScheduledExecutorService executor;
+
   public SaveableCvarManager() {
     this(true);
   }
 
   public SaveableCvarManager(boolean autosave) {
     this.autosave = autosave;
+    this.lazy = false;
+    this.PENDING = new AtomicInteger();
+    this.MATERIALIZED = new AtomicInteger();
+    this.TOTAL_LOAD_NANOS = new AtomicLong();
+    this.DIRTY = Collections.newSetFromMap(new ConcurrentHashMap<Cvar, Boolean>());
+    this.FLUSH_SCHEDULED = new AtomicBoolean(false);
+    this.FLUSH_LOCK = new Object();
+    this.FLUSH_TASK = new Runnable() {
+      @Override
+      public void run() {
+        flush();
+      }
+    };
+    this.CHANGES = new AtomicLong();
+    this.WRITES = new AtomicLong();
+    this.FLUSHES = new AtomicLong();
+    this.TOTAL_FLUSH_NANOS = new AtomicLong();
+    this.MAX_FLUSH_NANOS = new AtomicLong();
     this.SERIALIZERS = new ConcurrentHashMap<>();
     SERIALIZERS.put(Character.class, CharacterStringSerializer.INSTANCE);
     SERIALIZERS.put(Boolean.class, BooleanStringSerializer.INSTANCE);
@@ -48,6 +146,7 @@ public abstract class SaveableCvarManager extends CvarManager {
     SERIALIZERS.put(Float.class, FloatStringSerializer.INSTANCE);
     SERIALIZERS.put(Double.class, DoubleStringSerializer.INSTANCE);
     SERIALIZERS.put(String.class, StringStringSerializer.INSTANCE);
+    this.BINARY_SERIALIZERS = new ByteBufferSerializerRegistry();
   }
 
   public boolean isAutosaving() {
@@ -63,33 +162,351 @@ public abstract class SaveableCvarManager extends CvarManager {
     }
   }
 
+  public boolean isLazyLoading() {
+    return lazy;
+  }
+
+  /**
+   * Enables or disables lazy loading. While enabled, cvars which are {@linkplain #add added} do not
+   * {@linkplain #load load} their values until they are first read, changed or listened to. Cvars
+   * which already have listeners when they are added, and cvars which have already been added, are
+   * unaffected.
+   */
+  public void setLazyLoading(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Loads the values of all cvars which are still pending.
+   */
+  public void materializeAll() {
+    for (Cvar cvar : this) {
+      cvar.materialize();
+    }
+  }
+
+  /**
+   * Returns the number of lazily added cvars which have loaded their values.
+   */
+  public int getMaterializedCount() {
+    return MATERIALIZED.get();
+  }
+
+  /**
+   * Returns the number of lazily added cvars which have not yet loaded their values.
+   */
+  public int getPendingCount() {
+    return PENDING.get();
+  }
+
+  public long getAverageLoadLatency(@NonNull TimeUnit unit) {
+    final int materialized = MATERIALIZED.get();
+    if (materialized == 0) {
+      return 0;
+    }
+
+    return unit.convert(TOTAL_LOAD_NANOS.get() / materialized, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns an estimate of the time saved by lazy loading, i.e., the time it would have taken to
+   * load the cvars which are still pending, based on the average time it took to load the cvars
+   * which have been materialized.
+   */
+  public long getEstimatedTimeSaved(@NonNull TimeUnit unit) {
+    final int materialized = MATERIALIZED.get();
+    if (materialized == 0) {
+      return 0;
+    }
+
+    final long averageNanos = TOTAL_LOAD_NANOS.get() / materialized;
+    return unit.convert(averageNanos * PENDING.get(), TimeUnit.NANOSECONDS);
+  }
+
+  public boolean isWritingBehind() {
+    return writeBehindInterval > 0;
+  }
+
+  /**
+   * Enables or disables write-behind mode. While enabled, {@linkplain #isAutosaving autosaved}
+   * changes only mark cvars as dirty, and dirty cvars are saved together on a background thread
+   * at most once per {@code interval}, followed by a single {@link #commit}. Disabling write-behind
+   * mode flushes any pending changes.
+   *
+   * @param interval The minimum time between flushes, or {@code 0} to save changes immediately
+   * @param unit     The unit of {@code interval}
+   */
+  public void setWriteBehind(long interval, @NonNull TimeUnit unit) {
+    Preconditions.checkArgument(interval >= 0, "interval cannot be negative");
+    final long writeBehindInterval = unit.toMillis(interval);
+    synchronized (FLUSH_LOCK) {
+      if (writeBehindInterval > 0 && executor == null) {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat(getClass().getSimpleName() + "-writer")
+            .setDaemon(true)
+            .build());
+      }
+
+      this.writeBehindInterval = writeBehindInterval;
+    }
+
+    if (writeBehindInterval == 0) {
+      flush();
+    }
+  }
+
+  /**
+   * Flushes any pending write-behind changes and stops the background thread used to write them.
+   * Write-behind mode may be re-enabled afterwards using {@link #setWriteBehind}.
+   *
+   * @return The exceptions thrown while saving the pending changes
+   */
+  @NonNull
+  public Collection<RuntimeException> shutdown() {
+    final ScheduledExecutorService executor;
+    synchronized (FLUSH_LOCK) {
+      executor = this.executor;
+      this.executor = null;
+      this.writeBehindInterval = 0;
+    }
+
+    if (executor != null) {
+      executor.shutdown();
+    }
+
+    return flush();
+  }
+
+  /**
+   * Returns the number of changes which did not cause a write of their own because they were
+   * coalesced with other changes to the same cvar before a write-behind flush.
+   */
+  public long getWritesAvoided() {
+    return Math.max(CHANGES.get() - WRITES.get(), 0);
+  }
+
+  /**
+   * Returns the number of write-behind flushes which have saved at least one cvar.
+   */
+  public long getFlushCount() {
+    return FLUSHES.get();
+  }
+
+  public long getAverageFlushLatency(@NonNull TimeUnit unit) {
+    final long flushes = FLUSHES.get();
+    if (flushes == 0) {
+      return 0;
+    }
+
+    return unit.convert(TOTAL_FLUSH_NANOS.get() / flushes, TimeUnit.NANOSECONDS);
+  }
+
+  public long getMaxFlushLatency(@NonNull TimeUnit unit) {
+    return unit.convert(MAX_FLUSH_NANOS.get(), TimeUnit.NANOSECONDS);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public boolean add(@NonNull Cvar cvar) {
-    //noinspection finally
+    if (cvar instanceof DerivedCvar) {
+      // derived values are computed, not stored
+      return super.add(cvar);
+    }
+
+    // cvars which are already being observed are loaded now, since loading lazily does not notify
+    if (lazy && !cvar.hasStateListeners() && !hasSubtreeListeners(cvar.ALIAS)
+        && !hasDependents(cvar.ALIAS)) {
+      if (isManaging(cvar)) {
+        return false;
+      }
+
+      final boolean added = super.add(cvar);
+      cvar.loader = this;
+      cvar.unloaded = true;
+      PENDING.incrementAndGet();
+      return added;
+    }
+
+    if (!super.add(cvar)) {
+      return false;
+    }
+
     try {
       Object value = load(cvar);
+      restore(cvar, value);
       cvar.set(value);
+      // set() ignores values equal to the current one, which would leave the cvar unloaded and
+      // cause its first change to be delivered through onLoaded (and never be saved)
+      cvar.isLoaded = true;
     } catch (Throwable t) {
       Throwables.propagateIfPossible(t, SerializeException.class);
       throw new SerializeException(t);
-    } finally {
-      //noinspection ReturnInsideFinallyBlock
-      return super.add(cvar);
+    }
+
+    return true;
+  }
+
+  /**
+   * Records a loaded value as the {@linkplain Layer#SAVED saved} layer of the specified cvar.
+   * Values equal to the default are indistinguishable from values which were never saved.
+   */
+  private void restore(@NonNull Cvar cvar, @Nullable Object value) {
+    if (!Objects.equal(value, cvar.DEFAULT_VALUE)) {
+      putLayer(cvar, Layer.SAVED, value);
+    }
+  }
+
+  /**
+   * Returns whether or not the current value of the specified cvar should be saved. Values which
+   * are supplied by a config file or the command-line are not saved, since they would otherwise
+   * be loaded as the {@linkplain Layer#SAVED saved} layer after they are removed.
+   */
+  private boolean isSaveable(@NonNull Cvar cvar) {
+    final Layer source = getSource(cvar);
+    return source != Layer.CONFIG && source != Layer.COMMAND_LINE;
+  }
+
+  /**
+   * Loads and initializes the value of a cvar if it was added lazily and has not been loaded yet.
+   * Listeners are not notified, since the value is observed as if it had been loaded when the cvar
+   * was added.
+   */
+  @SuppressWarnings("unchecked")
+  public void materialize(@NonNull Cvar cvar) {
+    synchronized (cvar) {
+      if (cvar.loader != this) {
+        return;
+      }
+
+      final long start = System.nanoTime();
+      try {
+        Object value = load(cvar);
+        cvar.check(value);
+        cvar.initialize(value);
+        restore(cvar, value);
+      } catch (RuntimeException e) {
+        // unlike add(), there is no caller to propagate to since this is triggered by a read or
+        // a write, so the value is left as its default and the failure is reported instead
+        onMaterializeFailed(cvar, e);
+      } finally {
+        cvar.isLoaded = true;
+        cvar.loader = null;
+        cvar.unloaded = false;
+        TOTAL_LOAD_NANOS.addAndGet(System.nanoTime() - start);
+        MATERIALIZED.incrementAndGet();
+        PENDING.decrementAndGet();
+      }
     }
   }
 
+  /**
+   * Called when the value of a lazily added cvar cannot be loaded. The cvar keeps its default
+   * value.
+   *
+   * @param cvar The cvar which could not be loaded
+   * @param e    The exception thrown while loading it
+   */
+  protected void onMaterializeFailed(@NonNull Cvar cvar, @NonNull RuntimeException e) {}
+
   @Nullable
   public abstract <T> T load(@NonNull Cvar<T> cvar);
 
-  public abstract <T> void save(@NonNull Cvar<T> cvar);
+  /**
+   * Writes the value of the specified cvar into the backing store. Implementations may buffer the
+   * write until the next {@link #commit}.
+   * <p>
+   * Note: While {@linkplain #isWritingBehind writing behind}, this and {@link #commit} are called
+   *       on the background writer thread, so the backing store must be safe to write from a
+   *       thread other than the one {@link #load} is called on. Calls to this method and
+   *       {@link #commit} are never concurrent with one another, and the value of the cvar is
+   *       safe to read since cvars publish their values through volatile fields.
+   *
+   * @param cvar The cvar to write
+   */
+  protected abstract <T> void stage(@NonNull Cvar<T> cvar);
+
+  /**
+   * Persists all writes {@linkplain #stage staged} since the last commit.
+   *
+   * @see #stage
+   */
+  protected void commit() {}
+
+  public <T> void save(@NonNull Cvar<T> cvar) {
+    synchronized (FLUSH_LOCK) {
+      stage(cvar);
+      commit();
+    }
+  }
 
   @NonNull
   public Collection<RuntimeException> saveAll() {
+    synchronized (FLUSH_LOCK) {
+      final Collection<RuntimeException> exceptions = stageEach(this);
+      commit();
+      return exceptions;
+    }
+  }
+
+  /**
+   * Stages every cvar without committing them, so that the I/O of persisting them can be done
+   * separately by {@link #commitStaged}, e.g., on a worker thread. Like {@link #saveAll}, this must
+   * be called on the thread the cvars are changed on.
+   *
+   * @return The exceptions thrown while staging the cvars
+   */
+  @NonNull
+  public Collection<RuntimeException> stageAll() {
+    synchronized (FLUSH_LOCK) {
+      return stageEach(this);
+    }
+  }
+
+  /**
+   * Persists all writes {@linkplain #stageAll staged} since the last commit. Unlike staging, this
+   * does not access any cvars, so it may be called on any thread.
+   */
+  public void commitStaged() {
+    synchronized (FLUSH_LOCK) {
+      commit();
+    }
+  }
+
+  /**
+   * Saves every cvar within the specified subtree of the namespace and commits them at once.
+   *
+   * @see #getSubtree
+   */
+  @NonNull
+  public Collection<RuntimeException> saveSubtree(@NonNull String path) {
+    synchronized (FLUSH_LOCK) {
+      final Collection<RuntimeException> exceptions = stageEach(getSubtree(path));
+      commit();
+      return exceptions;
+    }
+  }
+
+  /**
+   * Stages each of the specified cvars. Must be called while holding {@link #FLUSH_LOCK}.
+   */
+  @NonNull
+  private Collection<RuntimeException> stageEach(@NonNull Iterable<Cvar> cvars) {
     Collection<RuntimeException> exceptions = null;
-    for (Cvar cvar : this) {
+    for (Cvar cvar : cvars) {
+      final boolean dirty = DIRTY.remove(cvar);
+      if (cvar.loader == this) {
+        // never loaded, so the stored value is still current
+        continue;
+      } else if (cvar instanceof DerivedCvar || !isSaveable(cvar)) {
+        continue;
+      }
+
       try {
-        save(cvar);
+        stage(cvar);
+        if (dirty) {
+          // pending write-behind changes were written by this save instead of a flush
+          WRITES.incrementAndGet();
+        }
       } catch (RuntimeException e) {
         if (exceptions == null) {
           exceptions = new ArrayList<>(1);
@@ -103,10 +520,104 @@ public abstract class SaveableCvarManager extends CvarManager {
         Collections.<RuntimeException>emptyList());
   }
 
+  /**
+   * Saves all cvars which have changed since the last flush and commits them at once. This is
+   * called periodically while {@linkplain #isWritingBehind writing behind}, but it may also be
+   * called directly to persist pending changes immediately.
+   *
+   * @return The exceptions thrown while saving the pending changes
+   */
+  @NonNull
+  public Collection<RuntimeException> flush() {
+    Collection<RuntimeException> exceptions = null;
+    synchronized (FLUSH_LOCK) {
+      FLUSH_SCHEDULED.set(false);
+      if (DIRTY.isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      final long start = System.nanoTime();
+      for (Iterator<Cvar> it = DIRTY.iterator(); it.hasNext(); ) {
+        Cvar cvar = it.next();
+        it.remove();
+        try {
+          stage(cvar);
+          WRITES.incrementAndGet();
+        } catch (RuntimeException e) {
+          if (exceptions == null) {
+            exceptions = new ArrayList<>(1);
+          }
+
+          exceptions.add(e);
+        }
+      }
+
+      commit();
+      final long latency = System.nanoTime() - start;
+      FLUSHES.incrementAndGet();
+      TOTAL_FLUSH_NANOS.addAndGet(latency);
+      long max;
+      while (latency > (max = MAX_FLUSH_NANOS.get())
+          && !MAX_FLUSH_NANOS.compareAndSet(max, latency)) {}
+    }
+
+    return MoreObjects.firstNonNull(exceptions,
+        Collections.<RuntimeException>emptyList());
+  }
+
   @Override
-  public void onChanged(@NonNull Cvar cvar, @Nullable Object from, @Nullable Object to) {
-    if (autosave) {
+  protected void onCvarChanged(@NonNull Cvar cvar) {
+    if (!autosave || cvar instanceof DerivedCvar || !isSaveable(cvar)) {
+      return;
+    }
+
+    if (isInTransaction()) {
+      // saved at once by onTransactionCommitted
+      DIRTY.add(cvar);
+      return;
+    }
+
+    final long writeBehindInterval = this.writeBehindInterval;
+    if (writeBehindInterval == 0) {
       save(cvar);
+      return;
+    }
+
+    CHANGES.incrementAndGet();
+    DIRTY.add(cvar);
+    scheduleFlush(writeBehindInterval);
+  }
+
+  @Override
+  protected void onTransactionCommitted(@NonNull Collection<Cvar> changed) {
+    if (!autosave || isInTransaction()) {
+      return;
+    }
+
+    final long writeBehindInterval = this.writeBehindInterval;
+    if (writeBehindInterval == 0) {
+      flush();
+      return;
+    }
+
+    CHANGES.addAndGet(changed.size());
+    scheduleFlush(writeBehindInterval);
+  }
+
+  private void scheduleFlush(long writeBehindInterval) {
+    if (FLUSH_SCHEDULED.compareAndSet(false, true)) {
+      // not synchronized on FLUSH_LOCK, a flush in progress would otherwise block the caller
+      final ScheduledExecutorService executor = this.executor;
+      if (executor != null) {
+        try {
+          executor.schedule(FLUSH_TASK, writeBehindInterval, TimeUnit.MILLISECONDS);
+          return;
+        } catch (RejectedExecutionException ignored) {
+          // executor was shut down concurrently, fall through and flush on this thread
+        }
+      }
+
+      flush();
     }
   }
 
@@ -118,8 +629,14 @@ public abstract class SaveableCvarManager extends CvarManager {
   }
 
   @Nullable
+  @Override
   @SuppressWarnings("unchecked")
   public <T> StringSerializer<T> getSerializer(@NonNull Cvar<T> cvar) {
+    StringSerializer<T> serializer = cvar.getSerializer();
+    if (serializer != null) {
+      return serializer;
+    }
+
     return SERIALIZERS.get(cvar.TYPE);
   }
 
@@ -135,4 +652,18 @@ public abstract class SaveableCvarManager extends CvarManager {
   public void removeSerializer(@Nullable Class type) {
     SERIALIZERS.remove(type);
   }
+
+  /**
+   * Returns the registry of binary serializers available to subclasses which store values in a
+   * binary format.
+   */
+  @NonNull
+  public ByteBufferSerializerRegistry getBinarySerializers() {
+    return BINARY_SERIALIZERS;
+  }
+
+  @Nullable
+  public <T> ByteBufferSerializer<T> getBinarySerializer(@NonNull Cvar<T> cvar) {
+    return BINARY_SERIALIZERS.get(cvar.TYPE);
+  }
 }
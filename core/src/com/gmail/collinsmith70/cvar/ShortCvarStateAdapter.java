@@ -0,0 +1,15 @@
+package com.gmail.collinsmith70.cvar;
+
+import android.support.annotation.NonNull;
+
+public abstract class ShortCvarStateAdapter implements ShortCvar.StateListener {
+
+  @Override
+  public void onChanged(@NonNull ShortCvar cvar, short from, short to) {}
+
+  @Override
+  public void onLoaded(@NonNull ShortCvar cvar, short to) {
+    onChanged(cvar, to, to);
+  }
+
+}
@@ -1,8 +1,11 @@
 package com.gmail.collinsmith70.diablo;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -18,25 +21,49 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.gmail.collinsmith70.command.CommandJobs;
 import com.gmail.collinsmith70.cvar.Cvar;
+import com.gmail.collinsmith70.cvar.CvarManager.Layer;
+import com.gmail.collinsmith70.cvar.CvarSnapshot;
 import com.gmail.collinsmith70.cvar.CvarStateAdapter;
+import com.gmail.collinsmith70.cvar.FloatCvar;
+import com.gmail.collinsmith70.cvar.FloatCvarStateAdapter;
+import com.gmail.collinsmith70.diablo.Cvars.Client.Display.FpsLocation;
 import com.gmail.collinsmith70.libgdx.CommandProcessor;
+import com.gmail.collinsmith70.libgdx.CommandScheduler;
+import com.gmail.collinsmith70.libgdx.CommandScript;
+import com.gmail.collinsmith70.libgdx.CommandScripts;
 import com.gmail.collinsmith70.libgdx.Console;
+import com.gmail.collinsmith70.libgdx.CvarConfigReloader;
 import com.gmail.collinsmith70.libgdx.GdxCommandManager;
 import com.gmail.collinsmith70.libgdx.GdxCvarManager;
 import com.gmail.collinsmith70.libgdx.GdxKeyMapper;
+import com.gmail.collinsmith70.libgdx.KeyBindings;
+import com.gmail.collinsmith70.libgdx.MappedCvarManager;
+import com.gmail.collinsmith70.libgdx.MappedKeyMapper;
 import com.gmail.collinsmith70.libgdx.audio.MusicController;
 import com.gmail.collinsmith70.libgdx.audio.MusicVolumeController;
 import com.gmail.collinsmith70.libgdx.audio.SoundVolumeController;
 import com.gmail.collinsmith70.libgdx.audio.VolumeControlledMusicLoader;
 import com.gmail.collinsmith70.libgdx.audio.VolumeControlledSoundLoader;
 import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.libgdx.util.FileWatcher;
+import com.gmail.collinsmith70.libgdx.util.GdxExecutors;
+import com.gmail.collinsmith70.libgdx.util.GdxFileHandleResolvers;
+import com.gmail.collinsmith70.libgdx.util.PollingFileWatcher;
+import com.gmail.collinsmith70.store.RecordStoreException;
 
 import java.io.OutputStream;
 import java.text.DateFormat;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.gmail.collinsmith70.diablo.Diablo.client;
 
@@ -45,24 +72,62 @@ public class Client extends ApplicationAdapter {
 
   private static final String TAG = "Client";
 
+  /**
+   * Minimum time between writes of changed cvars to disk, in milliseconds.
+   */
+  private static final long CVAR_WRITE_BEHIND_INTERVAL = 500;
+
+  private static final String CVARS_FILE = "cvars.bin";
+
+  private static final String KEYS_FILE = "keys.bin";
+
+  /**
+   * Hand-editable cvar config, which is reapplied whenever it is modified.
+   */
+  private static final String CVARS_CONFIG_FILE = "cvars.properties";
+
+  /**
+   * Time between checks for modifications of watched files, in milliseconds, when they are polled.
+   */
+  private static final long FILE_WATCHER_POLL_INTERVAL = 1000;
+
+  /**
+   * Script executed once the client has been created.
+   */
+  private static final String AUTOEXEC_FILE = "autoexec.cfg";
+
   public final RenderableConsole console;
   public final AssetManager assets;
 
   private GdxCommandManager commands;
-  private GdxCvarManager cvars;
-  private GdxKeyMapper keys;
+  private MappedCvarManager cvars;
+  private MappedKeyMapper keys;
+  private KeyBindings bindings;
+  private ExecutorService jobExecutor;
+  private CommandJobs jobs;
+  private CommandScheduler scheduler;
+  private CommandScripts scripts;
+  private FileWatcher fileWatcher;
 
   private MusicController music;
 
-  private boolean forceWindowed;
-  private boolean forceDrawFps;
+  /**
+   * Serialized values of cvars passed on the command-line, keyed by alias, which are applied to
+   * the {@linkplain Layer#COMMAND_LINE command-line layer} once the cvars have been added.
+   */
+  private final Map<String, String> COMMAND_LINE_CVARS = new LinkedHashMap<>();
+
+  /**
+   * Named snapshots of the cvars, e.g., settings profiles, which were saved using the console.
+   */
+  private final Map<String, CvarSnapshot> SNAPSHOTS = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
   private Batch batch;
 
   private int width;
   private int height;
 
-  private byte drawFpsMethod;
+  private FpsLocation fpsLocation = FpsLocation.OFF;
 
   public Client() {
     this(1280, 720);
@@ -109,11 +174,36 @@ public class Client extends ApplicationAdapter {
     return cvars;
   }
 
+  @NonNull
+  public Map<String, CvarSnapshot> snapshots() {
+    return SNAPSHOTS;
+  }
+
   @Nullable
   public GdxKeyMapper keys() {
     return keys;
   }
 
+  @Nullable
+  public KeyBindings bindings() {
+    return bindings;
+  }
+
+  @Nullable
+  public CommandJobs jobs() {
+    return jobs;
+  }
+
+  @Nullable
+  public CommandScheduler scheduler() {
+    return scheduler;
+  }
+
+  @Nullable
+  public CommandScripts scripts() {
+    return scripts;
+  }
+
   @Nullable
   public MusicController music() {
     return music;
@@ -127,35 +217,38 @@ public class Client extends ApplicationAdapter {
     return height;
   }
 
-  @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-  public boolean isWindowedForced() {
-    return forceWindowed;
-  }
-
-  public void setWindowedForced(boolean b) {
-    this.forceWindowed = b;
-  }
-
-  public boolean isDrawFpsForced() {
-    return forceDrawFps;
+  /**
+   * Overrides the value of a cvar for this session, e.g., {@code +set Client.Windowed true}. This
+   * must be called before the client is created. Overridden values are not saved, and are
+   * themselves overridden by changes made while running.
+   */
+  public void setCommandLineCvar(@NonNull String alias, @NonNull String value) {
+    COMMAND_LINE_CVARS.put(alias, value);
   }
 
-  public void setDrawFpsForced(boolean b) {
-    this.forceDrawFps = b;
+  /**
+   * Sets the watcher used to reload the cvar config when it is modified. This must be called
+   * before the client is created, otherwise a {@link PollingFileWatcher} is used.
+   */
+  public void setFileWatcher(@Nullable FileWatcher fileWatcher) {
+    this.fileWatcher = fileWatcher;
   }
 
   @Override
   public void create() {
+    this.commands = new GdxCommandManager();
+    this.cvars = new MappedCvarManager(getSettingsFile(CVARS_FILE));
+    cvars.setWriteBehind(CVAR_WRITE_BEHIND_INTERVAL, TimeUnit.MILLISECONDS);
+    cvars.setLazyLoading(true);
+    this.keys = new MappedKeyMapper(getSettingsFile(KEYS_FILE));
+
+    // created after the managers so that it can listen to subtrees of cvars
     console.create();
 
     Calendar calendar = Calendar.getInstance();
     DateFormat format = DateFormat.getDateTimeInstance();
     console.println(format.format(calendar.getTime()));
 
-    this.commands = new GdxCommandManager();
-    this.cvars = new GdxCvarManager();
-    this.keys = new GdxKeyMapper();
-
     List<Throwable> throwables;
     throwables = Commands.addTo(commands);
     for (Throwable t : throwables) {
@@ -167,6 +260,14 @@ public class Client extends ApplicationAdapter {
       Gdx.app.error(TAG, t.getMessage(), t);
     }
 
+    for (Map.Entry<String, String> entry : COMMAND_LINE_CVARS.entrySet()) {
+      try {
+        cvars.setLayer(Layer.COMMAND_LINE, entry.getKey(), entry.getValue());
+      } catch (RuntimeException e) {
+        Gdx.app.error(TAG, "+set " + entry.getKey() + ": " + e.getMessage());
+      }
+    }
+
     throwables = Keys.addTo(keys);
     for (Throwable t : throwables) {
       Gdx.app.error(TAG, t.getMessage(), t);
@@ -191,12 +292,48 @@ public class Client extends ApplicationAdapter {
     console.addProcessor(processor);
     console.addSuggestionProvider(processor);
 
+    this.jobExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        .setNameFormat("CommandJob-%d")
+        .setDaemon(true)
+        .build());
+    this.jobs = new CommandJobs(jobExecutor, GdxExecutors.RENDER_THREAD);
+    processor.setJobs(jobs);
+
+    this.scheduler = new CommandScheduler(processor);
+
+    this.bindings = new KeyBindings(keys, processor);
+    throwables = bindings.load();
+    for (Throwable t : throwables) {
+      Gdx.app.error(TAG, t.getMessage(), t);
+    }
+
     this.music = new MusicController(assets);
 
     setupCvars();
 
+    if (fileWatcher == null) {
+      this.fileWatcher
+          = new PollingFileWatcher(FILE_WATCHER_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    CvarConfigReloader reloader = new CvarConfigReloader(cvars,
+        getSettingsFile(CVARS_CONFIG_FILE).file(), GdxExecutors.RENDER_THREAD);
+    if (reloader.getFile().exists()) {
+      reloader.reload();
+    }
+
+    fileWatcher.watch(reloader.getFile(), reloader);
+
+    this.scripts = new CommandScripts(commands,
+        GdxFileHandleResolvers.LOCAL, GdxFileHandleResolvers.INTERNAL);
+    CommandScript.Report autoexec = scripts.exec(AUTOEXEC_FILE);
+    if (autoexec != null) {
+      autoexec.print(console, false);
+    }
+
     InputMultiplexer inputProcessor = new InputMultiplexer();
     inputProcessor.addProcessor(console);
+    inputProcessor.addProcessor(keys.newInputProcessor());
 
     Gdx.input.setCatchBackKey(true);
     Gdx.input.setCatchMenuKey(true);
@@ -214,6 +351,8 @@ public class Client extends ApplicationAdapter {
 
   @Override
   public void render() {
+    scheduler.update();
+
     Gdx.gl.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
@@ -221,7 +360,7 @@ public class Client extends ApplicationAdapter {
     b.begin(); {
       if (console.isVisible()) {
         console.render(b);
-      } else if (drawFpsMethod > 0 || forceDrawFps) {
+      } else if (fpsLocation != FpsLocation.OFF) {
         drawFps(b);
       }
     } b.end();
@@ -235,25 +374,20 @@ public class Client extends ApplicationAdapter {
 
     GlyphLayout fps = new GlyphLayout(font, Integer.toString(Gdx.graphics.getFramesPerSecond()));
     float x, y;
-    int drawFpsMethod = this.drawFpsMethod;
-    if (forceDrawFps && drawFpsMethod == 0) {
-      drawFpsMethod = 1;
-    }
-
-    switch (drawFpsMethod) {
-      case 1:
+    switch (fpsLocation) {
+      case TOP_LEFT:
         x = 0;
         y = height();
         break;
-      case 2:
+      case TOP_RIGHT:
         x = width() - fps.width;
         y = height();
         break;
-      case 3:
+      case BOTTOM_LEFT:
         x = 0;
         y = 0;
         break;
-      case 4:
+      case BOTTOM_RIGHT:
         x = width() - fps.width;
         y = 0;
         break;
@@ -264,22 +398,56 @@ public class Client extends ApplicationAdapter {
     font.draw(b, fps, x, y);
   }
 
+  @NonNull
+  private static FileHandle getSettingsFile(@NonNull String fileName) {
+    FileHandle file;
+    if (Gdx.app.getType() == Application.ApplicationType.Desktop) {
+      // alongside the preferences which settings are migrated from
+      file = Gdx.files.external(".prefs/" + fileName);
+    } else {
+      file = Gdx.files.local(fileName);
+    }
+
+    file.parent().mkdirs();
+    return file;
+  }
+
   @Override
   public void dispose() {
     Collection<RuntimeException> exceptions;
 
+    fileWatcher.close();
+    jobExecutor.shutdown();
+
+    Gdx.app.debug(TAG, String.format("%d CVARS loaded, %d never used (~%dus saved)",
+        cvars.getMaterializedCount(),
+        cvars.getPendingCount(),
+        cvars.getEstimatedTimeSaved(TimeUnit.MICROSECONDS)));
     Gdx.app.debug(TAG, "Saving CVARS...");
     exceptions = cvars.saveAll();
     for (RuntimeException e : exceptions) {
       console.println(e.getMessage());
     }
 
+    exceptions = cvars.shutdown();
+    for (RuntimeException e : exceptions) {
+      console.println(e.getMessage());
+    }
+
     Gdx.app.debug(TAG, "Saving key assignments...");
     exceptions = keys.saveAll();
     for (RuntimeException e : exceptions) {
       console.println(e.getMessage());
     }
 
+    Gdx.app.debug(TAG, "Closing settings...");
+    try {
+      cvars.close();
+      keys.close();
+    } catch (RecordStoreException e) {
+      console.println(e.getMessage());
+    }
+
     Gdx.app.debug(TAG, "Disposing client...");
     console.dispose();
 
@@ -300,11 +468,18 @@ public class Client extends ApplicationAdapter {
   }
 
   private void setupCvars() {
+    Cvars.Client.Console.ScheduleBudget.addStateListener(new FloatCvarStateAdapter() {
+      @Override
+      public void onChanged(@NonNull FloatCvar cvar, float from, float to) {
+        scheduler.setBudget((long) (to * 1000), TimeUnit.MICROSECONDS);
+      }
+    });
 
-    Cvars.Client.Display.ShowFPS.addStateListener(new CvarStateAdapter<Byte>() {
+    Cvars.Client.Display.ShowFPS.addStateListener(new CvarStateAdapter<FpsLocation>() {
       @Override
-      public void onChanged(@NonNull Cvar<Byte> cvar, @Nullable Byte from, @Nullable Byte to) {
-        drawFpsMethod = to == null ? 0 : to;
+      public void onChanged(@NonNull Cvar<FpsLocation> cvar, @Nullable FpsLocation from,
+                            @Nullable FpsLocation to) {
+        fpsLocation = to;
       }
     });
   }
@@ -1,51 +1,90 @@
 package com.gmail.collinsmith70.diablo;
 
+import com.google.common.base.Strings;
+
 import android.support.annotation.NonNull;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.gmail.collinsmith70.command.Action;
 import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.command.CommandJobs;
 import com.gmail.collinsmith70.command.CommandManager;
+import com.gmail.collinsmith70.command.OptionalParameter;
 import com.gmail.collinsmith70.command.Parameter;
 import com.gmail.collinsmith70.command.ParameterException;
 import com.gmail.collinsmith70.cvar.Cvar;
+import com.gmail.collinsmith70.cvar.CvarJournal;
+import com.gmail.collinsmith70.cvar.CvarSnapshot;
+import com.gmail.collinsmith70.cvar.SaveableCvarManager;
+import com.gmail.collinsmith70.libgdx.CommandScheduler;
+import com.gmail.collinsmith70.libgdx.CommandScript;
 import com.gmail.collinsmith70.libgdx.CvarSuggester;
 import com.gmail.collinsmith70.libgdx.CvarValueSuggester;
+import com.gmail.collinsmith70.libgdx.KeyBindings;
+import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.libgdx.key.SaveableKeyMapper;
+import com.gmail.collinsmith70.registry.GenerateRegistry;
+import com.gmail.collinsmith70.registry.Registries;
+import com.gmail.collinsmith70.registry.Registry;
 import com.gmail.collinsmith70.serializer.SerializeException;
 import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.util.ListenerProfiler;
 import com.gmail.collinsmith70.validator.ValidationException;
 
-import java.lang.reflect.Field;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings({ "unused", "ConstantConditions" })
+@GenerateRegistry(Command.class)
 class Commands {
 
   public static List<Throwable> addTo(CommandManager commandManager) {
-    return addTo(commandManager, Commands.class, new ArrayList<Throwable>(0));
+    return addTo(commandManager, Registries.of(Commands.class, Command.class));
   }
 
-  private static List<Throwable> addTo(CommandManager commandManager, Class<?> clazz,
-                                       List<Throwable> throwables) {
-    for (Field field : clazz.getFields()) {
-      if (Command.class.isAssignableFrom(field.getType())) {
-        try {
-          commandManager.add((Command) field.get(null));
-        } catch (Throwable t) {
-          throwables.add(t);
-        }
+  /*package*/ static List<Throwable> addTo(CommandManager commandManager, Registry<Command> registry) {
+    List<Throwable> throwables = new ArrayList<>(0);
+    for (Command command : registry.entries()) {
+      try {
+        commandManager.add(command);
+      } catch (Throwable t) {
+        throwables.add(t);
       }
     }
 
-    for (Class<?> subclass : clazz.getClasses()) {
-      addTo(commandManager, subclass, throwables);
-    }
-
     return throwables;
   }
 
+  /**
+   * Prints the output of the jobs submitted by commands into the console once they finish, since
+   * the output of the command which submitted them may have been closed by then.
+   */
+  private static final CommandJobs.Listener PRINT_OUTPUT = new CommandJobs.Listener() {
+    @Override
+    public void onCompleted(@NonNull CommandJobs.Job job) {
+      Diablo.client.console.print(job.getOutput());
+    }
+
+    @Override
+    public void onFailed(@NonNull CommandJobs.Job job, @NonNull Throwable t) {
+      Diablo.client.console.print(job.getOutput());
+      Diablo.client.console.format("%s failed: %s%n", job, t.getMessage());
+    }
+  };
+
   private Commands() {
   }
 
@@ -55,9 +94,9 @@ class Commands {
       .action(new Action() {
         @Override
         public void onExecuted(@NonNull Command.Instance instance) {
-          Diablo.client.console.println("<> indicates required, [] indicates optional");
+          instance.out().println("<> indicates required, [] indicates optional");
           for (Command cmd : Diablo.client.commands().getCommands()) {
-            Diablo.client.console.println(cmd + " : " + cmd.getDescription());
+            instance.out().println(cmd + " : " + cmd.getDescription());
           }
         }
       })
@@ -93,7 +132,7 @@ class Commands {
         public void onExecuted(@NonNull Command.Instance instance) {
           Collection<Cvar> cvars = Diablo.client.cvars().getCvars();
           for (Cvar cvar : cvars) {
-            Diablo.client.console.format("%s \"%s\"; %s (Default: \"%s\")%n",
+            instance.out().format("%s \"%s\"; %s (Default: \"%s\")%n",
                 cvar.getAlias(), cvar.get(), cvar.getDescription(), cvar.getDefault());
           }
         }
@@ -115,7 +154,7 @@ class Commands {
                 alias, cvars.getAlias());
           }
 
-          Diablo.client.console.format("%s = %s%n", cvar.getAlias(), cvar.get());
+          instance.out().format("%s = %s%n", cvar.getAlias(), cvar.get());
         }
       })
       .build();
@@ -150,4 +189,487 @@ class Commands {
       })
       .build();
 
+  public static final Command exec = Command.builder()
+      .alias("exec")
+      .description("Executes each line of the specified script as a command, optionally printing "
+          + "the time taken by each")
+      .params(Parameter.of(String.class), OptionalParameter.of(Boolean.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          String fileName = instance.getArg(0);
+          boolean timings = instance.numArgs() > 1 && Boolean.parseBoolean(instance.getArg(1));
+          CommandScript.Report report;
+          try {
+            report = Diablo.client.scripts().exec(fileName);
+          } catch (IllegalStateException e) {
+            throw new ParameterException(e.getMessage());
+          }
+
+          if (report == null) {
+            throw new ParameterException("Failed to find script: " + fileName);
+          }
+
+          report.print(instance.out(), timings);
+        }
+      })
+      .build();
+
+  public static final Command profile = Command.builder()
+      .alias("profile")
+      .description("Profiles listeners. Accepts on, off, reset or dump [file], "
+          + "otherwise prints the results")
+      .async(true)
+      .params(OptionalParameter.of(String.class), OptionalParameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          String action = instance.numArgs() > 0 ? instance.getArg(0) : "";
+          switch (action) {
+            case "on":
+              ListenerProfiler.setEnabled(true);
+              instance.out().println("Listener profiling enabled");
+              break;
+            case "off":
+              ListenerProfiler.setEnabled(false);
+              instance.out().println("Listener profiling disabled");
+              break;
+            case "reset":
+              ListenerProfiler.reset();
+              break;
+            case "dump":
+              FileHandle file = Gdx.files.local(
+                  instance.numArgs() > 1 ? instance.getArg(1) : "listeners.prof");
+              PrintWriter out = new PrintWriter(file.writer(false));
+              try {
+                ListenerProfiler.dump(out);
+              } finally {
+                out.close();
+              }
+
+              instance.out().println("Listener profile written to " + file.path());
+              break;
+            case "":
+              ListenerProfiler.print(new PrintWriter(instance.out()));
+              break;
+            default:
+              throw new ParameterException(
+                  "Unknown action: \"%s\". Expected on, off, reset or dump", action);
+          }
+        }
+      })
+      .build();
+
+  public static final Command snapshot = Command.builder()
+      .alias("snapshot")
+      .description("Manages named snapshots of all cvars, e.g., settings profiles. Accepts "
+          + "save <name>, load <name>, diff <name>, export <name> [file] or delete <name>, "
+          + "otherwise lists them")
+      .params(OptionalParameter.of(String.class), OptionalParameter.of(String.class),
+          OptionalParameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          String action = instance.numArgs() > 0 ? instance.getArg(0) : "";
+          Map<String, CvarSnapshot> snapshots = Diablo.client.snapshots();
+          if (action.isEmpty()) {
+            for (Map.Entry<String, CvarSnapshot> entry : snapshots.entrySet()) {
+              instance.out().format("%s (%d cvars)%n",
+                  entry.getKey(), entry.getValue().size());
+            }
+
+            return;
+          } else if (instance.numArgs() < 2) {
+            throw new ParameterException("A snapshot name must be specified");
+          }
+
+          String name = instance.getArg(1);
+          if (action.equals("save")) {
+            snapshots.put(name, Diablo.client.cvars().capture());
+            instance.out().println("Saved snapshot " + name);
+            return;
+          }
+
+          CvarSnapshot snapshot = snapshots.get(name);
+          if (snapshot == null) {
+            throw new ParameterException("Failed to find snapshot: " + name);
+          }
+
+          switch (action) {
+            case "load":
+              Collection<Cvar> changed;
+              try {
+                changed = Diablo.client.cvars().restore(snapshot);
+              } catch (ValidationException e) {
+                throw new ParameterException("Failed to load snapshot %s: %s",
+                    name, e.getMessage());
+              }
+
+              instance.out().format("Loaded snapshot %s, %d cvars changed%n",
+                  name, changed.size());
+              break;
+            case "diff":
+              CvarSnapshot current = Diablo.client.cvars().capture();
+              for (Cvar cvar : snapshot.diff(current)) {
+                instance.out().format("%s \"%s\" -> \"%s\"%n", cvar.getAlias(),
+                    snapshot.contains(cvar) ? snapshot.get(cvar) : null,
+                    current.contains(cvar) ? current.get(cvar) : null);
+              }
+
+              break;
+            case "export":
+              FileHandle file = Gdx.files.local(
+                  instance.numArgs() > 2 ? instance.getArg(2) : name + ".properties");
+              Properties properties = new Properties();
+              properties.putAll(snapshot.export());
+              Writer out = file.writer(false, "UTF-8");
+              try {
+                properties.store(out, "snapshot " + name);
+              } catch (IOException e) {
+                throw new ParameterException("Failed to write %s: %s", file.path(), e.getMessage());
+              } finally {
+                IOUtils.closeQuietly(out);
+              }
+
+              instance.out().println("Snapshot " + name + " exported to " + file.path());
+              break;
+            case "delete":
+              snapshots.remove(name);
+              break;
+            default:
+              throw new ParameterException(
+                  "Unknown action: \"%s\". Expected save, load, diff, export or delete", action);
+          }
+        }
+      })
+      .build();
+
+  public static final Command cvarlog = Command.builder()
+      .alias("cvarlog")
+      .description("Prints the most recent cvar changes, newest first. Accepts the number of "
+          + "changes to print, or clear")
+      .params(OptionalParameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          CvarJournal journal = Diablo.client.cvars().getJournal();
+          String arg = instance.numArgs() > 0 ? instance.getArg(0) : "20";
+          if (arg.equals("clear")) {
+            journal.clear();
+            return;
+          }
+
+          int count;
+          try {
+            count = Integer.parseInt(arg);
+          } catch (NumberFormatException e) {
+            throw new ParameterException("Invalid number of changes: \"%s\"", arg);
+          }
+
+          count = Math.min(count, journal.size());
+          for (int i = 0; i < count; i++) {
+            CvarJournal.Entry entry = journal.get(i);
+            Cvar cvar = entry.getCvar();
+            instance.out().format("%tT %s \"%s\" -> \"%s\" (%s)%n",
+                entry.getTime(), cvar != null ? cvar.getAlias() : "<removed>",
+                entry.getFrom(), entry.getTo(), entry.getSource());
+          }
+        }
+      })
+      .build();
+
+  public static final Command undo = Command.builder()
+      .alias("undo")
+      .description("Reverts the most recent cvar changes, optionally the specified number of them")
+      .params(OptionalParameter.of(Integer.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          int count;
+          try {
+            count = instance.numArgs() > 0 ? Integer.parseInt(instance.getArg(0)) : 1;
+          } catch (NumberFormatException e) {
+            throw new ParameterException("Invalid number of changes: \"%s\"",
+                instance.getArg(0));
+          }
+
+          for (int i = 0; i < count; i++) {
+            CvarJournal.Entry entry;
+            try {
+              entry = Diablo.client.cvars().undo();
+            } catch (ValidationException e) {
+              throw new ParameterException("Failed to undo change: " + e.getMessage());
+            }
+
+            if (entry == null) {
+              instance.out().println("Nothing to undo");
+              return;
+            }
+
+            instance.out().format("%s \"%s\" -> \"%s\"%n",
+                entry.getCvar().getAlias(), entry.getTo(), entry.getFrom());
+          }
+        }
+      })
+      .build();
+
+  public static final Command bind = Command.builder()
+      .alias("bind")
+      .description("Binds a command to a key, e.g., bind F5 \"snapshot save quick\", and "
+          + "optionally a command executed when it is released. Prints the binding of a key, "
+          + "otherwise lists all bindings")
+      .params(OptionalParameter.of(String.class), OptionalParameter.of(String.class),
+          OptionalParameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          KeyBindings bindings = Diablo.client.bindings();
+          if (instance.numArgs() == 0) {
+            for (KeyBindings.Binding binding : bindings.getBindings()) {
+              print(instance.out(), binding);
+            }
+
+            return;
+          }
+
+          MappedKey key = bindings.lookup(instance.getArg(0));
+          if (key == null) {
+            throw new ParameterException("Unknown key: \"%s\"", instance.getArg(0));
+          }
+
+          if (instance.numArgs() == 1) {
+            KeyBindings.Binding binding = bindings.getBinding(key);
+            if (binding == null) {
+              instance.out().format("%s is not bound%n", key.getName());
+            } else {
+              print(instance.out(), binding);
+            }
+
+            return;
+          }
+
+          String pressed = instance.getArg(1);
+          String released = instance.numArgs() > 2 ? instance.getArg(2) : null;
+          try {
+            bindings.bind(key, pressed, released);
+          } catch (IllegalArgumentException|ValidationException e) {
+            throw new ParameterException(e.getMessage());
+          }
+        }
+
+        private void print(@NonNull PrintStream out, @NonNull KeyBindings.Binding binding) {
+          String released = binding.getReleased();
+          if (released == null) {
+            out.format("%s \"%s\"%n",
+                binding.getKey().getName(), binding.getPressed());
+          } else {
+            out.format("%s \"%s\" \"%s\"%n",
+                binding.getKey().getName(), Strings.nullToEmpty(binding.getPressed()), released);
+          }
+        }
+      })
+      .build();
+
+  public static final Command unbind = Command.builder()
+      .alias("unbind")
+      .description("Removes the binding of a key")
+      .params(Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          KeyBindings bindings = Diablo.client.bindings();
+          MappedKey key = bindings.lookup(instance.getArg(0));
+          if (key == null) {
+            throw new ParameterException("Unknown key: \"%s\"", instance.getArg(0));
+          } else if (!bindings.unbind(key)) {
+            instance.out().format("%s is not bound%n", key.getName());
+          }
+        }
+      })
+      .build();
+
+  public static final Command save = Command.builder()
+      .alias("save")
+      .description("Saves all cvars and key assignments")
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          // cvars and keys are only safe to read here, so only the commit is done by a job
+          final SaveableCvarManager cvars = Diablo.client.cvars();
+          final SaveableKeyMapper keys = Diablo.client.keys();
+          Collection<RuntimeException> exceptions = new ArrayList<>();
+          exceptions.addAll(cvars.stageAll());
+          exceptions.addAll(keys.stageAll());
+          for (RuntimeException e : exceptions) {
+            instance.out().println(e.getMessage());
+          }
+
+          final int errors = exceptions.size();
+          Diablo.client.jobs().submit(instance, new Action() {
+            @Override
+            public void onExecuted(@NonNull Command.Instance instance) {
+              cvars.commitStaged();
+              keys.commitStaged();
+              instance.out().format("Saved settings (%d errors)%n", errors);
+            }
+          }, PRINT_OUTPUT);
+        }
+      })
+      .build();
+
+  public static final Command jobs = Command.builder()
+      .alias("jobs")
+      .description("Lists the asynchronous commands which have not finished yet")
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          long now = System.currentTimeMillis();
+          for (CommandJobs.Job job : Diablo.client.jobs().getJobs()) {
+            Thread thread = job.getThread();
+            instance.out().format("[%d] %s (%dms, %s)%n",
+                job.getId(), job, now - job.getSubmitTime(),
+                thread != null ? thread.getName() : "queued");
+          }
+        }
+      })
+      .build();
+
+  public static final Command grep = Command.builder()
+      .alias("grep")
+      .description("Prints the lines piped into it which contain the specified text, ignoring "
+          + "case, e.g., cvars | grep Sound")
+      .params(Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          BufferedReader in = instance.in();
+          if (in == null) {
+            throw new ParameterException("grep expects input, e.g., cvars | grep Sound");
+          }
+
+          String pattern = instance.getArg(0);
+          PrintStream out = instance.out();
+          try {
+            for (String line; (line = in.readLine()) != null;) {
+              if (StringUtils.containsIgnoreCase(line, pattern)) {
+                out.println(line);
+              }
+            }
+          } catch (IOException e) {
+            throw new ParameterException("Failed to read input: " + e.getMessage());
+          }
+        }
+      })
+      .build();
+
+  public static final Command wait = Command.builder()
+      .alias("wait")
+      .description("Executes a command after an interval of frames or time, e.g., "
+          + "wait 2s \"cvar Client.Sound.Volume 0.5\"")
+      .params(Parameter.of(String.class), Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          schedule(instance, instance.getArg(1), instance.getArg(0), 1);
+        }
+      })
+      .build();
+
+  public static final Command repeat = Command.builder()
+      .alias("repeat")
+      .description("Executes a command a number of times, once per interval of frames or time, "
+          + "e.g., repeat 100 1 \"snapshot save bench\"")
+      .params(Parameter.of(Integer.class), Parameter.of(String.class),
+          Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          int count;
+          try {
+            count = Integer.parseInt(instance.getArg(0));
+          } catch (NumberFormatException e) {
+            count = 0;
+          }
+
+          if (count <= 0) {
+            throw new ParameterException("Invalid number of repetitions: \"%s\"",
+                instance.getArg(0));
+          }
+
+          schedule(instance, instance.getArg(2), instance.getArg(1), count);
+        }
+      })
+      .build();
+
+  public static final Command every = Command.builder()
+      .alias("every")
+      .description("Executes a command once per interval of frames or time until it is "
+          + "cancelled, e.g., every 250ms \"cvars Client.Sound\"")
+      .params(Parameter.of(String.class), Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          schedule(instance, instance.getArg(1), instance.getArg(0), CommandScheduler.FOREVER);
+        }
+      })
+      .build();
+
+  public static final Command tasks = Command.builder()
+      .alias("tasks")
+      .description("Lists the scheduled commands which have not finished or been cancelled")
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          CommandScheduler scheduler = Diablo.client.scheduler();
+          for (CommandScheduler.Task task : scheduler.getTasks()) {
+            String unit = task.getUnit() == CommandScheduler.Unit.FRAMES ? "f" : "ms";
+            instance.out().format("[%d] %s (every %d%s, next in %d%s, executed %d/%s)%n",
+                task.getId(), task, task.getInterval(), unit, scheduler.getRemaining(task), unit,
+                task.getExecutions(),
+                task.getCount() == CommandScheduler.FOREVER ? "-" : task.getCount());
+          }
+
+          instance.out().format("%d deferred over budget (%dus per frame)%n",
+              scheduler.getDeferred(), scheduler.getBudget(TimeUnit.MICROSECONDS));
+        }
+      })
+      .build();
+
+  public static final Command cancel = Command.builder()
+      .alias("cancel")
+      .description("Cancels the scheduled command with the specified id, or all of them")
+      .params(Parameter.of(String.class))
+      .action(new Action() {
+        @Override
+        public void onExecuted(@NonNull Command.Instance instance) {
+          CommandScheduler scheduler = Diablo.client.scheduler();
+          String id = instance.getArg(0);
+          if (id.equalsIgnoreCase("all")) {
+            scheduler.cancelAll();
+            return;
+          }
+
+          try {
+            if (!scheduler.cancel(Integer.parseInt(id))) {
+              instance.out().format("No scheduled command with id %s%n", id);
+            }
+          } catch (NumberFormatException e) {
+            throw new ParameterException("Expected an id or \"all\": \"%s\"", id);
+          }
+        }
+      })
+      .build();
+
+  private static void schedule(@NonNull Command.Instance instance, @NonNull String line,
+                               @NonNull String interval, int count) {
+    CommandScheduler.Task task;
+    try {
+      task = Diablo.client.scheduler().schedule(line, interval, count);
+    } catch (IllegalArgumentException|ValidationException e) {
+      throw new ParameterException(e.getMessage());
+    }
+
+    instance.out().format("[%d] %s%n", task.getId(), task);
+  }
+
 }
@@ -1,10 +1,20 @@
 package com.gmail.collinsmith70.diablo;
 
+import com.gmail.collinsmith70.cvar.BooleanCvar;
 import com.gmail.collinsmith70.cvar.Cvar;
 import com.gmail.collinsmith70.cvar.CvarManager;
+import com.gmail.collinsmith70.cvar.DeliveryPolicy;
+import com.gmail.collinsmith70.cvar.DerivedCvar;
+import com.gmail.collinsmith70.cvar.EnumCvar;
+import com.gmail.collinsmith70.cvar.FloatCvar;
+import com.gmail.collinsmith70.cvar.ShortCvar;
 import com.gmail.collinsmith70.libgdx.GdxFileSuggester;
 import com.gmail.collinsmith70.libgdx.GdxFileValidator;
+import com.gmail.collinsmith70.libgdx.util.GdxExecutors;
 import com.gmail.collinsmith70.libgdx.util.GdxFileHandleResolvers;
+import com.gmail.collinsmith70.registry.GenerateRegistry;
+import com.gmail.collinsmith70.registry.Registries;
+import com.gmail.collinsmith70.registry.Registry;
 import com.gmail.collinsmith70.serializer.LocaleStringSerializer;
 import com.gmail.collinsmith70.validator.NonNullSubclassValidator;
 import com.gmail.collinsmith70.validator.NumberRangeValidator;
@@ -12,34 +22,28 @@ import com.gmail.collinsmith70.validator.Validator;
 
 import java.io.File;
 import java.io.FilenameFilter;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
 @SuppressWarnings("unused")
+@GenerateRegistry(Cvar.class)
 public class Cvars {
 
   public static List<Throwable> addTo(CvarManager cvarManager) {
-    return addTo(cvarManager, Cvars.class, new ArrayList<Throwable>(0));
+    return addTo(cvarManager, Registries.of(Cvars.class, Cvar.class));
   }
 
-  private static List<Throwable> addTo(CvarManager cvarManager, Class<?> clazz,
-                                       List<Throwable> throwables) {
-    for (Field field : clazz.getFields()) {
-      if (Cvar.class.isAssignableFrom(field.getType())) {
-        try {
-          cvarManager.add((Cvar) field.get(null));
-        } catch (Throwable t) {
-          throwables.add(t);
-        }
+  /*package*/ static List<Throwable> addTo(CvarManager cvarManager, Registry<Cvar> registry) {
+    List<Throwable> throwables = new ArrayList<>(0);
+    for (Cvar cvar : registry.entries()) {
+      try {
+        cvarManager.add(cvar);
+      } catch (Throwable t) {
+        throwables.add(t);
       }
     }
 
-    for (Class<?> subclass : clazz.getClasses()) {
-      addTo(cvarManager, subclass, throwables);
-    }
-
     return throwables;
   }
 
@@ -58,10 +62,9 @@ public class Cvars {
         .serializer(LocaleStringSerializer.INSTANCE)
         .build();
 
-    public static final Cvar<Boolean> Windowed = Cvar.builder(Boolean.class)
+    public static final BooleanCvar Windowed = BooleanCvar.builder()
         .alias("Client.Windowed")
-        .description("Whether or not the client is in windowed mode. Note: This cvar is ignored " +
-            "when the client is started with the -windowed option")
+        .description("Whether or not the client is in windowed mode")
         .defaultValue(Boolean.FALSE)
         .validator(Validator.ACCEPT_NON_NULL)
         .build();
@@ -88,39 +91,47 @@ public class Cvars {
           }))
           .build();
 
-      public static final Cvar<Float> Height = Cvar.builder(Float.class)
+      public static final FloatCvar Height = FloatCvar.builder()
           .alias("Client.Console.Height")
           .description("Height of the console in percent of screen height")
           .defaultValue(0.5f)
           .validator(NumberRangeValidator.of(Float.class, 0.25f, 1.0f))
+          .delivery(DeliveryPolicy.throttled(GdxExecutors.RENDER_THREAD))
+          .build();
+
+      public static final FloatCvar ScheduleBudget = FloatCvar.builder()
+          .alias("Client.Console.ScheduleBudget")
+          .description("Time in milliseconds which scheduled commands may execute for each frame")
+          .defaultValue(2.0f)
+          .validator(NumberRangeValidator.of(Float.class, 0.0f, null))
           .build();
 
       public static class Color {
 
         private Color() {}
 
-        public static final Cvar<Float> r = Cvar.builder(Float.class)
+        public static final FloatCvar r = FloatCvar.builder()
             .alias("Client.Console.Color.r")
             .description("Color of the console font")
             .defaultValue(1.0f)
             .validator(NumberRangeValidator.of(Float.class, 0.0f, 1.0f))
             .build();
 
-        public static final Cvar<Float> g = Cvar.builder(Float.class)
+        public static final FloatCvar g = FloatCvar.builder()
             .alias("Client.Console.Color.g")
             .description("Color of the console font")
             .defaultValue(1.0f)
             .validator(NumberRangeValidator.of(Float.class, 0.0f, 1.0f))
             .build();
 
-        public static final Cvar<Float> b = Cvar.builder(Float.class)
+        public static final FloatCvar b = FloatCvar.builder()
             .alias("Client.Console.Color.b")
             .description("Color of the console font")
             .defaultValue(1.0f)
             .validator(NumberRangeValidator.of(Float.class, 0.0f, 1.0f))
             .build();
 
-        public static final Cvar<Float> a = Cvar.builder(Float.class)
+        public static final FloatCvar a = FloatCvar.builder()
             .alias("Client.Console.Color.a")
             .description("Color of the console font")
             .defaultValue(1.0f)
@@ -134,28 +145,38 @@ public class Cvars {
 
       private Display() {}
 
-      public static final Cvar<Byte> ShowFPS = Cvar.builder(Byte.class)
+      /**
+       * Corner of the screen which the current FPS is drawn in.
+       */
+      public enum FpsLocation {
+        OFF,
+        TOP_LEFT,
+        TOP_RIGHT,
+        BOTTOM_LEFT,
+        BOTTOM_RIGHT
+      }
+
+      public static final EnumCvar<FpsLocation> ShowFPS = EnumCvar.builderOf(FpsLocation.class)
           .alias("Client.Display.ShowFPS")
           .description("Whether or not to draw the current FPS. " +
-              "0=Off, 1=Top Left, 2=Top Right, 3=Bottom Left, 4=Bottom Right")
-          .defaultValue((byte) 0)
-          .validator(NumberRangeValidator.of(Byte.class, (byte) 0, (byte) 4))
+              "OFF, TOP_LEFT, TOP_RIGHT, BOTTOM_LEFT or BOTTOM_RIGHT")
+          .defaultValue(FpsLocation.OFF)
           .build();
 
-      public static final Cvar<Short> BackgroundFPSLimit = Cvar.builder(Short.class)
+      public static final ShortCvar BackgroundFPSLimit = ShortCvar.builder()
           .alias("Client.Display.BackgroundFPSLimit")
           .description("Limits the FPS of the application when running in the background. " +
               "-1=Won't Render, 0=Unlimited")
           .defaultValue((short) 10)
-          .validator(NumberRangeValidator.of(Byte.class, (byte) -1, null))
+          .validator(NumberRangeValidator.of(Short.class, (short) -1, null))
           .build();
 
-      public static final Cvar<Short> ForegroundFPSLimit = Cvar.builder(Short.class)
+      public static final ShortCvar ForegroundFPSLimit = ShortCvar.builder()
           .alias("Client.Display.ForegroundFPSLimit")
           .description("Limits the FPS of the application when running in the foreground. " +
               "0-Unlimited")
           .defaultValue((short) 0)
-          .validator(NumberRangeValidator.of(Byte.class, (byte) 0, null))
+          .validator(NumberRangeValidator.of(Short.class, (short) 0, null))
           .build();
 
     }
@@ -164,29 +185,50 @@ public class Cvars {
 
       private Sound() {}
 
-      public static final Cvar<Boolean> Enabled = Cvar.builder(Boolean.class)
+      public static final BooleanCvar Enabled = BooleanCvar.builder()
           .alias("Client.Sound.Enabled")
           .description("Whether or not sound is enabled")
           .defaultValue(Boolean.TRUE)
           .validator(Validator.ACCEPT_NON_NULL)
+          .concurrent(true)
+          .deliverOn(GdxExecutors.RENDER_THREAD)
           .build();
 
       public static class Music {
 
         private Music() {}
 
-        public static final Cvar<Boolean> Enabled = Cvar.builder(Boolean.class)
+        public static final BooleanCvar Enabled = BooleanCvar.builder()
             .alias("Client.Sound.Music.Enabled")
             .description("Whether or not music is enabled")
             .defaultValue(Boolean.TRUE)
             .validator(Validator.ACCEPT_NON_NULL)
+            .concurrent(true)
+            .deliverOn(GdxExecutors.RENDER_THREAD)
             .build();
 
-        public static final Cvar<Float> Volume = Cvar.builder(Float.class)
+        public static final FloatCvar Volume = FloatCvar.builder()
             .alias("Client.Sound.Music.Volume")
             .description("Whether or not music is enabled")
             .defaultValue(0.50f)
             .validator(NumberRangeValidator.of(Float.class, 0.0f, 1.0f))
+            .concurrent(true)
+            .delivery(DeliveryPolicy.throttled(GdxExecutors.RENDER_THREAD))
+            .build();
+
+        public static final DerivedCvar<Float> EffectiveVolume = DerivedCvar.builder(Float.class)
+            .alias("Client.Sound.Music.EffectiveVolume")
+            .description("Volume music is played at, or 0 if it is disabled")
+            .defaultValue(0.0f)
+            .dependsOn(Sound.Enabled, Music.Enabled, Music.Volume)
+            .computedBy(new DerivedCvar.Computation<Float>() {
+              @Override
+              public Float compute() {
+                return Sound.Enabled.getBoolean() && Music.Enabled.getBoolean()
+                    ? Music.Volume.getFloat()
+                    : 0.0f;
+              }
+            })
             .build();
 
       }
@@ -195,18 +237,37 @@ public class Cvars {
 
         private Effects() {}
 
-        public static final Cvar<Boolean> Enabled = Cvar.builder(Boolean.class)
+        public static final BooleanCvar Enabled = BooleanCvar.builder()
             .alias("Client.Sound.Effects.Enabled")
             .description("Whether or not music is enabled")
             .defaultValue(Boolean.TRUE)
             .validator(Validator.ACCEPT_NON_NULL)
+            .concurrent(true)
+            .deliverOn(GdxExecutors.RENDER_THREAD)
             .build();
 
-        public static final Cvar<Float> Volume = Cvar.builder(Float.class)
+        public static final FloatCvar Volume = FloatCvar.builder()
             .alias("Client.Sound.Effects.Volume")
             .description("Whether or not music is enabled")
             .defaultValue(0.50f)
             .validator(NumberRangeValidator.of(Float.class, 0.0f, 1.0f))
+            .concurrent(true)
+            .delivery(DeliveryPolicy.throttled(GdxExecutors.RENDER_THREAD))
+            .build();
+
+        public static final DerivedCvar<Float> EffectiveVolume = DerivedCvar.builder(Float.class)
+            .alias("Client.Sound.Effects.EffectiveVolume")
+            .description("Volume sound effects are played at, or 0 if they are disabled")
+            .defaultValue(0.0f)
+            .dependsOn(Sound.Enabled, Effects.Enabled, Effects.Volume)
+            .computedBy(new DerivedCvar.Computation<Float>() {
+              @Override
+              public Float compute() {
+                return Sound.Enabled.getBoolean() && Effects.Enabled.getBoolean()
+                    ? Effects.Volume.getFloat()
+                    : 0.0f;
+              }
+            })
             .build();
 
       }
@@ -3,33 +3,30 @@ package com.gmail.collinsmith70.diablo;
 import com.badlogic.gdx.Input;
 import com.gmail.collinsmith70.libgdx.key.KeyMapper;
 import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.registry.GenerateRegistry;
+import com.gmail.collinsmith70.registry.Registries;
+import com.gmail.collinsmith70.registry.Registry;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
+@GenerateRegistry(MappedKey.class)
 class Keys {
 
   public static List<Throwable> addTo(KeyMapper keyManager) {
-    return addTo(keyManager, Keys.class, new ArrayList<Throwable>(0));
+    return addTo(keyManager, Registries.of(Keys.class, MappedKey.class));
   }
 
-  private static List<Throwable> addTo(KeyMapper keyManager, Class<?> clazz,
-                                       List<Throwable> throwables) {
-    for (Field field : clazz.getFields()) {
-      if (MappedKey.class.isAssignableFrom(field.getType())) {
-        try {
-          keyManager.add((MappedKey) field.get(null));
-        } catch (Throwable t) {
-          throwables.add(t);
-        }
+  /*package*/ static List<Throwable> addTo(KeyMapper keyManager, Registry<MappedKey> registry) {
+    List<Throwable> throwables = new ArrayList<>(0);
+    for (MappedKey key : registry.entries()) {
+      try {
+        keyManager.add(key);
+      } catch (Throwable t) {
+        throwables.add(t);
       }
     }
 
-    for (Class<?> subclass : clazz.getClasses()) {
-      addTo(keyManager, subclass, throwables);
-    }
-
     return throwables;
   }
 
@@ -16,7 +16,10 @@ import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Timer;
 import com.gmail.collinsmith70.cvar.Cvar;
 import com.gmail.collinsmith70.cvar.CvarStateAdapter;
+import com.gmail.collinsmith70.cvar.FloatCvar;
+import com.gmail.collinsmith70.cvar.FloatCvarStateAdapter;
 import com.gmail.collinsmith70.libgdx.Console;
+import com.gmail.collinsmith70.libgdx.util.GdxExecutors;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 
@@ -26,6 +29,8 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class RenderableConsole extends Console implements Disposable {
 
@@ -42,6 +47,21 @@ public class RenderableConsole extends Console implements Disposable {
   private int scrollOffset;
   private int scrollOffsetMin;
 
+  /**
+   * Thread which renders this console, or {@code null} before it has been created. {@link #OUTPUT}
+   * is only modified by this thread, so lines written by other threads, e.g., by asynchronous
+   * commands, are queued within {@link #PENDING} and moved into it on the next frame.
+   */
+  @Nullable
+  private volatile Thread renderThread;
+  private final Queue<String> PENDING = new ConcurrentLinkedQueue<>();
+  private final Runnable DRAIN_PENDING = new Runnable() {
+    @Override
+    public void run() {
+      drainPending();
+    }
+  };
+
   private boolean visible;
 
   @Nullable
@@ -113,11 +133,21 @@ public class RenderableConsole extends Console implements Disposable {
     return font;
   }
 
+  private void updateFontColor() {
+    Preconditions.checkState(font != null, "font should not be null");
+    font.setColor(
+        Cvars.Client.Console.Color.r.getFloat(),
+        Cvars.Client.Console.Color.g.getFloat(),
+        Cvars.Client.Console.Color.b.getFloat(),
+        Cvars.Client.Console.Color.a.getFloat());
+  }
+
   public void clear() {
     OUTPUT.clear();
   }
 
   public void create() {
+    this.renderThread = Thread.currentThread();
     Pixmap solidColorPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
     solidColorPixmap.setColor(0.0f, 0.0f, 0.0f, 0.5f);
     solidColorPixmap.fill();
@@ -136,23 +166,6 @@ public class RenderableConsole extends Console implements Disposable {
     hintBackgroundTexture = new Texture(solidColorPixmap);
     solidColorPixmap.dispose();
 
-    final Cvar.StateListener<Float> colorChangeListener = new CvarStateAdapter<Float>() {
-      @Override
-      public void onChanged(@NonNull Cvar<Float> cvar, @Nullable Float from, @Nullable Float to) {
-        Preconditions.checkState(font != null, "font should not be null");
-        Preconditions.checkState(to != null, "to should not be null");
-        if (cvar.equals(Cvars.Client.Console.Color.a)) {
-          font.getColor().a = to;
-        } else if (cvar.equals(Cvars.Client.Console.Color.r)) {
-          font.getColor().r = to;
-        } else if (cvar.equals(Cvars.Client.Console.Color.g)) {
-          font.getColor().g = to;
-        } else if (cvar.equals(Cvars.Client.Console.Color.b)) {
-          font.getColor().b = to;
-        }
-      }
-    };
-
     Cvars.Client.Console.Font.addStateListener(new CvarStateAdapter<String>() {
       @Override
       public void onChanged(@NonNull Cvar<String> cvar, @Nullable String from,
@@ -160,18 +173,21 @@ public class RenderableConsole extends Console implements Disposable {
         client.assets.load(to, BitmapFont.class);
         client.assets.finishLoadingAsset(to);
         font = client.assets.get(to);
-        Cvars.Client.Console.Color.r.addStateListener(colorChangeListener);
-        Cvars.Client.Console.Color.g.addStateListener(colorChangeListener);
-        Cvars.Client.Console.Color.b.addStateListener(colorChangeListener);
-        Cvars.Client.Console.Color.a.addStateListener(colorChangeListener);
+        updateFontColor();
         recalculateScrollOffsetMin();
       }
     });
 
-    Cvars.Client.Console.Height.addStateListener(new CvarStateAdapter<Float>() {
+    client.cvars().addSubtreeListener("Client.Console.Color", new CvarStateAdapter<Float>() {
       @Override
       public void onChanged(@NonNull Cvar<Float> cvar, @Nullable Float from, @Nullable Float to) {
-        Preconditions.checkState(to != null, "to should not be null");
+        updateFontColor();
+      }
+    });
+
+    Cvars.Client.Console.Height.addStateListener(new FloatCvarStateAdapter() {
+      @Override
+      public void onChanged(@NonNull FloatCvar cvar, float from, float to) {
         height = to;
         recalculateScrollOffsetMin();
       }
@@ -412,8 +428,28 @@ public class RenderableConsole extends Console implements Disposable {
   @Override
   public void flush() {
     super.flush();
-    OUTPUT.add(BUFFER.toString(Charset.forName("US-ASCII")));
+    String line = BUFFER.toString(Charset.forName("US-ASCII"));
     BUFFER.reset();
+    Thread renderThread = this.renderThread;
+    if (renderThread != null && renderThread != Thread.currentThread()) {
+      PENDING.add(line);
+      GdxExecutors.RENDER_THREAD.execute(DRAIN_PENDING);
+      return;
+    }
+
+    // keeps lines in the order they were written
+    drainPending();
+    addLine(line);
+  }
+
+  private void drainPending() {
+    for (String line; (line = PENDING.poll()) != null;) {
+      addLine(line);
+    }
+  }
+
+  private void addLine(@NonNull String line) {
+    OUTPUT.add(line);
     int size = OUTPUT.size();
     if (scrollOffset == size - 1) {
       scrollOffset = size;
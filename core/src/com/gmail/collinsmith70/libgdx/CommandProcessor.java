@@ -1,10 +1,15 @@
 package com.gmail.collinsmith70.libgdx;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.Gdx;
 import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.command.CommandJobs;
 import com.gmail.collinsmith70.command.CommandManager;
 import com.gmail.collinsmith70.command.Parameter;
 import com.gmail.collinsmith70.command.ParameterException;
@@ -13,20 +18,180 @@ import com.gmail.collinsmith70.serializer.SerializeException;
 import com.gmail.collinsmith70.util.StringUtils;
 import com.gmail.collinsmith70.validator.ValidationException;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 
 import static com.gmail.collinsmith70.util.StringUtils.parseArgs;
 
+/**
+ * Processes console input as commands. Command lines are {@linkplain Command.Instance#compile
+ * compiled} the first time they are processed and kept within a least-recently-used cache keyed by
+ * the input text, so lines which are processed repeatedly, e.g., by key bindings or scripts, are
+ * not parsed, resolved, validated or deserialized again.
+ * <p>
+ * Commands can be chained using {@code ;}, the output of a command can be piped into the
+ * {@linkplain Command.Instance#in input} of the next using {@code |}, and the output of the last
+ * can be redirected into a file using {@code >} or {@code >>}, e.g.,
+ * {@code cvars | grep Sound > sound.txt}. Operators within quotes are ignored.
+ */
 public class CommandProcessor implements Console.Processor, Console.SuggestionProvider {
 
   private static final String TAG = "CommandProcessor";
 
+  /**
+   * Default number of compiled command lines which are cached.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 128;
+
+  /**
+   * Size of the buffer which output redirected into a file is written through.
+   */
+  private static final int REDIRECT_BUFFER_SIZE = 8192;
+
+  /**
+   * Operators which chain ({@code ;}), pipe ({@code |}) and redirect ({@code >}) commands.
+   */
+  private static final String OPERATORS = ";|>";
+
   @NonNull
   private final CommandManager COMMANDS;
 
+  @NonNull
+  private final Map<String, Command.Instance> COMPILED;
+
+  /**
+   * {@linkplain CommandManager#getModCount Modification count} of {@link #COMMANDS} when
+   * {@link #COMPILED} was last valid.
+   */
+  private int modCount;
+
+  private long hits;
+
+  private long misses;
+
+  /**
+   * Jobs which {@linkplain Command#isAsync asynchronous} commands are submitted to, or
+   * {@code null} if they are executed synchronously.
+   */
+  @Nullable
+  private volatile CommandJobs jobs;
+
   public CommandProcessor(@NonNull CommandManager commandManager) {
+    this(commandManager, DEFAULT_CACHE_SIZE);
+  }
+
+  public CommandProcessor(@NonNull CommandManager commandManager, final int cacheSize) {
+    Preconditions.checkArgument(commandManager != null, "commandManager cannot be null");
+    Preconditions.checkArgument(cacheSize >= 0, "cacheSize cannot be negative");
     this.COMMANDS = commandManager;
+    this.COMPILED = new LinkedHashMap<String, Command.Instance>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Command.Instance> eldest) {
+        return size() > cacheSize;
+      }
+    };
+    this.modCount = commandManager.getModCount();
+  }
+
+  @NonNull
+  public CommandManager getCommandManager() {
+    return COMMANDS;
+  }
+
+  @Nullable
+  public CommandJobs getJobs() {
+    return jobs;
+  }
+
+  /**
+   * Sets the jobs which {@linkplain Command#isAsync asynchronous} commands are submitted to, or
+   * {@code null} to execute them synchronously. The output and failures of submitted commands are
+   * printed to the console which processed them once they are delivered by the jobs.
+   */
+  public void setJobs(@Nullable CommandJobs jobs) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * Returns the compiled form of the specified command line, or {@code null} if it does not start
+   * with the alias of a command. Lines whose arguments are invalid are returned uncompiled, and are
+   * not cached, so that executing them reports why they are invalid.
+   */
+  @Nullable
+  public Command.Instance compile(@NonNull String line) {
+    synchronized (COMPILED) {
+      final int modCount = COMMANDS.getModCount();
+      if (this.modCount != modCount) {
+        // aliases may have been reassigned since the cached lines were resolved
+        COMPILED.clear();
+        this.modCount = modCount;
+      }
+
+      final Command.Instance cached = COMPILED.get(line);
+      if (cached != null) {
+        hits++;
+        return cached;
+      }
+
+      misses++;
+    }
+
+    final String[] args = parseArgs(line);
+    final Command command = args.length == 0 ? null : COMMANDS.get(args[0]);
+    if (command == null) {
+      return null;
+    }
+
+    final Command.Instance instance = command.newInstance(args);
+    try {
+      instance.compile();
+    } catch (ValidationException e) {
+      return instance;
+    }
+
+    synchronized (COMPILED) {
+      COMPILED.put(line, instance);
+    }
+
+    return instance;
+  }
+
+  /**
+   * Discards every cached command line.
+   */
+  public void clearCache() {
+    synchronized (COMPILED) {
+      COMPILED.clear();
+    }
+  }
+
+  public long getCacheHits() {
+    synchronized (COMPILED) {
+      return hits;
+    }
+  }
+
+  public long getCacheMisses() {
+    synchronized (COMPILED) {
+      return misses;
+    }
   }
 
   @Override
@@ -97,26 +262,236 @@ public class CommandProcessor implements Console.Processor, Console.SuggestionPr
 
   @Override
   public boolean process(@NonNull Console console, @NonNull String buffer) {
-    String[] args = parseArgs(buffer);
-    Command cmd = COMMANDS.get(args[0]);
-    if (cmd == null) {
-      return false;
+    if (indexOfOperator(buffer) == -1) {
+      Command.Instance instance = compile(buffer);
+      if (instance == null) {
+        return false;
+      }
+
+      execute(console, instance);
+      return true;
+    }
+
+    int start = 0;
+    for (int end; start <= buffer.length(); start = end + 1) {
+      end = indexOfUnquoted(buffer, ";", start, buffer.length());
+      if (end == -1) {
+        end = buffer.length();
+      }
+
+      String line = buffer.substring(start, end);
+      if (!line.trim().isEmpty()) {
+        processPipeline(console, line);
+      }
     }
 
+    return true;
+  }
+
+  /**
+   * Executes a line which may pipe the output of each command into the next, i.e.,
+   * {@code a | b}, and may redirect the output of the last into a file, i.e., {@code a > file} or
+   * {@code a >> file} to append to it. Output passed between commands is buffered in memory.
+   */
+  private void processPipeline(@NonNull Console console, @NonNull String line) {
+    String fileName = null;
+    boolean append = false;
+    int redirect = indexOfUnquoted(line, ">", 0, line.length());
+    if (redirect != -1) {
+      append = redirect + 1 < line.length() && line.charAt(redirect + 1) == '>';
+      String[] args = parseArgs(line.substring(append ? redirect + 2 : redirect + 1));
+      if (args.length != 1) {
+        console.println("Expected a single file to redirect output into");
+        return;
+      }
+
+      fileName = args[0];
+      line = line.substring(0, redirect);
+    }
+
+    List<Command.Instance> pipeline = new ArrayList<>(1);
+    int start = 0;
+    for (int end; start <= line.length(); start = end + 1) {
+      end = indexOfUnquoted(line, "|", start, line.length());
+      if (end == -1) {
+        end = line.length();
+      }
+
+      String stage = line.substring(start, end).trim();
+      Command.Instance instance = compile(stage);
+      if (instance == null) {
+        onUnprocessed(console, stage);
+        return;
+      }
+
+      pipeline.add(instance);
+    }
+
+    if (fileName == null && pipeline.size() == 1) {
+      execute(console, pipeline.get(0));
+      return;
+    }
+
+    PrintStream out = console;
+    if (fileName != null) {
+      try {
+        out = openRedirect(fileName, append);
+      } catch (IOException e) {
+        console.format("Failed to open %s: %s%n", fileName, e.getMessage());
+        return;
+      }
+    }
+
+    try {
+      Reader in = null;
+      for (int i = 0, last = pipeline.size() - 1; i <= last; i++) {
+        ByteArrayOutputStream pipe = i < last ? new ByteArrayOutputStream() : null;
+        PrintStream stageOut = pipe != null ? newPrintStream(pipe) : out;
+        try {
+          pipeline.get(i).execute(stageOut, in);
+        } catch (Exception e) {
+          onFailed(console, e);
+          return;
+        }
+
+        if (pipe != null) {
+          stageOut.flush();
+          in = new InputStreamReader(new ByteArrayInputStream(pipe.toByteArray()), Charsets.UTF_8);
+        }
+      }
+    } finally {
+      if (out != console) {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Executes the specified instance, submitting it to the {@linkplain #setJobs jobs} if it is
+   * {@linkplain Command#isAsync asynchronous}, e.g., for instances executed by key bindings or
+   * scheduled tasks rather than by a console.
+   *
+   * @param l Listener notified once a submitted instance has been executed, or {@code null}
+   *
+   * @return The job which the instance was submitted as, or {@code null} if it was executed on the
+   *         calling thread
+   *
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the instance is invalid
+   */
+  @Nullable
+  public CommandJobs.Job execute(@NonNull Command.Instance instance,
+                                 @Nullable CommandJobs.Listener l) {
+    Preconditions.checkArgument(instance != null, "instance cannot be null");
+    final CommandJobs jobs = this.jobs;
+    if (jobs != null && instance.getCommand().isAsync()) {
+      // invalid instances are rejected here rather than on the worker
+      return jobs.submit(instance.compile(), l);
+    }
+
+    instance.execute();
+    return null;
+  }
+
+  /**
+   * Executes a single instance, submitting it to {@link #jobs} if it is
+   * {@linkplain Command#isAsync asynchronous}. Lines which chain, pipe or redirect commands are
+   * executed synchronously.
+   */
+  private void execute(@NonNull final Console console, @NonNull Command.Instance instance) {
     try {
-      cmd.newInstance(args).execute();
-    } catch (SerializeException|ValidationException|ParameterException e) {
+      CommandJobs jobs = this.jobs;
+      if (jobs != null && instance.getCommand().isAsync()) {
+        // invalid lines are rejected here rather than on the worker
+        jobs.submit(instance.compile(), new CommandJobs.Listener() {
+          @Override
+          public void onCompleted(@NonNull CommandJobs.Job job) {
+            console.print(job.getOutput());
+          }
+
+          @Override
+          public void onFailed(@NonNull CommandJobs.Job job, @NonNull Throwable t) {
+            console.print(job.getOutput());
+            if (t instanceof Exception) {
+              CommandProcessor.this.onFailed(console, (Exception) t);
+            } else {
+              Gdx.app.error(TAG, t.getClass().getName() + ": " + t.getMessage(), t);
+            }
+          }
+        });
+      } else {
+        instance.execute(console, null);
+      }
+    } catch (Exception e) {
+      onFailed(console, e);
+    }
+  }
+
+  @NonNull
+  private static PrintStream openRedirect(@NonNull String fileName, boolean append)
+      throws IOException {
+    File file = Gdx.files.local(fileName).file();
+    File parent = file.getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+
+    FileChannel channel = new FileOutputStream(file, append).getChannel();
+    return newPrintStream(
+        new BufferedOutputStream(Channels.newOutputStream(channel), REDIRECT_BUFFER_SIZE));
+  }
+
+  @NonNull
+  private static PrintStream newPrintStream(@NonNull OutputStream out) {
+    try {
+      return new PrintStream(out, false, Charsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Returns the index of the first unquoted {@code ;}, {@code |} or {@code >} within the specified
+   * line, or {@code -1} if it is a single command which {@link #compile} can resolve.
+   */
+  /*package*/ static int indexOfOperator(@NonNull String line) {
+    return indexOfUnquoted(line, OPERATORS, 0, line.length());
+  }
+
+  /**
+   * Returns the index of the first unquoted occurrence of any of {@code operators} within the
+   * specified range of {@code str}, or {@code -1} if there is none.
+   */
+  private static int indexOfUnquoted(@NonNull String str, @NonNull String operators,
+                                     int start, int end) {
+    char quote = 0;
+    for (int i = start; i < end; i++) {
+      char ch = str.charAt(i);
+      if (quote != 0) {
+        if (ch == quote) {
+          quote = 0;
+        }
+      } else if (ch == '"' || ch == '\'') {
+        quote = ch;
+      } else if (operators.indexOf(ch) != -1) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private void onFailed(@NonNull Console console, @NonNull Exception e) {
+    if (e instanceof SerializeException || e instanceof ValidationException
+        || e instanceof ParameterException) {
       String message = e.getMessage();
       if (message != null) {
         console.println(message);
       }
 
       //Gdx.app.error(TAG, e.getClass().getName() + ": " + e.getMessage(), e);
-    } catch (Exception e) {
+    } else {
       Gdx.app.error(TAG, e.getClass().getName() + ": " + e.getMessage(), e);
     }
-
-    return true;
   }
 
   @Override
@@ -0,0 +1,459 @@
+package com.gmail.collinsmith70.libgdx;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Gdx;
+import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.command.CommandJobs;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes command lines after a number of frames or milliseconds, optionally repeating them,
+ * e.g., to script stress tests and benchmarks within the console. The scheduler is driven by
+ * calling {@link #update} once per frame, which executes due tasks until the per-frame
+ * {@linkplain #setBudget budget} is spent and leaves the rest due for the next frame. At least one
+ * due task is executed each frame so that tasks cannot be starved.
+ * <p>
+ * Command lines are {@linkplain CommandProcessor#compile compiled} when they are scheduled, so
+ * executing a task does not parse, resolve or validate them again. Tasks whose commands are
+ * {@linkplain Command#isAsync asynchronous} are submitted to the
+ * {@linkplain CommandProcessor#getJobs jobs}, and are not executed again until their previous
+ * execution has finished.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class CommandScheduler {
+
+  private static final String TAG = "CommandScheduler";
+
+  /**
+   * Number of times to execute tasks which repeat until they are cancelled.
+   */
+  public static final int FOREVER = -1;
+
+  public static final long DEFAULT_BUDGET = TimeUnit.MILLISECONDS.toNanos(2);
+
+  public enum Unit {
+    FRAMES,
+    MILLISECONDS
+  }
+
+  /**
+   * Orders tasks by when they are due, then by when they were scheduled. Times are compared by
+   * their difference so that {@link System#nanoTime} may overflow.
+   */
+  private static final Comparator<Task> DUE_ORDER = new Comparator<Task>() {
+    @Override
+    public int compare(Task t1, Task t2) {
+      final long diff = t1.due - t2.due;
+      if (diff != 0) {
+        return diff < 0 ? -1 : 1;
+      }
+
+      return t1.ID - t2.ID;
+    }
+  };
+
+  @NonNull
+  private final CommandProcessor PROCESSOR;
+
+  @NonNull
+  private final PriorityQueue<Task> FRAME_TASKS;
+
+  @NonNull
+  private final PriorityQueue<Task> TIME_TASKS;
+
+  /**
+   * Tasks which have not finished or been cancelled, keyed by their ids.
+   */
+  @NonNull
+  private final Map<Integer, Task> TASKS;
+
+  /**
+   * Tasks which are due within the current frame. Reused between frames.
+   */
+  @NonNull
+  private final List<Task> DUE;
+
+  private int ids;
+
+  private long frame;
+
+  private long budget;
+
+  /**
+   * Number of times a due task was deferred to the next frame because the budget was spent.
+   */
+  private long deferred;
+
+  public CommandScheduler(@NonNull CommandProcessor processor) {
+    Preconditions.checkArgument(processor != null, "processor cannot be null");
+    this.PROCESSOR = processor;
+    this.FRAME_TASKS = new PriorityQueue<>(16, DUE_ORDER);
+    this.TIME_TASKS = new PriorityQueue<>(16, DUE_ORDER);
+    this.TASKS = new TreeMap<>();
+    this.DUE = new ArrayList<>();
+    this.budget = DEFAULT_BUDGET;
+  }
+
+  public synchronized long getBudget(@NonNull TimeUnit unit) {
+    return unit.convert(budget, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sets the time which due tasks may be executed for within each frame.
+   */
+  public synchronized void setBudget(long budget, @NonNull TimeUnit unit) {
+    Preconditions.checkArgument(budget >= 0, "budget cannot be negative");
+    this.budget = unit.toNanos(budget);
+  }
+
+  public synchronized long getFrame() {
+    return frame;
+  }
+
+  public synchronized long getDeferred() {
+    return deferred;
+  }
+
+  /**
+   * Schedules the specified command line using an interval such as {@code 30} or {@code 30f}
+   * frames, {@code 250ms} or {@code 2s}.
+   *
+   * @see #schedule(Command.Instance, long, Unit, int)
+   */
+  @NonNull
+  public Task schedule(@NonNull String line, @NonNull String interval, int count) {
+    Preconditions.checkArgument(line != null, "line cannot be null");
+    Preconditions.checkArgument(interval != null, "interval cannot be null");
+    final Unit unit;
+    final String value;
+    if (interval.endsWith("ms")) {
+      unit = Unit.MILLISECONDS;
+      value = interval.substring(0, interval.length() - 2);
+    } else if (interval.endsWith("s")) {
+      unit = Unit.MILLISECONDS;
+      value = interval.substring(0, interval.length() - 1);
+    } else if (interval.endsWith("f")) {
+      unit = Unit.FRAMES;
+      value = interval.substring(0, interval.length() - 1);
+    } else {
+      unit = Unit.FRAMES;
+      value = interval;
+    }
+
+    long parsed;
+    try {
+      parsed = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("\"%s\" is not an interval, "
+          + "e.g., 30 (frames), 250ms or 2s", interval));
+    }
+
+    if (unit == Unit.MILLISECONDS && !interval.endsWith("ms")) {
+      parsed = TimeUnit.SECONDS.toMillis(parsed);
+    }
+
+    if (CommandProcessor.indexOfOperator(line) != -1) {
+      throw new IllegalArgumentException(String.format(
+          "\"%s\" cannot chain, pipe or redirect commands", line));
+    }
+
+    final Command.Instance instance = PROCESSOR.compile(line);
+    if (instance == null) {
+      throw new IllegalArgumentException(String.format("\"%s\" is not a command", line));
+    }
+
+    return schedule(instance.compile(), parsed, unit, count);
+  }
+
+  /**
+   * Schedules the specified instance to be executed once the specified interval has elapsed,
+   * and then again each time it elapses until it has been executed {@code count} times.
+   *
+   * @param count Number of times to execute the instance, or {@link #FOREVER}
+   *
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the instance is invalid
+   */
+  @NonNull
+  public synchronized Task schedule(@NonNull Command.Instance instance, long interval,
+                                    @NonNull Unit unit, int count) {
+    Preconditions.checkArgument(instance != null, "instance cannot be null");
+    Preconditions.checkArgument(unit != null, "unit cannot be null");
+    Preconditions.checkArgument(interval > 0, "interval must be positive");
+    Preconditions.checkArgument(count > 0 || count == FOREVER,
+        "count must be positive or FOREVER");
+    final Task task = new Task(++ids, instance.compile(), interval, unit, count);
+    TASKS.put(task.ID, task);
+    enqueue(task);
+    return task;
+  }
+
+  private void enqueue(@NonNull Task task) {
+    switch (task.UNIT) {
+      case FRAMES:
+        task.due = frame + task.INTERVAL;
+        FRAME_TASKS.add(task);
+        break;
+      case MILLISECONDS:
+        task.due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(task.INTERVAL);
+        TIME_TASKS.add(task);
+        break;
+      default:
+        throw new AssertionError(task.UNIT);
+    }
+  }
+
+  /**
+   * Advances to the next frame and executes the tasks which are due, within the budget. Should
+   * be called once per frame on the render thread.
+   */
+  public synchronized void update() {
+    frame++;
+    final long start = System.nanoTime();
+    while (!FRAME_TASKS.isEmpty() && FRAME_TASKS.peek().due <= frame) {
+      DUE.add(FRAME_TASKS.poll());
+    }
+
+    while (!TIME_TASKS.isEmpty() && TIME_TASKS.peek().due - start <= 0) {
+      DUE.add(TIME_TASKS.poll());
+    }
+
+    final int size = DUE.size();
+    int i = 0;
+    for (; i < size; i++) {
+      if (i > 0 && System.nanoTime() - start >= budget) {
+        break;
+      }
+
+      execute(DUE.get(i));
+    }
+
+    for (; i < size; i++) {
+      // still due, so they are executed first next frame
+      final Task task = DUE.get(i);
+      (task.UNIT == Unit.FRAMES ? FRAME_TASKS : TIME_TASKS).add(task);
+      deferred++;
+    }
+
+    DUE.clear();
+  }
+
+  private void execute(@NonNull Task task) {
+    if (task.cancelled) {
+      return;
+    }
+
+    if (task.job != null) {
+      // the previous execution has not finished yet, so this one is skipped
+      enqueue(task);
+      return;
+    }
+
+    task.executions++;
+    try {
+      task.job = PROCESSOR.execute(task.INSTANCE, task.INSTANCE.getCommand().isAsync()
+          ? new JobListener(task) : null);
+    } catch (RuntimeException e) {
+      onFailed(task, e);
+      return;
+    }
+
+    if (task.cancelled) {
+      return;
+    } else if (task.COUNT != FOREVER && task.executions >= task.COUNT) {
+      TASKS.remove(task.ID);
+      return;
+    }
+
+    enqueue(task);
+  }
+
+  private synchronized void onFailed(@NonNull Task task, @NonNull Throwable t) {
+    Gdx.app.error(TAG, String.format("cancelled [%d] %s: %s", task.ID, task, t.getMessage()));
+    cancel(task);
+  }
+
+  /**
+   * Cancels the task with the specified id.
+   *
+   * @return Whether or not there was such a task
+   */
+  public synchronized boolean cancel(int id) {
+    final Task task = TASKS.get(id);
+    if (task == null) {
+      return false;
+    }
+
+    cancel(task);
+    return true;
+  }
+
+  private void cancel(@NonNull Task task) {
+    task.cancelled = true;
+    TASKS.remove(task.ID);
+    (task.UNIT == Unit.FRAMES ? FRAME_TASKS : TIME_TASKS).remove(task);
+  }
+
+  public synchronized void cancelAll() {
+    for (Task task : TASKS.values()) {
+      task.cancelled = true;
+    }
+
+    TASKS.clear();
+    FRAME_TASKS.clear();
+    TIME_TASKS.clear();
+  }
+
+  @Nullable
+  public synchronized Task getTask(int id) {
+    return TASKS.get(id);
+  }
+
+  /**
+   * Returns the tasks which have not finished or been cancelled, in the order they were scheduled.
+   */
+  @NonNull
+  public synchronized List<Task> getTasks() {
+    return new ArrayList<>(TASKS.values());
+  }
+
+  /**
+   * Returns the number of frames or milliseconds, depending on its unit, until the specified task
+   * is next due.
+   */
+  public synchronized long getRemaining(@NonNull Task task) {
+    switch (task.UNIT) {
+      case FRAMES:
+        return Math.max(task.due - frame, 0);
+      case MILLISECONDS:
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(task.due - System.nanoTime()), 0);
+      default:
+        throw new AssertionError(task.UNIT);
+    }
+  }
+
+  /**
+   * Receives the outcome of an execution of a task which was submitted to the
+   * {@linkplain CommandProcessor#getJobs jobs} because its command is
+   * {@linkplain Command#isAsync asynchronous}.
+   */
+  private final class JobListener implements CommandJobs.Listener {
+
+    @NonNull
+    private final Task TASK;
+
+    JobListener(@NonNull Task task) {
+      this.TASK = task;
+    }
+
+    @Override
+    public void onCompleted(@NonNull CommandJobs.Job job) {
+      synchronized (CommandScheduler.this) {
+        TASK.job = null;
+      }
+    }
+
+    @Override
+    public void onFailed(@NonNull CommandJobs.Job job, @NonNull Throwable t) {
+      synchronized (CommandScheduler.this) {
+        TASK.job = null;
+        CommandScheduler.this.onFailed(TASK, t);
+      }
+    }
+
+  }
+
+  /**
+   * A command instance which has been scheduled by a {@link CommandScheduler}.
+   */
+  public static final class Task {
+
+    private final int ID;
+
+    @NonNull
+    private final Command.Instance INSTANCE;
+
+    private final long INTERVAL;
+
+    @NonNull
+    private final Unit UNIT;
+
+    private final int COUNT;
+
+    /**
+     * Frame or {@link System#nanoTime} when this task is next due, depending on {@link #UNIT}.
+     */
+    private long due;
+
+    private int executions;
+
+    /**
+     * Job of the previous execution of this task if it was submitted to the jobs and has not
+     * finished yet, otherwise {@code null}.
+     */
+    @Nullable
+    private CommandJobs.Job job;
+
+    private volatile boolean cancelled;
+
+    private Task(int id, @NonNull Command.Instance instance, long interval, @NonNull Unit unit,
+                 int count) {
+      this.ID = id;
+      this.INSTANCE = instance;
+      this.INTERVAL = interval;
+      this.UNIT = unit;
+      this.COUNT = count;
+    }
+
+    public int getId() {
+      return ID;
+    }
+
+    @NonNull
+    public Command.Instance getInstance() {
+      return INSTANCE;
+    }
+
+    public long getInterval() {
+      return INTERVAL;
+    }
+
+    @NonNull
+    public Unit getUnit() {
+      return UNIT;
+    }
+
+    /**
+     * Returns the number of times this task is executed, or {@link #FOREVER}.
+     */
+    public int getCount() {
+      return COUNT;
+    }
+
+    public int getExecutions() {
+      return executions;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+      return INSTANCE.toString();
+    }
+
+  }
+
+}
@@ -0,0 +1,213 @@
+package com.gmail.collinsmith70.libgdx;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.command.CommandManager;
+import com.gmail.collinsmith70.command.ParameterException;
+import com.gmail.collinsmith70.serializer.SerializeException;
+import com.gmail.collinsmith70.validator.ValidationException;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.gmail.collinsmith70.util.StringUtils.parseArgs;
+
+/**
+ * A script of console commands which has been resolved against a {@link CommandManager}, so that
+ * it can be executed any number of times without parsing it again. Each non-empty line of the
+ * script is a single command, and lines starting with {@code //} or {@code #} are comments. Lines
+ * which chain, pipe or redirect commands are not supported and are reported as errors.
+ *
+ * @see CommandScripts
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class CommandScript {
+
+  /**
+   * Parses the specified source and resolves each of its commands.
+   *
+   * @param name   Name of the script used when reporting errors, e.g., its file name
+   * @param source Contents of the script
+   */
+  @NonNull
+  public static CommandScript compile(@NonNull CommandManager commands, @NonNull String name,
+                                      @NonNull String source) {
+    Preconditions.checkArgument(commands != null, "commands cannot be null");
+    Preconditions.checkArgument(source != null, "source cannot be null");
+    final List<Line> lines = new ArrayList<>();
+    final String[] split = source.split("\r?\n");
+    for (int i = 0; i < split.length; i++) {
+      final String text = split[i].trim();
+      if (text.isEmpty() || text.startsWith("//") || text.startsWith("#")) {
+        continue;
+      }
+
+      if (CommandProcessor.indexOfOperator(text) != -1) {
+        lines.add(new Line(i + 1, text, null,
+            "Commands cannot be chained, piped or redirected within a script"));
+        continue;
+      }
+
+      final String[] args = parseArgs(text);
+      final Command command = args.length == 0 ? null : commands.get(args[0]);
+      if (command == null) {
+        lines.add(new Line(i + 1, text, null,
+            "Unrecognized command \"" + (args.length == 0 ? text : args[0]) + "\""));
+      } else {
+        final Command.Instance instance = command.newInstance(args);
+        try {
+          instance.compile();
+        } catch (ValidationException e) {
+          // validated again and reported when the script is executed
+        }
+
+        lines.add(new Line(i + 1, text, instance, null));
+      }
+    }
+
+    return new CommandScript(name, lines.toArray(new Line[lines.size()]));
+  }
+
+  @NonNull
+  private final String NAME;
+
+  @NonNull
+  private final Line[] LINES;
+
+  private CommandScript(@NonNull String name, @NonNull Line[] lines) {
+    this.NAME = name;
+    this.LINES = lines;
+  }
+
+  @NonNull
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Returns the number of commands in this script, including those which could not be resolved.
+   */
+  public int size() {
+    return LINES.length;
+  }
+
+  /**
+   * Executes each command within this script in order. Commands which fail do not stop the
+   * commands after them from being executed.
+   */
+  @NonNull
+  public Report execute() {
+    final long[] nanos = new long[LINES.length];
+    final String[] errors = new String[LINES.length];
+    final long start = System.nanoTime();
+    for (int i = 0; i < LINES.length; i++) {
+      final Line line = LINES[i];
+      if (line.INSTANCE == null) {
+        errors[i] = line.ERROR;
+        continue;
+      }
+
+      final long lineStart = System.nanoTime();
+      try {
+        line.INSTANCE.execute();
+      } catch (SerializeException|ValidationException|ParameterException e) {
+        errors[i] = String.valueOf(e.getMessage());
+      } catch (Exception e) {
+        errors[i] = e.getClass().getName() + ": " + e.getMessage();
+      } finally {
+        nanos[i] = System.nanoTime() - lineStart;
+      }
+    }
+
+    return new Report(System.nanoTime() - start, nanos, errors);
+  }
+
+  private static final class Line {
+
+    final int NUMBER;
+
+    @NonNull
+    final String TEXT;
+
+    @Nullable
+    final Command.Instance INSTANCE;
+
+    @Nullable
+    final String ERROR;
+
+    Line(int number, @NonNull String text, @Nullable Command.Instance instance,
+         @Nullable String error) {
+      this.NUMBER = number;
+      this.TEXT = text;
+      this.INSTANCE = instance;
+      this.ERROR = error;
+    }
+
+  }
+
+  /**
+   * The outcome of an execution of a {@link CommandScript}.
+   */
+  public final class Report {
+
+    private final long NANOS;
+
+    @NonNull
+    private final long[] LINE_NANOS;
+
+    @NonNull
+    private final String[] ERRORS;
+
+    private final int FAILURES;
+
+    private Report(long nanos, @NonNull long[] lineNanos, @NonNull String[] errors) {
+      this.NANOS = nanos;
+      this.LINE_NANOS = lineNanos;
+      this.ERRORS = errors;
+      int failures = 0;
+      for (String error : errors) {
+        if (error != null) {
+          failures++;
+        }
+      }
+
+      this.FAILURES = failures;
+    }
+
+    public int getFailures() {
+      return FAILURES;
+    }
+
+    public long getTime(@NonNull TimeUnit unit) {
+      return unit.convert(NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Prints each error, prefixed by the script name and line number, followed by a summary.
+     *
+     * @param timings Whether or not to also print the time taken by each command
+     */
+    public void print(@NonNull PrintStream out, boolean timings) {
+      for (int i = 0; i < LINES.length; i++) {
+        final Line line = LINES[i];
+        if (ERRORS[i] != null) {
+          out.printf("%s:%d: %s%n", NAME, line.NUMBER, ERRORS[i]);
+        } else if (timings) {
+          out.printf("%s:%d: %dus %s%n", NAME, line.NUMBER,
+              TimeUnit.NANOSECONDS.toMicros(LINE_NANOS[i]), line.TEXT);
+        }
+      }
+
+      out.printf("Executed %s: %d commands in %dms, %d failed%n",
+          NAME, LINES.length, getTime(TimeUnit.MILLISECONDS), FAILURES);
+    }
+
+  }
+
+}
@@ -0,0 +1,169 @@
+package com.gmail.collinsmith70.libgdx;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.gmail.collinsmith70.command.CommandManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads and executes {@link CommandScript} files. Compiled scripts are cached by file along with
+ * the hash of their contents, so a script is only parsed and resolved again once it has been
+ * modified, or once commands have been added or removed since it was compiled.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class CommandScripts {
+
+  /**
+   * Maximum number of scripts which may be executed within one another, e.g., a script which
+   * executes itself.
+   */
+  private static final int MAX_DEPTH = 8;
+
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  @NonNull
+  private final CommandManager COMMANDS;
+
+  @NonNull
+  private final FileHandleResolver[] RESOLVERS;
+
+  @NonNull
+  private final Map<String, Compiled> CACHE;
+
+  /**
+   * {@linkplain CommandManager#getModCount Modification count} of {@link #COMMANDS} when
+   * {@link #CACHE} was last valid.
+   */
+  private int modCount;
+
+  private int depth;
+
+  private int hits;
+
+  private int misses;
+
+  /**
+   * @param resolvers Resolvers which file names are resolved against, in order of precedence
+   */
+  public CommandScripts(@NonNull CommandManager commands,
+                        @NonNull FileHandleResolver... resolvers) {
+    Preconditions.checkArgument(commands != null, "commands cannot be null");
+    Preconditions.checkArgument(resolvers.length > 0, "at least one resolver must be specified");
+    this.COMMANDS = commands;
+    this.RESOLVERS = resolvers;
+    this.CACHE = new HashMap<>();
+    this.modCount = commands.getModCount();
+  }
+
+  /**
+   * Returns the first existing file with the specified name, or {@code null} if none exist.
+   */
+  @Nullable
+  public FileHandle resolve(@NonNull String fileName) {
+    for (FileHandleResolver resolver : RESOLVERS) {
+      FileHandle handle = resolver.resolve(fileName);
+      if (handle != null && handle.exists() && !handle.isDirectory()) {
+        return handle;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Reads and compiles the specified script, or returns the cached compilation if its contents
+   * have not changed since it was last compiled.
+   */
+  @NonNull
+  public CommandScript load(@NonNull FileHandle file) {
+    final int modCount = COMMANDS.getModCount();
+    if (this.modCount != modCount) {
+      // aliases may have been reassigned since the cached scripts were resolved
+      CACHE.clear();
+      this.modCount = modCount;
+    }
+
+    final byte[] bytes = file.readBytes();
+    final HashCode hash = HASH.hashBytes(bytes);
+    final String path = file.path();
+    Compiled compiled = CACHE.get(path);
+    if (compiled != null && compiled.HASH.equals(hash)) {
+      hits++;
+      return compiled.SCRIPT;
+    }
+
+    misses++;
+    compiled = new Compiled(hash,
+        CommandScript.compile(COMMANDS, file.name(), new String(bytes, Charsets.UTF_8)));
+    CACHE.put(path, compiled);
+    return compiled.SCRIPT;
+  }
+
+  /**
+   * Executes the script with the specified name.
+   *
+   * @return The outcome of the execution, or {@code null} if no script with the specified name
+   *         exists
+   *
+   * @throws IllegalStateException if scripts are nested too deeply
+   */
+  @Nullable
+  public CommandScript.Report exec(@NonNull String fileName) {
+    final FileHandle file = resolve(fileName);
+    if (file == null) {
+      return null;
+    }
+
+    Preconditions.checkState(depth < MAX_DEPTH,
+        "Scripts cannot be nested more than %s levels deep", MAX_DEPTH);
+    final CommandScript script = load(file);
+    depth++;
+    try {
+      return script.execute();
+    } finally {
+      depth--;
+    }
+  }
+
+  /**
+   * Discards all compiled scripts.
+   */
+  public void clear() {
+    CACHE.clear();
+  }
+
+  public int getCacheHits() {
+    return hits;
+  }
+
+  public int getCacheMisses() {
+    return misses;
+  }
+
+  private static final class Compiled {
+
+    @NonNull
+    final HashCode HASH;
+
+    @NonNull
+    final CommandScript SCRIPT;
+
+    Compiled(@NonNull HashCode hash, @NonNull CommandScript script) {
+      this.HASH = hash;
+      this.SCRIPT = script;
+    }
+
+  }
+
+}
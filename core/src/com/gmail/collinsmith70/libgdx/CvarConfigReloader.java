@@ -0,0 +1,243 @@
+package com.gmail.collinsmith70.libgdx;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.Gdx;
+import com.gmail.collinsmith70.cvar.Cvar;
+import com.gmail.collinsmith70.cvar.CvarManager;
+import com.gmail.collinsmith70.cvar.CvarManager.Layer;
+import com.gmail.collinsmith70.cvar.DerivedCvar;
+import com.gmail.collinsmith70.serializer.SerializeException;
+import com.gmail.collinsmith70.serializer.StringSerializer;
+import com.gmail.collinsmith70.validator.ValidationException;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Applies the values within a config file of {@code alias=value} pairs to the
+ * {@linkplain CvarManager.Layer#CONFIG config layer} of the cvars managed by a {@link CvarManager}.
+ * Each time it is {@linkplain #run() run}, e.g., by a
+ * {@link com.gmail.collinsmith70.libgdx.util.FileWatcher}, the file is read and parsed on the
+ * calling thread. {@link CvarManager} is not thread-safe, so the entries are then compared with the
+ * config layers of their cvars on the delivery executor, and only the entries which differ are
+ * committed within a single {@link CvarManager.Transaction}. Cvars whose entries have been removed
+ * from the file have their config layers cleared.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class CvarConfigReloader implements Runnable {
+
+  private static final String TAG = "CvarConfigReloader";
+
+  @NonNull
+  private final CvarManager CVARS;
+
+  @NonNull
+  private final File FILE;
+
+  @NonNull
+  private final Executor DELIVERY;
+
+  /**
+   * @param delivery Executor which changes are committed on, e.g., the render thread
+   */
+  public CvarConfigReloader(@NonNull CvarManager cvars, @NonNull File file,
+                            @NonNull Executor delivery) {
+    Preconditions.checkArgument(cvars != null, "cvars cannot be null");
+    Preconditions.checkArgument(file != null, "file cannot be null");
+    Preconditions.checkArgument(delivery != null, "delivery cannot be null");
+    this.CVARS = cvars;
+    this.FILE = file;
+    this.DELIVERY = delivery;
+  }
+
+  @NonNull
+  public File getFile() {
+    return FILE;
+  }
+
+  @Override
+  public void run() {
+    reload();
+  }
+
+  /**
+   * Reads the config file and schedules the entries which differ from the config layers of their
+   * cvars to be applied on the delivery executor.
+   *
+   * @return The number of entries within the file, or {@code -1} if the file could not be read
+   */
+  public int reload() {
+    final Properties properties;
+    try {
+      properties = read();
+    } catch (IOException e) {
+      Gdx.app.error(TAG, "Could not read " + FILE + ": " + e.getMessage());
+      return -1;
+    }
+
+    DELIVERY.execute(new Runnable() {
+      @Override
+      public void run() {
+        final Map<Cvar, Object> changes = diff(properties);
+        final Collection<Cvar> removed = removed(properties);
+        if (!changes.isEmpty() || !removed.isEmpty()) {
+          apply(changes, removed);
+        }
+      }
+    });
+
+    return properties.size();
+  }
+
+  @NonNull
+  private Properties read() throws IOException {
+    final Properties properties = new Properties();
+    final Reader reader = new InputStreamReader(new FileInputStream(FILE), Charsets.UTF_8);
+    try {
+      properties.load(reader);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+
+    return properties;
+  }
+
+  /**
+   * Returns the deserialized value of each entry within the config file which differs from the
+   * config layer of its cvar. Entries for unknown cvars or which cannot be deserialized are
+   * skipped. This must be called on the thread the cvars are changed on, e.g., the delivery
+   * executor.
+   */
+  @NonNull
+  public Map<Cvar, Object> diff() throws IOException {
+    return diff(read());
+  }
+
+  @NonNull
+  @SuppressWarnings("unchecked")
+  private Map<Cvar, Object> diff(@NonNull Properties properties) {
+    final Map<Cvar, Object> changes = new LinkedHashMap<>();
+    for (String alias : properties.stringPropertyNames()) {
+      final Cvar cvar = CVARS.get(alias);
+      if (cvar == null) {
+        Gdx.app.error(TAG, FILE.getName() + ": Unknown cvar \"" + alias + "\"");
+        continue;
+      }
+
+      final StringSerializer serializer = CVARS.getSerializer(cvar);
+      if (serializer == null) {
+        Gdx.app.error(TAG, FILE.getName() + ": " + alias + " does not have a serializer attached");
+        continue;
+      }
+
+      final String property = properties.getProperty(alias);
+      int start = 0;
+      int end = property.length();
+      while (start < end && Character.isWhitespace(property.charAt(start))) {
+        start++;
+      }
+
+      while (end > start && Character.isWhitespace(property.charAt(end - 1))) {
+        end--;
+      }
+
+      final Object value;
+      try {
+        value = serializer.deserialize(property, start, end);
+      } catch (SerializeException e) {
+        Gdx.app.error(TAG, FILE.getName() + ": " + alias + ": " + e.getMessage());
+        continue;
+      }
+
+      if (!CVARS.isLayerSet(Layer.CONFIG, cvar)
+          || !Objects.equal(CVARS.getLayerValue(Layer.CONFIG, cvar), value)) {
+        changes.put(cvar, value);
+      }
+    }
+
+    return changes;
+  }
+
+  /**
+   * Returns the cvars whose config layers are set but which no longer have entries within the
+   * config file.
+   */
+  @NonNull
+  private Collection<Cvar> removed(@NonNull Properties properties) {
+    final Set<Cvar> present = Collections.newSetFromMap(new IdentityHashMap<Cvar, Boolean>());
+    for (String alias : properties.stringPropertyNames()) {
+      final Cvar cvar = CVARS.get(alias);
+      if (cvar != null) {
+        present.add(cvar);
+      }
+    }
+
+    final List<Cvar> removed = new ArrayList<>();
+    for (Cvar cvar : CVARS) {
+      if (!present.contains(cvar) && !(cvar instanceof DerivedCvar)
+          && CVARS.isLayerSet(Layer.CONFIG, cvar)) {
+        removed.add(cvar);
+      }
+    }
+
+    return removed;
+  }
+
+  /**
+   * Commits the specified changes in a single transaction. If any of them is invalid, the rest are
+   * applied one at a time so that a single bad entry does not discard the others.
+   */
+  @SuppressWarnings("unchecked")
+  private void apply(@NonNull Map<Cvar, Object> changes, @NonNull Collection<Cvar> removed) {
+    final CvarManager.Transaction transaction = CVARS.beginTransaction(Layer.CONFIG);
+    for (Map.Entry<Cvar, Object> entry : changes.entrySet()) {
+      transaction.set(entry.getKey(), entry.getValue());
+    }
+
+    for (Cvar cvar : removed) {
+      transaction.clear(cvar);
+    }
+
+    try {
+      final Collection<Cvar> changed = transaction.commit();
+      Gdx.app.log(TAG, String.format("Reloaded %d cvars from %s", changed.size(), FILE.getName()));
+      return;
+    } catch (ValidationException e) {
+      // fall through and find the entries at fault
+    }
+
+    for (Map.Entry<Cvar, Object> entry : changes.entrySet()) {
+      final Cvar cvar = entry.getKey();
+      try {
+        CVARS.setLayer(Layer.CONFIG, cvar, entry.getValue());
+      } catch (ValidationException e) {
+        Gdx.app.error(TAG, FILE.getName() + ": " + cvar.getAlias() + ": " + e.getMessage());
+      }
+    }
+
+    for (Cvar cvar : removed) {
+      CVARS.clearLayer(Layer.CONFIG, cvar);
+    }
+  }
+
+}
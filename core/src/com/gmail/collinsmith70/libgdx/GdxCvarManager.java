@@ -12,6 +12,11 @@ import com.gmail.collinsmith70.cvar.Cvar;
 import com.gmail.collinsmith70.cvar.SaveableCvarManager;
 import com.gmail.collinsmith70.serializer.StringSerializer;
 
+/**
+ * A {@link SaveableCvarManager} which saves cvars into {@link Preferences}. Preferences are not
+ * guaranteed to be thread-safe, so all access to them is synchronized on the preferences
+ * instance, which allows them to be written by the write-behind thread.
+ */
 public class GdxCvarManager extends SaveableCvarManager {
 
   private static final String TAG = "GdxCvarManager";
@@ -24,7 +29,7 @@ public class GdxCvarManager extends SaveableCvarManager {
   }
 
   @Override
-  public <T> void save(@NonNull Cvar<T> cvar) {
+  protected <T> void stage(@NonNull Cvar<T> cvar) {
     final String alias = cvar.getAlias();
     if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG && !isManaging(cvar)) {
       throw new CvarManagerException("%s must be managed by this CvarManager", alias);
@@ -39,14 +44,50 @@ public class GdxCvarManager extends SaveableCvarManager {
 
     final T value = cvar.get();
     final String serialization = serializer.serialize(value);
-    PREFERENCES.putString(alias, serialization);
-    PREFERENCES.flush();
+    write(alias, serialization);
     if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
       Gdx.app.debug(TAG, String.format("%s saved as \"%s\" (raw: \"%s\")",
           alias, value, serialization));
     }
   }
 
+  @Override
+  protected void commit() {
+    synchronized (PREFERENCES) {
+      PREFERENCES.flush();
+    }
+  }
+
+  /**
+   * Returns the preferences which cvars are saved in.
+   */
+  @NonNull
+  protected Preferences getPreferences() {
+    return PREFERENCES;
+  }
+
+  /**
+   * Reads the serialized value of the specified cvar from the backing store.
+   *
+   * @return The serialized value, or {@code null} if none has been saved
+   */
+  @Nullable
+  protected String read(@NonNull String alias) {
+    synchronized (PREFERENCES) {
+      return PREFERENCES.getString(alias);
+    }
+  }
+
+  /**
+   * Writes the serialized value of the specified cvar into the backing store. The value is not
+   * persisted until the next {@link #commit}.
+   */
+  protected void write(@NonNull String alias, @NonNull String serialization) {
+    synchronized (PREFERENCES) {
+      PREFERENCES.putString(alias, serialization);
+    }
+  }
+
   @Nullable
   @Override
   public <T> T load(@NonNull Cvar<T> cvar) {
@@ -64,7 +105,7 @@ public class GdxCvarManager extends SaveableCvarManager {
       }
     }
 
-    String serialization = PREFERENCES.getString(alias);
+    String serialization = read(alias);
     if (serialization == null) {
       return cvar.getDefault();
     }
@@ -79,12 +120,18 @@ public class GdxCvarManager extends SaveableCvarManager {
   }
 
   @Override
-  public void onChanged(@NonNull Cvar cvar, @Nullable Object from, @Nullable Object to) {
+  protected void onMaterializeFailed(@NonNull Cvar cvar, @NonNull RuntimeException e) {
+    Gdx.app.error(TAG, String.format("%s could not be loaded, using default value %s",
+        cvar.getAlias(), cvar.getDefault()), e);
+  }
+
+  @Override
+  protected void onCvarChanged(@NonNull Cvar cvar) {
     if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
-      Gdx.app.debug(TAG, String.format("%s changed from %s to %s", cvar.getAlias(), from, to));
+      Gdx.app.debug(TAG, String.format("%s changed to %s", cvar.getAlias(), cvar.get()));
     }
 
-    super.onChanged(cvar, from, to);
+    super.onCvarChanged(cvar);
   }
 
 }
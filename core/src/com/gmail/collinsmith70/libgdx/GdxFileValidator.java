@@ -7,7 +7,7 @@ import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
-import com.gmail.collinsmith70.validator.ValidationException;
+import com.gmail.collinsmith70.validator.ValidationResult;
 import com.gmail.collinsmith70.validator.Validator;
 
 import java.io.File;
@@ -15,6 +15,20 @@ import java.io.FilenameFilter;
 
 public class GdxFileValidator implements Validator {
 
+  @NonNull
+  private static final ValidationResult NULL = ValidationResult.failure("obj cannot be null");
+
+  @NonNull
+  private static final ValidationResult NOT_A_STRING
+      = ValidationResult.failure("obj must be a String");
+
+  @NonNull
+  private static final ValidationResult NOT_FOUND = ValidationResult.failure("File not found!");
+
+  @NonNull
+  private static final ValidationResult NOT_ACCEPTED
+      = ValidationResult.failure("File not accepted!");
+
   @NonNull
   private final FileHandleResolver RESOLVER;
 
@@ -33,31 +47,34 @@ public class GdxFileValidator implements Validator {
 
   @Override
   public void validate(@Nullable Object obj) {
+    check(obj).throwIfInvalid();
+  }
+
+  @Override
+  public boolean isValid(@Nullable Object obj) {
+    return check(obj).isValid();
+  }
+
+  @NonNull
+  @Override
+  public ValidationResult check(@Nullable Object obj) {
     if (obj == null) {
-      throw new ValidationException("obj cannot be null");
+      return NULL;
     } else if (!(obj instanceof String)) {
-      throw new ValidationException("obj must be a String");
+      return NOT_A_STRING;
     }
 
     String fileName = (String) obj;
     FileHandle handle = RESOLVER.resolve(fileName);
     if (!handle.exists()) {
-      throw new ValidationException("File not found!");
+      return NOT_FOUND;
     }
 
     File file = handle.parent() != null ? handle.parent().file() : null;
     if (FILTER != null && !FILTER.accept(file, handle.name())) {
-      throw new ValidationException("File not accepted!");
+      return NOT_ACCEPTED;
     }
-  }
 
-  @Override
-  public boolean isValid(@Nullable Object obj) {
-    try {
-      validate(obj);
-      return true;
-    } catch (Exception e) {
-      return false;
-    }
+    return ValidationResult.VALID;
   }
 }
@@ -1,5 +1,7 @@
 package com.gmail.collinsmith70.libgdx;
 
+import com.google.common.base.Strings;
+
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -15,17 +17,29 @@ import com.gmail.collinsmith70.serializer.IntArrayStringSerializer;
 import com.gmail.collinsmith70.serializer.SerializeException;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @SuppressWarnings("unused")
 public class GdxKeyMapper extends SaveableKeyMapper {
 
   private static final String TAG = "GdxKeyMapper";
 
+  /**
+   * Separates the command lines executed when a bound key is pressed and released within a saved
+   * binding. Command lines are entered into the console, so they cannot contain line breaks.
+   */
+  private static final char BINDING_SEPARATOR = '\n';
+
   @NonNull
   private final Preferences PREFERENCES;
 
+  @NonNull
+  private final Preferences BINDINGS;
+
   public GdxKeyMapper() {
     this.PREFERENCES = Gdx.app.getPreferences(GdxKeyMapper.class.getName());
+    this.BINDINGS = Gdx.app.getPreferences(GdxKeyMapper.class.getName() + ".bindings");
   }
 
   @Override
@@ -57,7 +71,7 @@ public class GdxKeyMapper extends SaveableKeyMapper {
   }
 
   @Override
-  public void save(@NonNull MappedKey key) {
+  protected void stage(@NonNull MappedKey key) {
     if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG && !isManaging(key)) {
       Gdx.app.debug(TAG, String.format("key %s is being saved by a key mapper not managing it",
           key));
@@ -65,8 +79,10 @@ public class GdxKeyMapper extends SaveableKeyMapper {
 
     int[] assignments = key.getAssignments();
     String serializedValue = IntArrayStringSerializer.INSTANCE.serialize(assignments);
-    PREFERENCES.putString(key.getAlias(), serializedValue);
-    PREFERENCES.flush();
+    synchronized (PREFERENCES) {
+      PREFERENCES.putString(key.getAlias(), serializedValue);
+    }
+
     if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
       String[] keycodeNames = getKeycodeNames(assignments);
       Gdx.app.debug(TAG, String.format("%s [%s] saved as %s (raw: \"%s\")",
@@ -74,8 +90,62 @@ public class GdxKeyMapper extends SaveableKeyMapper {
     }
   }
 
+  @Override
+  protected void commit() {
+    synchronized (PREFERENCES) {
+      PREFERENCES.flush();
+    }
+  }
+
+  /**
+   * Returns the saved {@linkplain KeyBindings key bindings}, keyed by the alias of each bound key.
+   * Each binding contains the command lines executed when the key is pressed and released, either
+   * of which may be {@code null}.
+   */
+  @NonNull
+  public Map<String, String[]> loadBindings() {
+    Map<String, String[]> bindings = new HashMap<>();
+    for (Map.Entry<String, ?> entry : BINDINGS.get().entrySet()) {
+      bindings.put(entry.getKey(), decodeBinding(String.valueOf(entry.getValue())));
+    }
+
+    return bindings;
+  }
+
+  /**
+   * Saves the command lines bound to the specified key, or removes its binding if both are
+   * {@code null}.
+   */
+  public void saveBinding(@NonNull MappedKey key, @Nullable String pressed,
+                          @Nullable String released) {
+    if (pressed == null && released == null) {
+      BINDINGS.remove(key.getAlias());
+    } else {
+      BINDINGS.putString(key.getAlias(), encodeBinding(pressed, released));
+    }
+
+    BINDINGS.flush();
+    if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+      Gdx.app.debug(TAG, String.format("%s [%s] bound to \"%s\" / \"%s\"",
+          key.getName(), key.getAlias(), pressed, released));
+    }
+  }
+
   @NonNull
-  private String[] getKeycodeNames(@NonNull int[] keycodes) {
+  /*package*/ static String encodeBinding(@Nullable String pressed, @Nullable String released) {
+    return Strings.nullToEmpty(pressed) + BINDING_SEPARATOR + Strings.nullToEmpty(released);
+  }
+
+  @NonNull
+  /*package*/ static String[] decodeBinding(@NonNull String serializedValue) {
+    int i = serializedValue.indexOf(BINDING_SEPARATOR);
+    String pressed = i == -1 ? serializedValue : serializedValue.substring(0, i);
+    String released = i == -1 ? null : serializedValue.substring(i + 1);
+    return new String[] { Strings.emptyToNull(pressed), Strings.emptyToNull(released) };
+  }
+
+  @NonNull
+  /*package*/ String[] getKeycodeNames(@NonNull int[] keycodes) {
     int i = 0;
     String[] keycodeNames = new String[keycodes.length];
     for (int keycode : keycodes) {
@@ -109,6 +179,14 @@ public class GdxKeyMapper extends SaveableKeyMapper {
     }
   }
 
+  /**
+   * Returns the preferences which key assignments are saved in.
+   */
+  @NonNull
+  protected Preferences getPreferences() {
+    return PREFERENCES;
+  }
+
   @NonNull
   public com.badlogic.gdx.InputProcessor newInputProcessor() {
     return new InputProcessor();
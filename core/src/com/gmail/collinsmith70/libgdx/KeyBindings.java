@@ -0,0 +1,385 @@
+package com.gmail.collinsmith70.libgdx;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.utils.IntMap;
+import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.command.CommandJobs;
+import com.gmail.collinsmith70.command.CommandManager;
+import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.libgdx.key.MappedKeyStateAdapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds command lines to {@linkplain MappedKey keys}, e.g., {@code bind F5 "snapshot save quick"}.
+ * Command lines are {@linkplain CommandProcessor#compile compiled} when they are bound and
+ * executed by a {@link MappedKey.StateListener} attached to the key, so dispatching a bound command
+ * does not parse, resolve, validate or allocate anything. Bindings are saved alongside the key
+ * assignments of the {@link GdxKeyMapper} which manages the bound keys.
+ * <p>
+ * Keys are looked up by the alias of a key managed by the key mapper, or by the
+ * {@linkplain Input.Keys#toString name} of a keycode, in which case a key is created for it.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class KeyBindings {
+
+  private static final String TAG = "KeyBindings";
+
+  /**
+   * Prefix of the aliases of keys created for keycodes, followed by the name of the keycode.
+   */
+  private static final String KEYCODE_PREFIX = "key.";
+
+  /**
+   * Largest keycode accepted by {@link Input.Keys#toString}.
+   */
+  private static final int MAX_KEYCODE = 255;
+
+  @NonNull
+  private final GdxKeyMapper KEYS;
+
+  @NonNull
+  private final CommandProcessor PROCESSOR;
+
+  @NonNull
+  private final CommandManager COMMANDS;
+
+  @NonNull
+  private final Map<MappedKey, Binding> BINDINGS;
+
+  /**
+   * Keys created for keycodes, keyed by their keycode.
+   */
+  @NonNull
+  private final IntMap<MappedKey> KEYCODES;
+
+  public KeyBindings(@NonNull GdxKeyMapper keys, @NonNull CommandProcessor processor) {
+    Preconditions.checkArgument(keys != null, "keys cannot be null");
+    Preconditions.checkArgument(processor != null, "processor cannot be null");
+    this.KEYS = keys;
+    this.PROCESSOR = processor;
+    this.COMMANDS = processor.getCommandManager();
+    this.BINDINGS = new HashMap<>();
+    this.KEYCODES = new IntMap<>();
+  }
+
+  /**
+   * Restores the bindings saved by the key mapper. Bindings which cannot be restored, e.g., because
+   * their command no longer exists, are skipped.
+   *
+   * @return The reasons why bindings were skipped
+   */
+  @NonNull
+  public List<Throwable> load() {
+    List<Throwable> throwables = new ArrayList<>(0);
+    for (Map.Entry<String, String[]> entry : KEYS.loadBindings().entrySet()) {
+      String alias = entry.getKey();
+      String[] binding = entry.getValue();
+      try {
+        MappedKey key = lookup(alias);
+        if (key == null) {
+          throw new IllegalArgumentException(String.format("%s is not a key", alias));
+        }
+
+        bind(key, binding[0], binding[1], false);
+      } catch (RuntimeException e) {
+        throwables.add(new IllegalStateException(String.format(
+            "Failed to restore binding of %s: %s", alias, e.getMessage()), e));
+      }
+    }
+
+    return throwables;
+  }
+
+  /**
+   * Returns the key managed by the key mapper with the specified alias, otherwise the key created
+   * for the keycode with the specified name, ignoring case, or {@code null} if there is neither.
+   */
+  @Nullable
+  public MappedKey lookup(@NonNull String name) {
+    Preconditions.checkArgument(name != null, "name cannot be null");
+    for (int keycode = MappedKey.NOT_MAPPED + 1; keycode <= MAX_KEYCODE; keycode++) {
+      for (MappedKey key : KEYS.get(keycode)) {
+        if (key.getAlias().equalsIgnoreCase(name)) {
+          return key;
+        }
+      }
+    }
+
+    if (name.regionMatches(true, 0, KEYCODE_PREFIX, 0, KEYCODE_PREFIX.length())) {
+      name = name.substring(KEYCODE_PREFIX.length());
+    }
+
+    for (int keycode = MappedKey.NOT_MAPPED + 1; keycode <= MAX_KEYCODE; keycode++) {
+      if (name.equalsIgnoreCase(Input.Keys.toString(keycode))) {
+        return getKey(keycode);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the key created for the specified keycode, creating it if it does not exist.
+   */
+  @NonNull
+  public MappedKey getKey(@MappedKey.Keycode int keycode) {
+    Preconditions.checkArgument(keycode != MappedKey.NOT_MAPPED, "keycode must be mapped");
+    synchronized (KEYCODES) {
+      MappedKey key = KEYCODES.get(keycode);
+      if (key == null) {
+        String name = Input.Keys.toString(keycode);
+        key = new MappedKey(name, KEYCODE_PREFIX + name, keycode);
+        KEYS.add(key);
+        KEYCODES.put(keycode, key);
+      }
+
+      return key;
+    }
+  }
+
+  /**
+   * Binds the specified command lines to a key, replacing its existing binding, if any.
+   *
+   * @param key      The key to bind, which should be managed by the key mapper
+   * @param pressed  The command line executed when the key is pressed, or {@code null}
+   * @param released The command line executed when the key is released, or {@code null}
+   *
+   * @throws IllegalArgumentException if a command line does not start with the alias of a command
+   *         or contains an unquoted {@code ;}, {@code |} or {@code >}
+   * @throws com.gmail.collinsmith70.validator.ValidationException if the arguments of a command
+   *         line are invalid
+   */
+  @NonNull
+  public Binding bind(@NonNull MappedKey key, @Nullable String pressed,
+                      @Nullable String released) {
+    return bind(key, pressed, released, true);
+  }
+
+  @NonNull
+  private Binding bind(@NonNull MappedKey key, @Nullable String pressed,
+                       @Nullable String released, boolean save) {
+    Preconditions.checkArgument(key != null, "key cannot be null");
+    pressed = Strings.emptyToNull(pressed);
+    released = Strings.emptyToNull(released);
+    Preconditions.checkArgument(pressed != null || released != null,
+        "at least one command line must be specified");
+    final int modCount = COMMANDS.getModCount();
+    final Command.Instance onPressed = compile(pressed);
+    final Command.Instance onReleased = compile(released);
+    Binding binding;
+    synchronized (BINDINGS) {
+      binding = BINDINGS.get(key);
+      if (binding == null) {
+        binding = new Binding(key);
+        BINDINGS.put(key, binding);
+        key.addStateListener(binding);
+      }
+    }
+
+    binding.set(pressed, onPressed, released, onReleased, modCount);
+    if (save) {
+      KEYS.saveBinding(key, pressed, released);
+    }
+
+    return binding;
+  }
+
+  /**
+   * Removes the binding of the specified key.
+   *
+   * @return Whether or not the key was bound
+   */
+  public boolean unbind(@NonNull MappedKey key) {
+    Preconditions.checkArgument(key != null, "key cannot be null");
+    Binding binding;
+    synchronized (BINDINGS) {
+      binding = BINDINGS.remove(key);
+    }
+
+    if (binding == null) {
+      return false;
+    }
+
+    key.removeStateListener(binding);
+    KEYS.saveBinding(key, null, null);
+    return true;
+  }
+
+  @Nullable
+  public Binding getBinding(@Nullable MappedKey key) {
+    synchronized (BINDINGS) {
+      return BINDINGS.get(key);
+    }
+  }
+
+  @NonNull
+  public List<Binding> getBindings() {
+    synchronized (BINDINGS) {
+      return new ArrayList<>(BINDINGS.values());
+    }
+  }
+
+  @Nullable
+  private Command.Instance compile(@Nullable String line) {
+    if (line == null) {
+      return null;
+    }
+
+    if (CommandProcessor.indexOfOperator(line) != -1) {
+      throw new IllegalArgumentException(String.format(
+          "\"%s\" cannot chain, pipe or redirect commands", line));
+    }
+
+    Command.Instance instance = PROCESSOR.compile(line);
+    if (instance == null) {
+      throw new IllegalArgumentException(String.format("\"%s\" is not a command", line));
+    }
+
+    return instance.compile();
+  }
+
+  /**
+   * The command lines bound to a key.
+   */
+  public final class Binding extends MappedKeyStateAdapter {
+
+    @NonNull
+    private final MappedKey KEY;
+
+    @Nullable
+    private String pressed;
+
+    @Nullable
+    private String released;
+
+    @Nullable
+    private volatile Command.Instance onPressed;
+
+    @Nullable
+    private volatile Command.Instance onReleased;
+
+    /**
+     * {@linkplain CommandManager#getModCount Modification count} of {@link #COMMANDS} when the
+     * command lines were compiled.
+     */
+    private volatile int modCount;
+
+    /**
+     * Reports failures of {@linkplain Command#isAsync asynchronous} commands once they are
+     * delivered by the jobs.
+     */
+    @NonNull
+    private final CommandJobs.Listener JOB_LISTENER = new CommandJobs.Listener() {
+      @Override
+      public void onCompleted(@NonNull CommandJobs.Job job) {}
+
+      @Override
+      public void onFailed(@NonNull CommandJobs.Job job, @NonNull Throwable t) {
+        Binding.this.onFailed(t);
+      }
+    };
+
+    private Binding(@NonNull MappedKey key) {
+      this.KEY = key;
+    }
+
+    private synchronized void set(@Nullable String pressed, @Nullable Command.Instance onPressed,
+                                  @Nullable String released, @Nullable Command.Instance onReleased,
+                                  int modCount) {
+      this.pressed = pressed;
+      this.released = released;
+      this.onPressed = onPressed;
+      this.onReleased = onReleased;
+      this.modCount = modCount;
+    }
+
+    @NonNull
+    public MappedKey getKey() {
+      return KEY;
+    }
+
+    @Nullable
+    public synchronized String getPressed() {
+      return pressed;
+    }
+
+    @Nullable
+    public synchronized String getReleased() {
+      return released;
+    }
+
+    @Override
+    public void onPressed(@NonNull MappedKey key, @MappedKey.Keycode int keycode) {
+      if (modCount != COMMANDS.getModCount()) {
+        recompile();
+      }
+
+      execute(onPressed);
+    }
+
+    @Override
+    public void onDepressed(@NonNull MappedKey key, @MappedKey.Keycode int keycode) {
+      if (modCount != COMMANDS.getModCount()) {
+        recompile();
+      }
+
+      execute(onReleased);
+    }
+
+    /**
+     * Resolves the command lines again once commands have been added or removed, since the
+     * compiled instances may belong to commands which are no longer managed.
+     */
+    private synchronized void recompile() {
+      final int modCount = COMMANDS.getModCount();
+      if (this.modCount == modCount) {
+        return;
+      }
+
+      this.onPressed = recompile(pressed);
+      this.onReleased = recompile(released);
+      this.modCount = modCount;
+    }
+
+    @Nullable
+    private Command.Instance recompile(@Nullable String line) {
+      try {
+        return compile(line);
+      } catch (RuntimeException e) {
+        Gdx.app.error(TAG, String.format("%s is no longer bound: %s",
+            KEY.getAlias(), e.getMessage()));
+        return null;
+      }
+    }
+
+    private void execute(@Nullable Command.Instance instance) {
+      if (instance == null) {
+        return;
+      }
+
+      try {
+        PROCESSOR.execute(instance, JOB_LISTENER);
+      } catch (RuntimeException e) {
+        onFailed(e);
+      }
+    }
+
+    private void onFailed(@NonNull Throwable t) {
+      Gdx.app.error(TAG, String.format("%s [%s]: %s",
+          KEY.getName(), KEY.getAlias(), t.getMessage()));
+    }
+
+  }
+
+}
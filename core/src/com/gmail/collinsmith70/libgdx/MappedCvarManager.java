@@ -0,0 +1,156 @@
+package com.gmail.collinsmith70.libgdx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.gmail.collinsmith70.cvar.Cvar;
+import com.gmail.collinsmith70.serializer.ByteBufferSerializer;
+import com.gmail.collinsmith70.serializer.SerializeException;
+import com.gmail.collinsmith70.store.MappedRecordStore;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * A {@link GdxCvarManager} which saves cvars into a {@link MappedRecordStore} instead of
+ * {@link Preferences}. Values previously saved into preferences are migrated into the store the
+ * first time it is opened.
+ * <p>
+ * Values of types which have a {@linkplain #getBinarySerializer binary serializer} are stored as
+ * a {@link #BINARY} tag followed by their binary serialization, so saving and loading them does
+ * not format or parse text. Other values, and values migrated from preferences, are stored as
+ * UTF-8 text. Text values are rewritten as binary the first time they are loaded.
+ */
+@SuppressWarnings("unused")
+public class MappedCvarManager extends GdxCvarManager {
+
+  private static final String TAG = "MappedCvarManager";
+
+  /**
+   * Key which marks the store as migrated. Aliases cannot contain {@code NUL}.
+   */
+  private static final String MIGRATED = "\u0000migrated";
+
+  /**
+   * Tag of values stored as their binary serialization. Text serializations never begin with
+   * {@code NUL}, so values without this tag are stored as text.
+   */
+  private static final byte BINARY = 0;
+
+  @NonNull
+  private final MappedRecordStore STORE;
+
+  public MappedCvarManager(@NonNull FileHandle file) {
+    super();
+    this.STORE = new MappedRecordStore(file.file());
+    if (!STORE.contains(MIGRATED)) {
+      migrate(getPreferences());
+    }
+  }
+
+  private void migrate(@NonNull Preferences preferences) {
+    // the types of the values are not known until their cvars are added, so they are migrated as
+    // text and converted when they are loaded
+    final Map<String, ?> values = preferences.get();
+    for (Map.Entry<String, ?> entry : values.entrySet()) {
+      STORE.putString(entry.getKey(), String.valueOf(entry.getValue()));
+    }
+
+    STORE.put(MIGRATED, new byte[0]);
+    STORE.force();
+    Gdx.app.log(TAG, String.format("migrated %d cvars from preferences into %s",
+        values.size(), STORE.getFile()));
+  }
+
+  @NonNull
+  public MappedRecordStore getStore() {
+    return STORE;
+  }
+
+  @Override
+  protected <T> void stage(@NonNull Cvar<T> cvar) {
+    final ByteBufferSerializer<T> serializer = getBinarySerializer(cvar);
+    if (serializer == null) {
+      super.stage(cvar);
+      return;
+    }
+
+    final T value = cvar.get();
+    write(cvar.getAlias(), serializer, value);
+    if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+      Gdx.app.debug(TAG, String.format("%s saved as %s", cvar.getAlias(), value));
+    }
+  }
+
+  private <T> void write(@NonNull String alias, @NonNull ByteBufferSerializer<T> serializer,
+                         @NonNull T value) {
+    final ByteBuffer record = ByteBuffer.allocate(1 + serializer.sizeOf(value));
+    record.put(BINARY);
+    serializer.serialize(value, record);
+    STORE.put(alias, record.array());
+  }
+
+  @Nullable
+  @Override
+  public <T> T load(@NonNull Cvar<T> cvar) {
+    final String alias = cvar.getAlias();
+    final byte[] record = STORE.get(alias);
+    if (record == null) {
+      return cvar.getDefault();
+    }
+
+    final ByteBufferSerializer<T> serializer = getBinarySerializer(cvar);
+    if (record.length == 0 || record[0] != BINARY) {
+      final T value = super.load(cvar);
+      if (serializer != null && value != null) {
+        write(alias, serializer, value);
+      }
+
+      return value;
+    } else if (serializer == null) {
+      throw new CvarManagerException("%s cannot be loaded (no binary deserializer found for %s)",
+          alias, cvar.getType().getName());
+    }
+
+    final ByteBuffer in = ByteBuffer.wrap(record, 1, record.length - 1);
+    try {
+      final T value = serializer.deserialize(in);
+      if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+        Gdx.app.debug(TAG, String.format("%s loaded as %s", alias, value));
+      }
+
+      return value;
+    } catch (BufferUnderflowException e) {
+      throw new SerializeException(e);
+    }
+  }
+
+  @Override
+  protected void commit() {
+    STORE.force();
+  }
+
+  /**
+   * Closes the backing store. Cvars cannot be saved afterwards.
+   */
+  public void close() {
+    STORE.close();
+  }
+
+  @Nullable
+  @Override
+  protected String read(@NonNull String alias) {
+    return STORE.getString(alias);
+  }
+
+  @Override
+  protected void write(@NonNull String alias, @NonNull String serialization) {
+    STORE.putString(alias, serialization);
+  }
+
+}
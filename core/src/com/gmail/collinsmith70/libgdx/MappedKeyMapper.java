@@ -0,0 +1,189 @@
+package com.gmail.collinsmith70.libgdx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.serializer.IntArrayByteBufferSerializer;
+import com.gmail.collinsmith70.serializer.IntArrayStringSerializer;
+import com.gmail.collinsmith70.serializer.SerializeException;
+import com.gmail.collinsmith70.store.MappedRecordStore;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link GdxKeyMapper} which saves key assignments into a {@link MappedRecordStore} as raw
+ * keycodes instead of serializing them into {@link Preferences}. Assignments previously saved
+ * into preferences are migrated into the store the first time it is opened.
+ * <p>
+ * Assignments are stored as a {@link #BINARY} tag followed by their
+ * {@linkplain IntArrayByteBufferSerializer binary serialization}, the same format used by
+ * {@link MappedCvarManager}. Records without the tag are corrupt and are removed when loaded.
+ */
+@SuppressWarnings("unused")
+public class MappedKeyMapper extends GdxKeyMapper {
+
+  private static final String TAG = "MappedKeyMapper";
+
+  /**
+   * Key which marks the store as migrated. Aliases cannot contain {@code NUL}.
+   */
+  private static final String MIGRATED = "\u0000migrated";
+
+  /**
+   * Prefix of the keys which {@linkplain KeyBindings key bindings} are saved under, followed by
+   * the alias of the bound key.
+   */
+  private static final String BINDING = "\u0000binding:";
+
+  /**
+   * Tag of assignments stored as their binary serialization.
+   */
+  private static final byte BINARY = 0;
+
+  @NonNull
+  private final MappedRecordStore STORE;
+
+  public MappedKeyMapper(@NonNull FileHandle file) {
+    super();
+    this.STORE = new MappedRecordStore(file.file());
+    if (!STORE.contains(MIGRATED)) {
+      migrate(getPreferences());
+    }
+  }
+
+  private void migrate(@NonNull Preferences preferences) {
+    int migrated = 0;
+    for (Map.Entry<String, ?> entry : preferences.get().entrySet()) {
+      try {
+        int[] assignments
+            = IntArrayStringSerializer.INSTANCE.deserialize(String.valueOf(entry.getValue()));
+        STORE.put(entry.getKey(), encode(assignments));
+        migrated++;
+      } catch (SerializeException e) {
+        Gdx.app.error(TAG, String.format("skipping %s (invalid save format)", entry.getKey()));
+      }
+    }
+
+    STORE.put(MIGRATED, new byte[0]);
+    STORE.force();
+    Gdx.app.log(TAG, String.format("migrated %d keys from preferences into %s",
+        migrated, STORE.getFile()));
+  }
+
+  @NonNull
+  public MappedRecordStore getStore() {
+    return STORE;
+  }
+
+  /**
+   * Closes the backing store. Key assignments and bindings cannot be saved afterwards.
+   */
+  public void close() {
+    STORE.close();
+  }
+
+  @Nullable
+  @Override
+  public int[] load(@NonNull MappedKey key) {
+    final String alias = key.getAlias();
+    final byte[] serializedValue = STORE.get(alias);
+    if (serializedValue == null) {
+      return null;
+    }
+
+    final int[] assignments;
+    try {
+      assignments = decode(serializedValue);
+    } catch (SerializeException e) {
+      Gdx.app.error(TAG, String.format("removing %s from store (invalid save format)", alias));
+      STORE.remove(alias);
+      throw new SerializeException(alias + " is not a valid array of keycodes");
+    }
+
+    if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+      Gdx.app.debug(TAG, String.format("%s [%s] loaded as %s",
+          key.getName(), alias, Arrays.toString(getKeycodeNames(assignments))));
+    }
+
+    return assignments;
+  }
+
+  @Override
+  protected void stage(@NonNull MappedKey key) {
+    final int[] assignments = key.getAssignments();
+    STORE.put(key.getAlias(), encode(assignments));
+    if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+      Gdx.app.debug(TAG, String.format("%s [%s] saved as %s",
+          key.getName(), key.getAlias(), Arrays.toString(getKeycodeNames(assignments))));
+    }
+  }
+
+  @Override
+  protected void commit() {
+    STORE.force();
+  }
+
+  @NonNull
+  @Override
+  public Map<String, String[]> loadBindings() {
+    final Map<String, String[]> bindings = new HashMap<>();
+    for (String key : STORE.keys()) {
+      if (key.startsWith(BINDING)) {
+        bindings.put(key.substring(BINDING.length()), decodeBinding(STORE.getString(key)));
+      }
+    }
+
+    return bindings;
+  }
+
+  @Override
+  public void saveBinding(@NonNull MappedKey key, @Nullable String pressed,
+                          @Nullable String released) {
+    if (pressed == null && released == null) {
+      STORE.remove(BINDING + key.getAlias());
+    } else {
+      STORE.putString(BINDING + key.getAlias(), encodeBinding(pressed, released));
+    }
+
+    STORE.force();
+    if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+      Gdx.app.debug(TAG, String.format("%s [%s] bound to \"%s\" / \"%s\"",
+          key.getName(), key.getAlias(), pressed, released));
+    }
+  }
+
+  @NonNull
+  private static byte[] encode(@NonNull int[] assignments) {
+    final IntArrayByteBufferSerializer serializer = IntArrayByteBufferSerializer.INSTANCE;
+    final ByteBuffer buffer = ByteBuffer.allocate(1 + serializer.sizeOf(assignments));
+    buffer.put(BINARY);
+    serializer.serialize(assignments, buffer);
+    return buffer.array();
+  }
+
+  @NonNull
+  private static int[] decode(@NonNull byte[] serializedValue) {
+    if (serializedValue.length == 0) {
+      throw new SerializeException("Missing tag");
+    } else if (serializedValue[0] != BINARY) {
+      throw new SerializeException("Unknown tag: " + serializedValue[0]);
+    }
+
+    final ByteBuffer in = ByteBuffer.wrap(serializedValue, 1, serializedValue.length - 1);
+    final int[] assignments = IntArrayByteBufferSerializer.INSTANCE.deserialize(in);
+    if (in.hasRemaining()) {
+      throw new SerializeException(in.remaining() + " trailing bytes");
+    }
+
+    return assignments;
+  }
+
+}
@@ -18,35 +18,12 @@ public class MusicVolumeController implements VolumeController<Music> {
 
   private final Collection<WeakReference<Music>> MANAGED;
 
-  private boolean soundEnabled;
-  private boolean musicEnabled;
-  private float musicVolume;
-
   public MusicVolumeController() {
     this.MANAGED = new ArrayList<>();
 
-    Cvars.Client.Sound.Enabled.addStateListener(new CvarStateAdapter<Boolean>() {
-      @Override
-      public void onChanged(@NonNull Cvar<Boolean> cvar,
-                            @Nullable Boolean from, @Nullable Boolean to) {
-        soundEnabled = to;
-        refreshVolume();
-      }
-    });
-
-    Cvars.Client.Sound.Music.Enabled.addStateListener(new CvarStateAdapter<Boolean>() {
-      @Override
-      public void onChanged(@NonNull Cvar<Boolean> cvar, @Nullable Boolean from, @Nullable
-          Boolean to) {
-        musicEnabled = to;
-        refreshVolume();
-      }
-    });
-
-    Cvars.Client.Sound.Music.Volume.addStateListener(new CvarStateAdapter<Float>() {
+    Cvars.Client.Sound.Music.EffectiveVolume.addStateListener(new CvarStateAdapter<Float>() {
       @Override
       public void onChanged(@NonNull Cvar<Float> cvar, @Nullable Float from, @Nullable Float to) {
-        musicVolume = to;
         refreshVolume();
       }
     });
@@ -68,32 +45,22 @@ public class MusicVolumeController implements VolumeController<Music> {
 
   @Override
   public boolean isEnabled() {
-    return musicEnabled;
+    return Cvars.Client.Sound.Music.Enabled.getBoolean();
   }
 
   @Override
   public void setEnabled(boolean enabled) {
-    if (musicEnabled != enabled) {
-      this.musicEnabled = enabled;
-      refreshVolume();
-    }
+    Cvars.Client.Sound.Music.Enabled.set(enabled);
   }
 
   @Override
   public float getVolume() {
-    if (!soundEnabled || !musicEnabled) {
-      return 0.0f;
-    }
-
-    return musicVolume;
+    return Cvars.Client.Sound.Music.EffectiveVolume.get();
   }
 
   @Override
   public void setVolume(float volume) {
-    if (musicVolume != volume) {
-      this.musicVolume = volume;
-      refreshVolume();
-    }
+    Cvars.Client.Sound.Music.Volume.set(volume);
   }
 
   @Override
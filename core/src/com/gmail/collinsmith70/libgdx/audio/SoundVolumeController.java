@@ -16,35 +16,12 @@ public class SoundVolumeController implements VolumeController<Sound> {
 
   //private final Collection<WeakReference<Sound>> MANAGED;
 
-  private boolean soundEnabled;
-  private boolean effectsEnabled;
-  private float effectsVolume;
-
   public SoundVolumeController() {
     //this.MANAGED = new ArrayList<>();
 
-    Cvars.Client.Sound.Enabled.addStateListener(new CvarStateAdapter<Boolean>() {
-      @Override
-      public void onChanged(@NonNull Cvar<Boolean> cvar,
-                            @Nullable Boolean from, @Nullable Boolean to) {
-        soundEnabled = to;
-        refreshVolume();
-      }
-    });
-
-    Cvars.Client.Sound.Effects.Enabled.addStateListener(new CvarStateAdapter<Boolean>() {
-      @Override
-      public void onChanged(@NonNull Cvar<Boolean> cvar, @Nullable Boolean from, @Nullable
-          Boolean to) {
-        effectsEnabled = to;
-        refreshVolume();
-      }
-    });
-
-    Cvars.Client.Sound.Effects.Volume.addStateListener(new CvarStateAdapter<Float>() {
+    Cvars.Client.Sound.Effects.EffectiveVolume.addStateListener(new CvarStateAdapter<Float>() {
       @Override
       public void onChanged(@NonNull Cvar<Float> cvar, @Nullable Float from, @Nullable Float to) {
-        effectsVolume = to;
         refreshVolume();
       }
     });
@@ -58,32 +35,22 @@ public class SoundVolumeController implements VolumeController<Sound> {
 
   @Override
   public boolean isEnabled() {
-    return effectsEnabled;
+    return Cvars.Client.Sound.Effects.Enabled.getBoolean();
   }
 
   @Override
   public void setEnabled(boolean enabled) {
-    if (effectsEnabled != enabled) {
-      this.effectsEnabled = enabled;
-      refreshVolume();
-    }
+    Cvars.Client.Sound.Effects.Enabled.set(enabled);
   }
 
   @Override
   public float getVolume() {
-    if (!soundEnabled || !effectsEnabled) {
-      return 0.0f;
-    }
-
-    return effectsVolume;
+    return Cvars.Client.Sound.Effects.EffectiveVolume.get();
   }
 
   @Override
   public void setVolume(float volume) {
-    if (effectsVolume != volume) {
-      this.effectsVolume = volume;
-      refreshVolume();
-    }
+    Cvars.Client.Sound.Effects.Volume.set(volume);
   }
 
   @Override
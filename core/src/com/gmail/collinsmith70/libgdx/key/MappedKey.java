@@ -9,6 +9,7 @@ import android.support.annotation.Nullable;
 import android.support.annotation.Size;
 
 import com.badlogic.gdx.Input;
+import com.gmail.collinsmith70.util.ListenerProfiler;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -80,6 +81,8 @@ public class MappedKey implements Iterable<Integer> {
   @Retention(RetentionPolicy.SOURCE)
   public @interface Keycode {}
 
+  private static final StateListener[] NO_STATE_LISTENERS = new StateListener[0];
+
   /**
    * The user-friendly name of this {@code MappedKey}.
    *
@@ -109,6 +112,13 @@ public class MappedKey implements Iterable<Integer> {
   @NonNull
   private final Set<StateListener> STATE_LISTENERS;
 
+  /**
+   * Copy of {@link #STATE_LISTENERS} which is iterated when this key is pressed or depressed, so
+   * that dispatching does not allocate an iterator.
+   */
+  @NonNull
+  private volatile StateListener[] stateListeners;
+
   /**
    * List of inputs mapped to this {@code MappedKey}.
    * <p>
@@ -180,6 +190,7 @@ public class MappedKey implements Iterable<Integer> {
 
     this.ASSIGNMENT_LISTENERS = new CopyOnWriteArraySet<>();
     this.STATE_LISTENERS = new CopyOnWriteArraySet<>();
+    this.stateListeners = NO_STATE_LISTENERS;
   }
 
   @Override
@@ -362,14 +373,18 @@ public class MappedKey implements Iterable<Integer> {
       }
 
       for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+        final long start = ListenerProfiler.start();
         l.onUnassigned(this, i, keycode);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
     }
 
     for (@Assignment int i = 0; i < assignments.length; i++) {
       @Keycode int keycode = assignments[i];
       for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+        final long start = ListenerProfiler.start();
         l.onAssigned(this, i, keycode);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
     }
   }
@@ -405,10 +420,14 @@ public class MappedKey implements Iterable<Integer> {
     assignments[assignment] = keycode;
     for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
       if (previous != NOT_MAPPED) {
+        final long start = ListenerProfiler.start();
         l.onUnassigned(this, assignment, keycode);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
 
+      final long start = ListenerProfiler.start();
       l.onAssigned(this, assignment, keycode);
+      ListenerProfiler.stop(l, ALIAS, start);
     }
 
     return previous;
@@ -435,7 +454,9 @@ public class MappedKey implements Iterable<Integer> {
           assignments.length - assignment - 1);
       assignments[assignments.length - 1] = NOT_MAPPED;
       for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+        final long start = ListenerProfiler.start();
         l.onUnassigned(this, assignment, unassigned);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
 
       return true;
@@ -462,7 +483,9 @@ public class MappedKey implements Iterable<Integer> {
         unassigned = true;
         assignments[i] = NOT_MAPPED;
         for (AssignmentListener l : ASSIGNMENT_LISTENERS) {
+          final long start = ListenerProfiler.start();
           l.onUnassigned(this, i, keycode);
+          ListenerProfiler.stop(l, ALIAS, start);
         }
 
         continue;
@@ -549,20 +572,31 @@ public class MappedKey implements Iterable<Integer> {
     assert isAssigned(keycode);
     if (pressed) {
       this.pressed++;
-      for (StateListener l : STATE_LISTENERS) {
+      for (StateListener l : stateListeners) {
+        final long start = ListenerProfiler.start();
         l.onPressed(this, keycode);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
     } else {
       this.pressed--;
-      for (StateListener l : STATE_LISTENERS) {
+      for (StateListener l : stateListeners) {
+        final long start = ListenerProfiler.start();
         l.onDepressed(this, keycode);
+        ListenerProfiler.stop(l, ALIAS, start);
       }
     }
   }
 
   public boolean addStateListener(@NonNull StateListener l) {
     Preconditions.checkArgument(l != null, "l cannot be null");
-    return STATE_LISTENERS.add(l);
+    synchronized (STATE_LISTENERS) {
+      boolean added = STATE_LISTENERS.add(l);
+      if (added) {
+        stateListeners = STATE_LISTENERS.toArray(NO_STATE_LISTENERS);
+      }
+
+      return added;
+    }
   }
 
   public boolean containsStateListener(@Nullable StateListener l) {
@@ -570,7 +604,18 @@ public class MappedKey implements Iterable<Integer> {
   }
 
   public boolean removeStateListener(@Nullable StateListener l) {
-    return l != null && STATE_LISTENERS.remove(l);
+    if (l == null) {
+      return false;
+    }
+
+    synchronized (STATE_LISTENERS) {
+      boolean removed = STATE_LISTENERS.remove(l);
+      if (removed) {
+        stateListeners = STATE_LISTENERS.toArray(NO_STATE_LISTENERS);
+      }
+
+      return removed;
+    }
   }
 
   public boolean addAssignmentListener(@NonNull AssignmentListener l) {
@@ -69,13 +69,39 @@ public abstract class SaveableKeyMapper extends KeyMapper {
   @Nullable
   public abstract int[] load(@NonNull MappedKey key);
 
-  public abstract void save(@NonNull MappedKey key);
+  public void save(@NonNull MappedKey key) {
+    stage(key);
+    commit();
+  }
+
+  /**
+   * Writes the assignments of the specified key into the backing store. Implementations may buffer
+   * the write until the next {@link #commit}.
+   */
+  protected abstract void stage(@NonNull MappedKey key);
+
+  /**
+   * Persists all writes {@linkplain #stage staged} since the last commit.
+   */
+  protected void commit() {}
 
   public Collection<RuntimeException> saveAll() {
+    final Collection<RuntimeException> exceptions = stageAll();
+    commit();
+    return exceptions;
+  }
+
+  /**
+   * Stages the assignments of every key without committing them, so that the I/O of persisting
+   * them can be done separately by {@link #commitStaged}, e.g., on a worker thread.
+   *
+   * @return The exceptions thrown while staging the keys
+   */
+  public Collection<RuntimeException> stageAll() {
     Collection<RuntimeException> exceptions = null;
     for (MappedKey key : this) {
       try {
-        save(key);
+        stage(key);
       } catch (RuntimeException e) {
         if (exceptions == null) {
           exceptions = new ArrayList<>(1);
@@ -92,4 +118,11 @@ public abstract class SaveableKeyMapper extends KeyMapper {
     return exceptions;
   }
 
+  /**
+   * Persists all writes {@linkplain #stageAll staged} since the last commit.
+   */
+  public void commitStaged() {
+    commit();
+  }
+
 }
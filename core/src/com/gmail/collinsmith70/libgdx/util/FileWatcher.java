@@ -0,0 +1,25 @@
+package com.gmail.collinsmith70.libgdx.util;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * Notifies listeners when files are modified.
+ *
+ * @see PollingFileWatcher
+ */
+public interface FileWatcher {
+
+  /**
+   * Starts watching the specified file. {@code onModified} is run on a background thread each time
+   * the file is created or modified.
+   */
+  void watch(@NonNull File file, @NonNull Runnable onModified);
+
+  /**
+   * Stops watching all files.
+   */
+  void close();
+
+}
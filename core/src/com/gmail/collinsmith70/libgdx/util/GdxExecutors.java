@@ -0,0 +1,17 @@
+package com.gmail.collinsmith70.libgdx.util;
+
+import com.badlogic.gdx.Gdx;
+
+import java.util.concurrent.Executor;
+
+public enum GdxExecutors implements Executor {
+  /**
+   * Runs tasks on the rendering thread at the start of the next frame.
+   */
+  RENDER_THREAD {
+    @Override
+    public void execute(Runnable command) {
+      Gdx.app.postRunnable(command);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.gmail.collinsmith70.libgdx.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FileWatcher} which polls the last modified time and length of each watched file. Used
+ * on platforms where the file system cannot notify us of changes.
+ */
+public class PollingFileWatcher implements FileWatcher {
+
+  private final long INTERVAL;
+
+  @NonNull
+  private final ScheduledExecutorService EXECUTOR;
+
+  public PollingFileWatcher(long interval, @NonNull TimeUnit unit) {
+    Preconditions.checkArgument(interval > 0, "interval must be positive");
+    this.INTERVAL = unit.toMillis(interval);
+    this.EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat(getClass().getSimpleName())
+        .setDaemon(true)
+        .build());
+  }
+
+  @Override
+  public void watch(@NonNull final File file, @NonNull final Runnable onModified) {
+    Preconditions.checkArgument(file != null, "file cannot be null");
+    Preconditions.checkArgument(onModified != null, "onModified cannot be null");
+    EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+      long lastModified = file.lastModified();
+      long length = file.length();
+
+      @Override
+      public void run() {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        if (lastModified == this.lastModified && length == this.length) {
+          return;
+        }
+
+        this.lastModified = lastModified;
+        this.length = length;
+        if (file.exists()) {
+          onModified.run();
+        }
+      }
+    }, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void close() {
+    EXECUTOR.shutdownNow();
+  }
+
+}
@@ -0,0 +1,26 @@
+package com.gmail.collinsmith70.registry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a top-level class whose {@code public static} fields of type {@link #value()} (including
+ * those declared within its {@code public static} nested classes) should be collected into a
+ * {@link Registry} at compile time. The generated registry is named after the annotated class
+ * with a {@value Registries#SUFFIX} suffix and is located using {@link Registries#find}.
+ * <p>
+ * Note: Generated registries are only located by name, so they must be kept if the application
+ *       is shrunk or obfuscated.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateRegistry {
+
+  /**
+   * Type of the fields to collect.
+   */
+  Class<?> value();
+
+}
@@ -0,0 +1,109 @@
+package com.gmail.collinsmith70.registry;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+public class Registries {
+
+  /**
+   * Suffix appended to the name of a class annotated with {@link GenerateRegistry} to form the
+   * name of its generated registry.
+   */
+  public static final String SUFFIX = "_Registry";
+
+  private static final Logger LOGGER = Logger.getLogger(Registries.class.getName());
+
+  private Registries() {
+  }
+
+  /**
+   * Returns the registry generated for the specified class, or a {@linkplain #reflective
+   * reflective} registry if one was not generated (e.g., if annotation processing was disabled,
+   * or if the generated class was stripped by ProGuard). Falling back is logged, since reflective
+   * registries are considerably slower to build.
+   *
+   * @param owner The class annotated with {@link GenerateRegistry}
+   * @param type  The type of the entries within the registry
+   */
+  @NonNull
+  public static <T> Registry<T> of(@NonNull Class<?> owner, @NonNull Class<T> type) {
+    Registry<T> registry = find(owner);
+    if (registry != null) {
+      return registry;
+    }
+
+    LOGGER.warning(String.format("%s%s not found, falling back to a reflective registry",
+        owner.getName(), SUFFIX));
+    return reflective(owner, type);
+  }
+
+  /**
+   * Returns the registry generated for the specified class, or {@code null} if one was not
+   * generated.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public static <T> Registry<T> find(@NonNull Class<?> owner) {
+    Preconditions.checkArgument(owner != null, "owner cannot be null");
+    try {
+      Class<?> generated = Class.forName(owner.getName() + SUFFIX, true, owner.getClassLoader());
+      return (Registry<T>) generated.getDeclaredConstructor().newInstance();
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns a registry which collects the {@code public static} fields of the specified type
+   * declared within {@code owner} and its {@code public} nested classes using reflection.
+   */
+  @NonNull
+  public static <T> Registry<T> reflective(@NonNull final Class<?> owner,
+                                           @NonNull final Class<T> type) {
+    Preconditions.checkArgument(owner != null, "owner cannot be null");
+    Preconditions.checkArgument(type != null, "type cannot be null");
+    return new Registry<T>() {
+      @NonNull
+      @Override
+      public List<T> entries() {
+        return collect(owner, type, new ArrayList<T>());
+      }
+    };
+  }
+
+  @NonNull
+  private static <T> List<T> collect(@NonNull Class<?> clazz, @NonNull Class<T> type,
+                                     @NonNull List<T> entries) {
+    for (Field field : clazz.getFields()) {
+      if (type.isAssignableFrom(field.getType()) && Modifier.isStatic(field.getModifiers())) {
+        try {
+          // owners such as Commands may be package-private
+          field.setAccessible(true);
+          entries.add(type.cast(field.get(null)));
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+
+    for (Class<?> subclass : clazz.getClasses()) {
+      collect(subclass, type, entries);
+    }
+
+    return entries;
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.gmail.collinsmith70.registry;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * A table of statically declared entries, e.g., the cvars declared within a class.
+ *
+ * @see GenerateRegistry
+ */
+public interface Registry<T> {
+
+  /**
+   * Returns the entries within this registry, in the order they were declared.
+   */
+  @NonNull
+  List<T> entries();
+
+}
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum BooleanByteBufferSerializer implements ByteBufferSerializer<Boolean> {
+  INSTANCE;
+
+  private static final int SIZE = 1;
+
+  @Override
+  public int sizeOf(@NonNull Boolean obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Boolean obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Boolean obj, @NonNull ByteBuffer out) {
+    out.put(obj ? (byte) 1 : (byte) 0);
+  }
+
+  @NonNull
+  @Override
+  public Boolean deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.get() != 0;
+  }
+
+}
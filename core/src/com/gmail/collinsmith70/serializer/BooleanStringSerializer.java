@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum BooleanStringSerializer implements StringSerializer<Boolean> {
   INSTANCE;
 
@@ -11,20 +13,34 @@ public enum BooleanStringSerializer implements StringSerializer<Boolean> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Boolean obj, @NonNull Appendable out) throws IOException {
+    out.append(obj ? "true" : "false");
+  }
+
   @Override
   @NonNull
   public Boolean deserialize(@NonNull String string) {
-    if (string.equalsIgnoreCase("true")) {
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Boolean deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    if (StringSerializers.equalsIgnoreCase(chars, start, end, "true")) {
       return Boolean.TRUE;
-    } else if (string.equalsIgnoreCase("yes")) {
+    } else if (StringSerializers.equalsIgnoreCase(chars, start, end, "yes")) {
       return Boolean.TRUE;
-    } else {
+    } else if (StringSerializers.isInteger(chars, start, end)) {
       try {
-        int i = Integer.parseInt(string);
+        int i = StringSerializers.parseInt(chars, start, end);
         return i > 0 ? Boolean.TRUE : Boolean.FALSE;
-      } catch (NumberFormatException e) {
+      } catch (SerializeException e) {
         return Boolean.FALSE;
       }
+    } else {
+      return Boolean.FALSE;
     }
   }
 
@@ -0,0 +1,52 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of a {@link Serializer} which (de)serializes objects of the specified type
+ * {@link T} to and from a compact binary representation within a {@link ByteBuffer}. Values are
+ * written and read at the current position of buffers, so many values can be packed into a single
+ * buffer without copying, e.g., a record of a store or a message sent to another process.
+ * <p>
+ * Multi-byte values are written using the {@linkplain ByteBuffer#order() byte order} of the
+ * buffer.
+ *
+ * @param <T> The type of object which this {@code ByteBufferSerializer} accepts
+ *
+ * @see ByteBufferSerializerRegistry
+ */
+public interface ByteBufferSerializer<T> extends Serializer<T, ByteBuffer> {
+
+  /**
+   * Returns the number of bytes {@link #serialize(Object, ByteBuffer)} writes for {@code obj}.
+   */
+  int sizeOf(@NonNull T obj);
+
+  /**
+   * Serializes {@code obj} into a new buffer which has been flipped for reading.
+   */
+  @NonNull
+  @Override
+  ByteBuffer serialize(@NonNull T obj);
+
+  /**
+   * Writes the serialization of {@code obj} at the current position of {@code out}, advancing it
+   * by {@link #sizeOf(Object)} bytes.
+   *
+   * @throws java.nio.BufferOverflowException if {@code out} does not have enough space remaining
+   */
+  void serialize(@NonNull T obj, @NonNull ByteBuffer out);
+
+  /**
+   * Reads a serialization at the current position of {@code in}, advancing it past the
+   * serialization.
+   *
+   * @throws SerializeException if {@code in} does not contain a valid serialization
+   */
+  @NonNull
+  @Override
+  T deserialize(@NonNull ByteBuffer in);
+
+}
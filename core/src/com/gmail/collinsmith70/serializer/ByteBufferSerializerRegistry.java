@@ -0,0 +1,71 @@
+package com.gmail.collinsmith70.serializer;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup of the {@link ByteBufferSerializer} used for each type. New registries contain
+ * serializers for the boxed primitives, {@link String}, {@link Locale} and {@code int[]} (key
+ * assignments). Serializers for enums are created the first time they are looked up.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class ByteBufferSerializerRegistry {
+
+  @NonNull
+  private final Map<Class, ByteBufferSerializer> SERIALIZERS;
+
+  public ByteBufferSerializerRegistry() {
+    this.SERIALIZERS = new ConcurrentHashMap<>();
+    SERIALIZERS.put(Character.class, CharacterByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Boolean.class, BooleanByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Byte.class, ByteByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Short.class, ShortByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Integer.class, IntegerByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Long.class, LongByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Float.class, FloatByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Double.class, DoubleByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(String.class, StringByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(Locale.class, LocaleByteBufferSerializer.INSTANCE);
+    SERIALIZERS.put(int[].class, IntArrayByteBufferSerializer.INSTANCE);
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> ByteBufferSerializer<T> get(@NonNull Class<T> type) {
+    Preconditions.checkArgument(type != null, "type cannot be null");
+    ByteBufferSerializer<T> serializer = SERIALIZERS.get(type);
+    if (serializer == null && type.isEnum()) {
+      serializer = new EnumByteBufferSerializer(type);
+      SERIALIZERS.put(type, serializer);
+    }
+
+    return serializer;
+  }
+
+  public boolean contains(@Nullable Class type) {
+    return type != null && SERIALIZERS.containsKey(type);
+  }
+
+  public <T> void put(@NonNull Class<T> type, @Nullable ByteBufferSerializer<T> serializer) {
+    Preconditions.checkArgument(type != null, "type cannot be null");
+    if (serializer == null) {
+      SERIALIZERS.remove(type);
+      return;
+    }
+
+    SERIALIZERS.put(type, serializer);
+  }
+
+  public void remove(@Nullable Class type) {
+    if (type != null) {
+      SERIALIZERS.remove(type);
+    }
+  }
+
+}
@@ -0,0 +1,133 @@
+package com.gmail.collinsmith70.serializer;
+
+import com.google.common.base.Utf8;
+
+import android.support.annotation.NonNull;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers shared by the {@link ByteBufferSerializer} implementations.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class ByteBufferSerializers {
+
+  private ByteBufferSerializers() {
+  }
+
+  /**
+   * Serializes {@code obj} into a new buffer sized for it, which has been flipped for reading.
+   */
+  @NonNull
+  public static <T> ByteBuffer serialize(@NonNull ByteBufferSerializer<T> serializer,
+                                         @NonNull T obj) {
+    final ByteBuffer buffer = ByteBuffer.allocate(serializer.sizeOf(obj));
+    serializer.serialize(obj, buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Throws a {@link SerializeException} if {@code in} has fewer than {@code size} bytes remaining.
+   */
+  public static void checkRemaining(@NonNull ByteBuffer in, int size) {
+    if (in.remaining() < size) {
+      throw new SerializeException(new BufferUnderflowException());
+    }
+  }
+
+  /**
+   * Returns the number of bytes {@link #putString} writes for {@code str}, i.e., its
+   * {@code int} length followed by its UTF-8 encoding.
+   */
+  public static int sizeOfString(@NonNull CharSequence str) {
+    return 4 + Utf8.encodedLength(str);
+  }
+
+  /**
+   * Writes the UTF-8 encoding of {@code str} prefixed by its length in bytes, encoding each
+   * character directly into {@code out}.
+   */
+  public static void putString(@NonNull ByteBuffer out, @NonNull CharSequence str) {
+    out.putInt(Utf8.encodedLength(str));
+    for (int i = 0, length = str.length(); i < length; i++) {
+      final char c = str.charAt(i);
+      if (c < 0x80) {
+        out.put((byte) c);
+      } else if (c < 0x800) {
+        out.put((byte) (0xC0 | (c >>> 6)));
+        out.put((byte) (0x80 | (c & 0x3F)));
+      } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+        out.put((byte) (0xE0 | (c >>> 12)));
+        out.put((byte) (0x80 | ((c >>> 6) & 0x3F)));
+        out.put((byte) (0x80 | (c & 0x3F)));
+      } else {
+        // unpaired surrogates were rejected by Utf8.encodedLength
+        final int codePoint = Character.toCodePoint(c, str.charAt(++i));
+        out.put((byte) (0xF0 | (codePoint >>> 18)));
+        out.put((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+        out.put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+        out.put((byte) (0x80 | (codePoint & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Reads a string written by {@link #putString}.
+   */
+  @NonNull
+  public static String getString(@NonNull ByteBuffer in) {
+    checkRemaining(in, 4);
+    final int length = in.getInt();
+    if (length < 0) {
+      throw new SerializeException("Negative string length: " + length);
+    }
+
+    checkRemaining(in, length);
+    final char[] chars = new char[length];
+    final int end = in.position() + length;
+    int count = 0;
+    while (in.position() < end) {
+      final int b = in.get() & 0xFF;
+      if (b < 0x80) {
+        chars[count++] = (char) b;
+      } else if ((b & 0xE0) == 0xC0) {
+        chars[count++] = (char) (((b & 0x1F) << 6) | continuation(in, end));
+      } else if ((b & 0xF0) == 0xE0) {
+        chars[count++] = (char) (((b & 0x0F) << 12)
+            | (continuation(in, end) << 6)
+            | continuation(in, end));
+      } else if ((b & 0xF8) == 0xF0) {
+        final int codePoint = ((b & 0x07) << 18)
+            | (continuation(in, end) << 12)
+            | (continuation(in, end) << 6)
+            | continuation(in, end);
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT
+            || codePoint > Character.MAX_CODE_POINT) {
+          throw new SerializeException("Invalid UTF-8 code point: " + codePoint);
+        }
+
+        count += Character.toChars(codePoint, chars, count);
+      } else {
+        throw new SerializeException("Invalid UTF-8 leading byte: " + b);
+      }
+    }
+
+    return new String(chars, 0, count);
+  }
+
+  private static int continuation(@NonNull ByteBuffer in, int end) {
+    if (in.position() >= end) {
+      throw new SerializeException("Truncated UTF-8 sequence");
+    }
+
+    final int b = in.get() & 0xFF;
+    if ((b & 0xC0) != 0x80) {
+      throw new SerializeException("Invalid UTF-8 continuation byte: " + b);
+    }
+
+    return b & 0x3F;
+  }
+
+}
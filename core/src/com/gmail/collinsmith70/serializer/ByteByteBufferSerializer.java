@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum ByteByteBufferSerializer implements ByteBufferSerializer<Byte> {
+  INSTANCE;
+
+  private static final int SIZE = 1;
+
+  @Override
+  public int sizeOf(@NonNull Byte obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Byte obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Byte obj, @NonNull ByteBuffer out) {
+    out.put(obj);
+  }
+
+  @NonNull
+  @Override
+  public Byte deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.get();
+  }
+
+}
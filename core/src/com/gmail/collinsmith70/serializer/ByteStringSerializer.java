@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum ByteStringSerializer implements StringSerializer<Byte> {
   INSTANCE;
 
@@ -11,14 +13,22 @@ public enum ByteStringSerializer implements StringSerializer<Byte> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Byte obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendLong(out, obj);
+  }
+
   @Override
   @NonNull
   public Byte deserialize(@NonNull String string) {
-    try {
-      return Byte.parseByte(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Byte deserialize(@NonNull CharSequence chars, int start, int end) {
+    return (byte) StringSerializers.parseLong(chars, start, end,
+        Byte.MIN_VALUE, Byte.MAX_VALUE, "byte");
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum CharacterByteBufferSerializer implements ByteBufferSerializer<Character> {
+  INSTANCE;
+
+  private static final int SIZE = 2;
+
+  @Override
+  public int sizeOf(@NonNull Character obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Character obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Character obj, @NonNull ByteBuffer out) {
+    out.putChar(obj);
+  }
+
+  @NonNull
+  @Override
+  public Character deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getChar();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum CharacterStringSerializer implements StringSerializer<Character> {
   INSTANCE;
 
@@ -11,14 +13,26 @@ public enum CharacterStringSerializer implements StringSerializer<Character> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Character obj, @NonNull Appendable out) throws IOException {
+    out.append(obj);
+  }
+
   @Override
   @NonNull
   public Character deserialize(@NonNull String string) {
-    if (string.length() != 1) {
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Character deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    if (end - start != 1) {
       throw new SerializeException("character serializations should have a length of 1");
     }
 
-    return string.charAt(0);
+    return chars.charAt(start);
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum DoubleByteBufferSerializer implements ByteBufferSerializer<Double> {
+  INSTANCE;
+
+  private static final int SIZE = 8;
+
+  @Override
+  public int sizeOf(@NonNull Double obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Double obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Double obj, @NonNull ByteBuffer out) {
+    out.putDouble(obj);
+  }
+
+  @NonNull
+  @Override
+  public Double deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getDouble();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum DoubleStringSerializer implements StringSerializer<Double> {
   INSTANCE;
 
@@ -11,14 +13,21 @@ public enum DoubleStringSerializer implements StringSerializer<Double> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Double obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendDouble(out, obj);
+  }
+
   @Override
   @NonNull
   public Double deserialize(@NonNull String string) {
-    try {
-      return Double.parseDouble(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Double deserialize(@NonNull CharSequence chars, int start, int end) {
+    return StringSerializers.parseDouble(chars, start, end);
   }
 
 }
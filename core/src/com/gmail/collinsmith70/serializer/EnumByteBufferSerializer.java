@@ -0,0 +1,70 @@
+package com.gmail.collinsmith70.serializer;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes the constants of an enum as their {@linkplain Enum#ordinal() ordinal}, using a single
+ * byte if the enum has at most 256 constants, otherwise an {@code int}.
+ * <p>
+ * Note: Ordinals change if the constants of the enum are reordered, so this format is suited to
+ *       snapshots and messages rather than long-lived storage.
+ *
+ * @param <E> The type of enum which this {@code EnumByteBufferSerializer} accepts
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class EnumByteBufferSerializer<E extends Enum<E>> implements ByteBufferSerializer<E> {
+
+  @NonNull
+  public static <E extends Enum<E>> EnumByteBufferSerializer<E> of(@NonNull Class<E> type) {
+    return new EnumByteBufferSerializer<>(type);
+  }
+
+  @NonNull
+  private final E[] CONSTANTS;
+
+  private final int SIZE;
+
+  public EnumByteBufferSerializer(@NonNull Class<E> type) {
+    Preconditions.checkArgument(type != null, "type cannot be null");
+    Preconditions.checkArgument(type.isEnum(), "%s is not an enum", type.getName());
+    this.CONSTANTS = type.getEnumConstants();
+    this.SIZE = CONSTANTS.length <= 256 ? 1 : 4;
+  }
+
+  @Override
+  public int sizeOf(@NonNull E obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull E obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull E obj, @NonNull ByteBuffer out) {
+    if (SIZE == 1) {
+      out.put((byte) obj.ordinal());
+    } else {
+      out.putInt(obj.ordinal());
+    }
+  }
+
+  @NonNull
+  @Override
+  public E deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    final int ordinal = SIZE == 1 ? in.get() & 0xFF : in.getInt();
+    if (ordinal < 0 || ordinal >= CONSTANTS.length) {
+      throw new SerializeException("Invalid ordinal: " + ordinal);
+    }
+
+    return CONSTANTS[ordinal];
+  }
+
+}
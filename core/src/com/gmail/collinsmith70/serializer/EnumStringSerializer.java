@@ -0,0 +1,124 @@
+package com.gmail.collinsmith70.serializer;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+
+/**
+ * Serializes the constants of an enum by {@linkplain Enum#name() name}. Names are deserialized
+ * case-insensitively using a lookup table which is precomputed when the serializer is created, so
+ * parsing a name does not allocate. Ordinals are also accepted, e.g., {@code "2"}, which allows
+ * values saved before a setting became an enum to be read.
+ *
+ * @param <E> The type of enum which this {@code EnumStringSerializer} accepts
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class EnumStringSerializer<E extends Enum<E>> implements StringSerializer<E> {
+
+  @NonNull
+  public static <E extends Enum<E>> EnumStringSerializer<E> of(@NonNull Class<E> type) {
+    return new EnumStringSerializer<>(type);
+  }
+
+  @NonNull
+  private final Class<E> TYPE;
+
+  @NonNull
+  private final E[] CONSTANTS;
+
+  /**
+   * Open-addressed hash table of {@link #CONSTANTS}, keyed by the case-insensitive hash of their
+   * names. The length of the table is a power of two with at least half of its slots empty.
+   */
+  @NonNull
+  private final E[] TABLE;
+
+  private final int MASK;
+
+  public EnumStringSerializer(@NonNull Class<E> type) {
+    Preconditions.checkArgument(type != null, "type cannot be null");
+    Preconditions.checkArgument(type.isEnum(), "%s is not an enum", type.getName());
+    this.TYPE = type;
+    this.CONSTANTS = type.getEnumConstants();
+    this.TABLE = newTable(Math.max(Integer.highestOneBit(Math.max(CONSTANTS.length, 1)) << 2, 4));
+    this.MASK = TABLE.length - 1;
+    for (E constant : CONSTANTS) {
+      final String name = constant.name();
+      int i = hash(name, 0, name.length()) & MASK;
+      while (TABLE[i] != null) {
+        if (TABLE[i].name().equalsIgnoreCase(name)) {
+          throw new IllegalArgumentException(String.format("%s.%s and %s differ only by case",
+              type.getName(), TABLE[i], name));
+        }
+
+        i = (i + 1) & MASK;
+      }
+
+      TABLE[i] = constant;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @NonNull
+  private E[] newTable(int length) {
+    return (E[]) Array.newInstance(TYPE, length);
+  }
+
+  private static int hash(@NonNull CharSequence chars, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + Character.toUpperCase(chars.charAt(i));
+    }
+
+    return hash ^ (hash >>> 16);
+  }
+
+  @NonNull
+  public Class<E> getType() {
+    return TYPE;
+  }
+
+  @NonNull
+  @Override
+  public String serialize(@NonNull E obj) {
+    return obj.name();
+  }
+
+  @Override
+  public void serialize(@NonNull E obj, @NonNull Appendable out) throws IOException {
+    out.append(obj.name());
+  }
+
+  @NonNull
+  @Override
+  public E deserialize(@NonNull String string) {
+    return deserialize(string, 0, string.length());
+  }
+
+  @NonNull
+  @Override
+  public E deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    int i = hash(chars, start, end) & MASK;
+    for (E constant = TABLE[i]; constant != null; constant = TABLE[i = (i + 1) & MASK]) {
+      if (StringSerializers.equalsIgnoreCase(chars, start, end, constant.name())) {
+        return constant;
+      }
+    }
+
+    if (StringSerializers.isInteger(chars, start, end)) {
+      final long ordinal = StringSerializers.parseLong(chars, start, end,
+          Long.MIN_VALUE, Long.MAX_VALUE, "ordinal");
+      if (0 <= ordinal && ordinal < CONSTANTS.length) {
+        return CONSTANTS[(int) ordinal];
+      }
+    }
+
+    throw new SerializeException(String.format("\"%s\" is not a constant of %s",
+        chars.subSequence(start, end), TYPE.getSimpleName()));
+  }
+
+}
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum FloatByteBufferSerializer implements ByteBufferSerializer<Float> {
+  INSTANCE;
+
+  private static final int SIZE = 4;
+
+  @Override
+  public int sizeOf(@NonNull Float obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Float obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Float obj, @NonNull ByteBuffer out) {
+    out.putFloat(obj);
+  }
+
+  @NonNull
+  @Override
+  public Float deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getFloat();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum FloatStringSerializer implements StringSerializer<Float> {
   INSTANCE;
 
@@ -11,14 +13,21 @@ public enum FloatStringSerializer implements StringSerializer<Float> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Float obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendFloat(out, obj);
+  }
+
   @Override
   @NonNull
   public Float deserialize(@NonNull String string) {
-    try {
-      return Float.parseFloat(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Float deserialize(@NonNull CharSequence chars, int start, int end) {
+    return StringSerializers.parseFloat(chars, start, end);
   }
 
 }
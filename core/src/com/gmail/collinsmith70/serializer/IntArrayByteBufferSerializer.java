@@ -0,0 +1,57 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes {@code int[]}, e.g., key assignments, as their length followed by each element.
+ */
+public enum IntArrayByteBufferSerializer implements ByteBufferSerializer<int[]> {
+  INSTANCE;
+
+  @NonNull
+  private static final int[] EMPTY_ARRAY = new int[0];
+
+  @Override
+  public int sizeOf(@NonNull int[] ints) {
+    return 4 + ints.length * 4;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull int[] ints) {
+    return ByteBufferSerializers.serialize(this, ints);
+  }
+
+  @Override
+  public void serialize(@NonNull int[] ints, @NonNull ByteBuffer out) {
+    out.putInt(ints.length);
+    for (int i : ints) {
+      out.putInt(i);
+    }
+  }
+
+  @NonNull
+  @Override
+  public int[] deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, 4);
+    final int length = in.getInt();
+    if (length < 0) {
+      throw new SerializeException("Negative array length: " + length);
+    } else if (length == 0) {
+      return EMPTY_ARRAY;
+    } else if (length > in.remaining() / 4) {
+      throw new SerializeException(String.format(
+          "Array of %d ints does not fit in %d bytes", length, in.remaining()));
+    }
+
+    final int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = in.getInt();
+    }
+
+    return ints;
+  }
+
+}
@@ -1,37 +1,97 @@
 package com.gmail.collinsmith70.serializer;
 
-import com.google.common.primitives.Ints;
-
 import android.support.annotation.NonNull;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 
+/**
+ * Serializes {@code int[]} using the format of {@link Arrays#toString(int[])}, e.g.,
+ * {@code [1, 2, 3]}.
+ */
 public enum IntArrayStringSerializer implements StringSerializer<int[]> {
   INSTANCE;
 
+  @NonNull
+  private static final int[] EMPTY_ARRAY = new int[0];
+
+  @NonNull
+  private static final String SEPARATOR = ", ";
+
   @NonNull
   @Override
   public String serialize(@NonNull int[] ints) {
     return Arrays.toString(ints);
   }
 
+  @Override
+  public void serialize(@NonNull int[] ints, @NonNull Appendable out) throws IOException {
+    out.append('[');
+    for (int i = 0; i < ints.length; i++) {
+      if (i > 0) {
+        out.append(SEPARATOR);
+      }
+
+      StringSerializers.appendLong(out, ints[i]);
+    }
+
+    out.append(']');
+  }
+
   @NonNull
   @Override
   public int[] deserialize(@NonNull String string) {
-    if (!string.matches("\\[(\\d+,\\s)*\\d+\\]")) {
-      throw new SerializeException(String.format("Invalid serialized format: \"%s\"",
-          string));
+    return deserialize(string, 0, string.length());
+  }
+
+  @NonNull
+  @Override
+  public int[] deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    if (end - start < 2 || chars.charAt(start) != '[' || chars.charAt(end - 1) != ']') {
+      throw invalidFormat(chars, start, end);
+    }
+
+    final int first = start + 1;
+    final int last = end - 1;
+    if (first == last) {
+      return EMPTY_ARRAY;
+    }
+
+    int length = 1;
+    for (int i = first; i < last; i++) {
+      if (chars.charAt(i) == ',') {
+        length++;
+      }
     }
 
-    List<Integer> ints = new ArrayList<>(2);
-    string = string.substring(1, string.length() - 1);
-    for (String integer : string.split(", ")) {
-      ints.add(Integer.parseInt(integer));
+    final int[] ints = new int[length];
+    int from = first;
+    for (int i = 0; i < length; i++) {
+      int to = from;
+      while (to < last && chars.charAt(to) != ',') {
+        to++;
+      }
+
+      try {
+        ints[i] = StringSerializers.parseInt(chars, from, to);
+      } catch (SerializeException e) {
+        throw invalidFormat(chars, start, end);
+      }
+
+      from = to + SEPARATOR.length();
+      if (to < last && (from > last || chars.charAt(to + 1) != ' ')) {
+        throw invalidFormat(chars, start, end);
+      }
     }
 
-    return Ints.toArray(ints);
+    return ints;
+  }
+
+  @NonNull
+  private static SerializeException invalidFormat(@NonNull CharSequence chars, int start, int end) {
+    return new SerializeException(String.format("Invalid serialized format: \"%s\"",
+        chars.subSequence(start, end)));
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum IntegerByteBufferSerializer implements ByteBufferSerializer<Integer> {
+  INSTANCE;
+
+  private static final int SIZE = 4;
+
+  @Override
+  public int sizeOf(@NonNull Integer obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Integer obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Integer obj, @NonNull ByteBuffer out) {
+    out.putInt(obj);
+  }
+
+  @NonNull
+  @Override
+  public Integer deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getInt();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum IntegerStringSerializer implements StringSerializer<Integer> {
   INSTANCE;
 
@@ -11,14 +13,21 @@ public enum IntegerStringSerializer implements StringSerializer<Integer> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Integer obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendLong(out, obj);
+  }
+
+  @Override
+  @NonNull
+  public Integer deserialize(@NonNull String string) {
+    return deserialize(string, 0, string.length());
+  }
+
   @Override
   @NonNull
-  public Integer deserialize(@NonNull String obj) {
-    try {
-      return Integer.parseInt(obj);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+  public Integer deserialize(@NonNull CharSequence chars, int start, int end) {
+    return StringSerializers.parseInt(chars, start, end);
   }
 
 }
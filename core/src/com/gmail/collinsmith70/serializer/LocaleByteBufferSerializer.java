@@ -0,0 +1,45 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Serializes {@link Locale} instances as their language, country and variant strings.
+ *
+ * @see StringByteBufferSerializer
+ */
+public enum LocaleByteBufferSerializer implements ByteBufferSerializer<Locale> {
+  INSTANCE;
+
+  @Override
+  public int sizeOf(@NonNull Locale locale) {
+    return ByteBufferSerializers.sizeOfString(locale.getLanguage())
+        + ByteBufferSerializers.sizeOfString(locale.getCountry())
+        + ByteBufferSerializers.sizeOfString(locale.getVariant());
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Locale locale) {
+    return ByteBufferSerializers.serialize(this, locale);
+  }
+
+  @Override
+  public void serialize(@NonNull Locale locale, @NonNull ByteBuffer out) {
+    ByteBufferSerializers.putString(out, locale.getLanguage());
+    ByteBufferSerializers.putString(out, locale.getCountry());
+    ByteBufferSerializers.putString(out, locale.getVariant());
+  }
+
+  @NonNull
+  @Override
+  public Locale deserialize(@NonNull ByteBuffer in) {
+    final String language = ByteBufferSerializers.getString(in);
+    final String country = ByteBufferSerializers.getString(in);
+    final String variant = ByteBufferSerializers.getString(in);
+    return new Locale(language, country, variant);
+  }
+
+}
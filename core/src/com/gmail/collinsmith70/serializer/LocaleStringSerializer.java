@@ -2,10 +2,13 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
-import org.apache.commons.lang3.LocaleUtils;
-
+import java.io.IOException;
 import java.util.Locale;
 
+/**
+ * Serializes {@link Locale} instances using the format of {@link Locale#toString()}, i.e.,
+ * {@code language[_COUNTRY[_variant]]}.
+ */
 public enum LocaleStringSerializer implements StringSerializer<Locale> {
   INSTANCE;
 
@@ -15,14 +18,114 @@ public enum LocaleStringSerializer implements StringSerializer<Locale> {
     return locale.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Locale locale, @NonNull Appendable out) throws IOException {
+    final String language = locale.getLanguage();
+    final String country = locale.getCountry();
+    final String variant = locale.getVariant();
+    out.append(language);
+    if (!country.isEmpty() || (!variant.isEmpty() && !language.isEmpty())) {
+      out.append('_').append(country);
+    }
+
+    if (!variant.isEmpty() && (!language.isEmpty() || !country.isEmpty())) {
+      out.append('_').append(variant);
+    }
+  }
+
   @Override
   @NonNull
   public Locale deserialize(@NonNull String string) {
-    try {
-      return LocaleUtils.toLocale(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
+    return deserialize(string, 0, string.length());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Note: This accepts the same formats as
+   *       {@link org.apache.commons.lang3.LocaleUtils#toLocale(String)}, and only creates
+   *       the strings which the resulting {@code Locale} is made of.
+   */
+  @Override
+  @NonNull
+  public Locale deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    if (start == end) {
+      return new Locale("", "");
     }
+
+    final int languageEnd = indexOf(chars, '_', start, end);
+    if (languageEnd != start) {
+      final int length = languageEnd - start;
+      if ((length != 2 && length != 3) || !isLowerCase(chars, start, languageEnd)) {
+        throw invalidFormat(chars, start, end);
+      }
+    } else if (end - start < 3) {
+      throw invalidFormat(chars, start, end);
+    }
+
+    final String language = chars.subSequence(start, languageEnd).toString();
+    if (languageEnd == end) {
+      return new Locale(language);
+    }
+
+    final int countryStart = languageEnd + 1;
+    final int countryEnd = indexOf(chars, '_', countryStart, end);
+    final int length = countryEnd - countryStart;
+    if (length != 0
+        && !(length == 2 && isUpperCase(chars, countryStart, countryEnd))
+        && !(length == 3 && StringSerializers.isInteger(chars, countryStart, countryEnd)
+            && Character.isDigit(chars.charAt(countryStart)))) {
+      throw invalidFormat(chars, start, end);
+    }
+
+    final String country = chars.subSequence(countryStart, countryEnd).toString();
+    if (countryEnd == end) {
+      return new Locale(language, country);
+    } else if (countryEnd + 1 == end) {
+      throw invalidFormat(chars, start, end);
+    }
+
+    final String variant = chars.subSequence(countryEnd + 1, end).toString();
+    return new Locale(language, country, variant);
+  }
+
+  private static int indexOf(@NonNull CharSequence chars, char ch, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (chars.charAt(i) == ch) {
+        return i;
+      }
+    }
+
+    return end;
+  }
+
+  private static boolean isLowerCase(@NonNull CharSequence chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char c = chars.charAt(i);
+      if (c < 'a' || c > 'z') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean isUpperCase(@NonNull CharSequence chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char c = chars.charAt(i);
+      if (c < 'A' || c > 'Z') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @NonNull
+  private static SerializeException invalidFormat(@NonNull CharSequence chars, int start, int end) {
+    return new SerializeException(String.format("Invalid locale format: \"%s\"",
+        chars.subSequence(start, end)));
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum LongByteBufferSerializer implements ByteBufferSerializer<Long> {
+  INSTANCE;
+
+  private static final int SIZE = 8;
+
+  @Override
+  public int sizeOf(@NonNull Long obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Long obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Long obj, @NonNull ByteBuffer out) {
+    out.putLong(obj);
+  }
+
+  @NonNull
+  @Override
+  public Long deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getLong();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum LongStringSerializer implements StringSerializer<Long> {
   INSTANCE;
 
@@ -11,14 +13,22 @@ public enum LongStringSerializer implements StringSerializer<Long> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Long obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendLong(out, obj);
+  }
+
   @Override
   @NonNull
   public Long deserialize(@NonNull String string) {
-    try {
-      return Long.parseLong(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Long deserialize(@NonNull CharSequence chars, int start, int end) {
+    return StringSerializers.parseLong(chars, start, end,
+        Long.MIN_VALUE, Long.MAX_VALUE, "long");
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+public enum ShortByteBufferSerializer implements ByteBufferSerializer<Short> {
+  INSTANCE;
+
+  private static final int SIZE = 2;
+
+  @Override
+  public int sizeOf(@NonNull Short obj) {
+    return SIZE;
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull Short obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull Short obj, @NonNull ByteBuffer out) {
+    out.putShort(obj);
+  }
+
+  @NonNull
+  @Override
+  public Short deserialize(@NonNull ByteBuffer in) {
+    ByteBufferSerializers.checkRemaining(in, SIZE);
+    return in.getShort();
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum ShortStringSerializer implements StringSerializer<Short> {
   INSTANCE;
 
@@ -11,14 +13,22 @@ public enum ShortStringSerializer implements StringSerializer<Short> {
     return obj.toString();
   }
 
+  @Override
+  public void serialize(@NonNull Short obj, @NonNull Appendable out) throws IOException {
+    StringSerializers.appendLong(out, obj);
+  }
+
   @Override
   @NonNull
   public Short deserialize(@NonNull String string) {
-    try {
-      return Short.parseShort(string);
-    } catch (Throwable t) {
-      throw new SerializeException(t);
-    }
+    return deserialize(string, 0, string.length());
+  }
+
+  @Override
+  @NonNull
+  public Short deserialize(@NonNull CharSequence chars, int start, int end) {
+    return (short) StringSerializers.parseLong(chars, start, end,
+        Short.MIN_VALUE, Short.MAX_VALUE, "short");
   }
 
 }
@@ -0,0 +1,35 @@
+package com.gmail.collinsmith70.serializer;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes strings as their length in bytes followed by their UTF-8 encoding.
+ */
+public enum StringByteBufferSerializer implements ByteBufferSerializer<String> {
+  INSTANCE;
+
+  @Override
+  public int sizeOf(@NonNull String obj) {
+    return ByteBufferSerializers.sizeOfString(obj);
+  }
+
+  @NonNull
+  @Override
+  public ByteBuffer serialize(@NonNull String obj) {
+    return ByteBufferSerializers.serialize(this, obj);
+  }
+
+  @Override
+  public void serialize(@NonNull String obj, @NonNull ByteBuffer out) {
+    ByteBufferSerializers.putString(out, obj);
+  }
+
+  @NonNull
+  @Override
+  public String deserialize(@NonNull ByteBuffer in) {
+    return ByteBufferSerializers.getString(in);
+  }
+
+}
@@ -2,9 +2,16 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 /**
  * Implementation of a {@link Serializer} which (de)serializes objects of the specified type
  * {@link T} to and from a {@link String} representation.
+ * <p>
+ * In addition to whole strings, serializations can be read from a range of any
+ * {@link CharSequence} and written to any {@link Appendable}, which allows callers holding a
+ * buffer, e.g., a line of a config file or of console input, to (de)serialize values without
+ * creating intermediate strings.
  *
  * @param <T> The type of object which this {@code StringSerializer} accepts
  */
@@ -14,8 +21,23 @@ public interface StringSerializer<T> extends Serializer<T, String> {
   @Override
   String serialize(@NonNull T obj);
 
+  /**
+   * Appends the serialization of {@code obj} to {@code out}.
+   *
+   * @throws IOException if {@code out} throws one
+   */
+  void serialize(@NonNull T obj, @NonNull Appendable out) throws IOException;
+
   @NonNull
   @Override
   T deserialize(@NonNull String string);
 
+  /**
+   * Deserializes the serialization within {@code [start, end)} of {@code chars}.
+   *
+   * @throws SerializeException if the range is not a valid serialization
+   */
+  @NonNull
+  T deserialize(@NonNull CharSequence chars, int start, int end);
+
 }
@@ -0,0 +1,319 @@
+package com.gmail.collinsmith70.serializer;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Parsers and formatters shared by the {@link StringSerializer} implementations which read from
+ * ranges of a {@link CharSequence} and write to an {@link Appendable} without creating
+ * intermediate strings.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class StringSerializers {
+
+  /**
+   * Powers of ten which are exactly representable as {@code double} values.
+   */
+  private static final double[] DOUBLE_POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * Powers of ten which are exactly representable as {@code float} values.
+   */
+  private static final float[] FLOAT_POWERS_OF_TEN = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  /**
+   * Largest mantissa which is exactly representable as a {@code double}.
+   */
+  private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+  /**
+   * Largest mantissa which is exactly representable as a {@code float}.
+   */
+  private static final long MAX_EXACT_FLOAT = 1L << 24;
+
+  /**
+   * Returned by {@link #parseDecimal} if a range cannot be parsed exactly.
+   */
+  private static final long NOT_DECIMAL = -1;
+
+  private static final long MANTISSA_MASK = (1L << 56) - 1;
+
+  private StringSerializers() {
+  }
+
+  /**
+   * Throws an {@link IndexOutOfBoundsException} if {@code [start, end)} is not a valid range
+   * within {@code chars}.
+   */
+  public static void checkRange(@NonNull CharSequence chars, int start, int end) {
+    Preconditions.checkArgument(chars != null, "chars cannot be null");
+    Preconditions.checkPositionIndexes(start, end, chars.length());
+  }
+
+  /**
+   * Returns whether or not the specified range of {@code chars} is equal to {@code str}, ignoring
+   * case.
+   */
+  public static boolean equalsIgnoreCase(@NonNull CharSequence chars, int start, int end,
+                                         @NonNull String str) {
+    if (end - start != str.length()) {
+      return false;
+    }
+
+    for (int i = start, j = 0; i < end; i++, j++) {
+      final char c1 = chars.charAt(i);
+      final char c2 = str.charAt(j);
+      if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns whether or not the specified range of {@code chars} is an optionally signed sequence
+   * of decimal digits.
+   */
+  public static boolean isInteger(@NonNull CharSequence chars, int start, int end) {
+    if (start < end && (chars.charAt(start) == '-' || chars.charAt(start) == '+')) {
+      start++;
+    }
+
+    if (start == end) {
+      return false;
+    }
+
+    for (int i = start; i < end; i++) {
+      final char c = chars.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Parses the specified range of {@code chars} as an optionally signed decimal integer within
+   * {@code [min, max]}.
+   *
+   * @param type Name of the type being parsed, used within the message of exceptions
+   *
+   * @throws SerializeException if the range is not an integer, or it is outside of
+   *                            {@code [min, max]}
+   */
+  public static long parseLong(@NonNull CharSequence chars, int start, int end,
+                               long min, long max, @NonNull String type) {
+    checkRange(chars, start, end);
+    int i = start;
+    boolean negative = false;
+    if (i < end) {
+      final char c = chars.charAt(i);
+      if (c == '-') {
+        negative = true;
+        i++;
+      } else if (c == '+') {
+        i++;
+      }
+    }
+
+    if (i == end) {
+      throw invalid(chars, start, end, type);
+    }
+
+    // accumulated negatively so that Long.MIN_VALUE can be represented
+    final long limit = negative ? min : -max;
+    final long multiplyLimit = limit / 10;
+    long result = 0;
+    for (; i < end; i++) {
+      final int digit = chars.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw invalid(chars, start, end, type);
+      } else if (result < multiplyLimit) {
+        throw outOfRange(chars, start, end, type);
+      }
+
+      result *= 10;
+      if (result < limit + digit) {
+        throw outOfRange(chars, start, end, type);
+      }
+
+      result -= digit;
+    }
+
+    return negative ? result : -result;
+  }
+
+  public static int parseInt(@NonNull CharSequence chars, int start, int end) {
+    return (int) parseLong(chars, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+  }
+
+  /**
+   * Parses the specified range of {@code chars} as a {@code double}. Plain decimals such as
+   * {@code -12.375} whose digits fit within the precision of a {@code double} are parsed without
+   * allocating, and are correctly rounded. Anything else is delegated to
+   * {@link Double#parseDouble}.
+   *
+   * @throws SerializeException if the range is not a valid {@code double}
+   */
+  public static double parseDouble(@NonNull CharSequence chars, int start, int end) {
+    checkRange(chars, start, end);
+    final long decimal = parseDecimal(chars, start, end, MAX_EXACT_DOUBLE,
+        DOUBLE_POWERS_OF_TEN.length - 1);
+    if (decimal != NOT_DECIMAL) {
+      final double mantissa = decimal & MANTISSA_MASK;
+      final double value = mantissa / DOUBLE_POWERS_OF_TEN[(int) (decimal >>> 56)];
+      return chars.charAt(start) == '-' ? -value : value;
+    }
+
+    try {
+      return Double.parseDouble(chars.subSequence(start, end).toString());
+    } catch (NumberFormatException e) {
+      throw invalid(chars, start, end, "double");
+    }
+  }
+
+  /**
+   * Parses the specified range of {@code chars} as a {@code float}.
+   *
+   * @see #parseDouble
+   */
+  public static float parseFloat(@NonNull CharSequence chars, int start, int end) {
+    checkRange(chars, start, end);
+    final long decimal = parseDecimal(chars, start, end, MAX_EXACT_FLOAT,
+        FLOAT_POWERS_OF_TEN.length - 1);
+    if (decimal != NOT_DECIMAL) {
+      final float mantissa = decimal & MANTISSA_MASK;
+      final float value = mantissa / FLOAT_POWERS_OF_TEN[(int) (decimal >>> 56)];
+      return chars.charAt(start) == '-' ? -value : value;
+    }
+
+    try {
+      return Float.parseFloat(chars.subSequence(start, end).toString());
+    } catch (NumberFormatException e) {
+      throw invalid(chars, start, end, "float");
+    }
+  }
+
+  /**
+   * Parses a plain decimal, i.e., {@code [+-]digits[.digits]}, returning its unsigned mantissa
+   * within the low 56 bits and the number of fraction digits within the high 8 bits, or
+   * {@link #NOT_DECIMAL} if the range is not a plain decimal, its mantissa is larger than
+   * {@code maxMantissa} or it has more than {@code maxScale} fraction digits.
+   */
+  private static long parseDecimal(@NonNull CharSequence chars, int start, int end,
+                                   long maxMantissa, int maxScale) {
+    int i = start;
+    if (i < end && (chars.charAt(i) == '-' || chars.charAt(i) == '+')) {
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; i < end; i++) {
+      final char c = chars.charAt(i);
+      if (c == '.' && scale == -1) {
+        scale = 0;
+        continue;
+      } else if (c < '0' || c > '9') {
+        return NOT_DECIMAL;
+      }
+
+      mantissa = mantissa * 10 + (c - '0');
+      if (mantissa > maxMantissa) {
+        return NOT_DECIMAL;
+      }
+
+      digits++;
+      if (scale >= 0 && ++scale > maxScale) {
+        // leading zeros do not grow the mantissa, so the scale must be bounded separately
+        return NOT_DECIMAL;
+      }
+    }
+
+    if (digits == 0) {
+      return NOT_DECIMAL;
+    }
+
+    return ((long) Math.max(scale, 0) << 56) | mantissa;
+  }
+
+  /**
+   * Appends the decimal representation of {@code value} to {@code out} without creating a string.
+   */
+  public static void appendLong(@NonNull Appendable out, long value) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+      return;
+    }
+
+    if (value < 0) {
+      out.append('-');
+    } else {
+      // digits are written negatively so that Long.MIN_VALUE can be represented
+      value = -value;
+    }
+
+    long divisor = -1;
+    while (value / 10 <= divisor) {
+      divisor *= 10;
+    }
+
+    for (; divisor != 0; divisor /= 10) {
+      out.append((char) ('0' + value / divisor));
+      value %= divisor;
+    }
+  }
+
+  /**
+   * Appends the representation of {@code value} used by {@link Double#toString(double)} to
+   * {@code out}. The representation is only written without creating a string if {@code out} is a
+   * {@link StringBuilder}.
+   */
+  public static void appendDouble(@NonNull Appendable out, double value) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    } else {
+      out.append(Double.toString(value));
+    }
+  }
+
+  /**
+   * Appends the representation of {@code value} used by {@link Float#toString(float)} to
+   * {@code out}.
+   *
+   * @see #appendDouble
+   */
+  public static void appendFloat(@NonNull Appendable out, float value) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    } else {
+      out.append(Float.toString(value));
+    }
+  }
+
+  @NonNull
+  public static SerializeException invalid(@NonNull CharSequence chars, int start, int end,
+                                           @NonNull String type) {
+    return new SerializeException(String.format("Invalid %s: \"%s\"",
+        type, chars.subSequence(start, end)));
+  }
+
+  @NonNull
+  private static SerializeException outOfRange(@NonNull CharSequence chars, int start, int end,
+                                               @NonNull String type) {
+    return new SerializeException(String.format("Value out of range for %s: \"%s\"",
+        type, chars.subSequence(start, end)));
+  }
+
+}
@@ -2,6 +2,8 @@ package com.gmail.collinsmith70.serializer;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+
 public enum StringStringSerializer implements StringSerializer<String> {
   INSTANCE;
 
@@ -11,9 +13,25 @@ public enum StringStringSerializer implements StringSerializer<String> {
     return obj;
   }
 
+  @Override
+  public void serialize(@NonNull String obj, @NonNull Appendable out) throws IOException {
+    out.append(obj);
+  }
+
   @NonNull
   @Override
   public String deserialize(@NonNull String string) {
     return string;
   }
+
+  @NonNull
+  @Override
+  public String deserialize(@NonNull CharSequence chars, int start, int end) {
+    StringSerializers.checkRange(chars, start, end);
+    if (chars instanceof String && start == 0 && end == chars.length()) {
+      return (String) chars;
+    }
+
+    return chars.subSequence(start, end).toString();
+  }
 }
@@ -0,0 +1,520 @@
+package com.gmail.collinsmith70.store;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent key-value store backed by an append-only log of binary records within a
+ * memory-mapped file. Values are kept in memory, so reads never touch the file, and each write
+ * appends a single record which is persisted by the OS or by {@link #force}.
+ * <p>
+ * Each record is checksummed, and records are tagged with the epoch of the log they belong to, so
+ * a torn write (or a stale record left behind by a previous compaction) ends the log when it is
+ * read back rather than corrupting it. Superseded records are discarded by {@link #compact},
+ * which first writes the compacted log to a separate file so that it can be redone if the
+ * process dies while the log is being rewritten in place.
+ * <p>
+ * Layout: {@code header := magic:int version:int epoch:int} followed by
+ * {@code record := length:int crc:int epoch:int type:byte keyLength:short key value}, where
+ * {@code length} and {@code crc} cover everything after the {@code crc}. A record with a length of
+ * {@code 0} terminates the log.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" })
+public class MappedRecordStore implements Closeable {
+
+  private static final int MAGIC = 0x44434647; // DCFG
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 12;
+
+  /**
+   * Size of the fields preceding the body of a record ({@code length} and {@code crc}).
+   */
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /**
+   * Size of the fields preceding the key within the body of a record.
+   */
+  private static final int BODY_HEADER_SIZE = 7;
+
+  private static final int TERMINATOR_SIZE = 4;
+
+  private static final byte TYPE_PUT = 1;
+  private static final byte TYPE_REMOVE = 2;
+
+  /**
+   * Marks the end of a complete compacted log. Ignored when reading the main log.
+   */
+  private static final byte TYPE_END = 3;
+
+  private static final int INITIAL_CAPACITY = 16 * 1024;
+
+  /**
+   * Minimum size of the log before {@link #force} will compact it.
+   */
+  private static final int COMPACTION_THRESHOLD = 4 * 1024;
+
+  private static final String COMPACTION_SUFFIX = ".compact";
+
+  @NonNull
+  private final File FILE;
+
+  @NonNull
+  private final File COMPACTION_FILE;
+
+  @NonNull
+  private final RandomAccessFile RAF;
+
+  @NonNull
+  private final FileChannel CHANNEL;
+
+  @NonNull
+  private final Map<String, byte[]> VALUES;
+
+  @NonNull
+  private final CRC32 CRC;
+
+  @NonNull
+  private MappedByteBuffer buffer;
+
+  private int epoch;
+
+  /**
+   * Offset of the terminator of the log, i.e., where the next record will be written.
+   */
+  private int end;
+
+  /**
+   * Total size of the records which have not been superseded.
+   */
+  private int liveBytes;
+
+  private boolean dirty;
+
+  private boolean closed;
+
+  public MappedRecordStore(@NonNull File file) {
+    Preconditions.checkArgument(file != null, "file cannot be null");
+    this.FILE = file;
+    this.COMPACTION_FILE = new File(file.getPath() + COMPACTION_SUFFIX);
+    this.VALUES = new LinkedHashMap<>();
+    this.CRC = new CRC32();
+    try {
+      this.RAF = new RandomAccessFile(file, "rw");
+      this.CHANNEL = RAF.getChannel();
+      final long size = CHANNEL.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new RecordStoreException(file + " is too large to be a record store");
+      }
+
+      this.buffer = CHANNEL.map(FileChannel.MapMode.READ_WRITE, 0,
+          Math.max((int) size, INITIAL_CAPACITY));
+      if (size < HEADER_SIZE) {
+        writeHeader(0);
+      } else if (buffer.getInt(0) != MAGIC) {
+        throw new RecordStoreException(file + " is not a record store");
+      } else if (buffer.getInt(4) != VERSION) {
+        throw new RecordStoreException(String.format("%s has unsupported version %d",
+            file, buffer.getInt(4)));
+      }
+
+      recover();
+      read();
+    } catch (IOException e) {
+      throw new RecordStoreException(e);
+    }
+  }
+
+  @NonNull
+  public File getFile() {
+    return FILE;
+  }
+
+  public synchronized int size() {
+    return VALUES.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return VALUES.isEmpty();
+  }
+
+  public synchronized boolean contains(@Nullable String key) {
+    return VALUES.containsKey(key);
+  }
+
+  @NonNull
+  public synchronized Set<String> keys() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(VALUES.keySet()));
+  }
+
+  /**
+   * Returns the value associated with the specified key, or {@code null} if there is none. The
+   * returned array must not be modified.
+   */
+  @Nullable
+  public synchronized byte[] get(@Nullable String key) {
+    return VALUES.get(key);
+  }
+
+  @Nullable
+  public String getString(@Nullable String key) {
+    final byte[] value = get(key);
+    return value != null ? new String(value, Charsets.UTF_8) : null;
+  }
+
+  /**
+   * Associates the specified value with the specified key. Nothing is written if the key is
+   * already associated with an equal value.
+   */
+  public synchronized void put(@NonNull String key, @NonNull byte[] value) {
+    Preconditions.checkArgument(key != null, "key cannot be null");
+    Preconditions.checkArgument(value != null, "value cannot be null");
+    checkOpen();
+    final byte[] prev = VALUES.get(key);
+    if (Arrays.equals(prev, value)) {
+      return;
+    }
+
+    final byte[] keyBytes = key.getBytes(Charsets.UTF_8);
+    if (prev != null) {
+      liveBytes -= sizeOf(keyBytes.length, prev.length);
+    }
+
+    append(TYPE_PUT, keyBytes, value);
+    liveBytes += sizeOf(keyBytes.length, value.length);
+    VALUES.put(key, value.clone());
+  }
+
+  public void putString(@NonNull String key, @NonNull String value) {
+    Preconditions.checkArgument(value != null, "value cannot be null");
+    put(key, value.getBytes(Charsets.UTF_8));
+  }
+
+  public synchronized boolean remove(@Nullable String key) {
+    checkOpen();
+    final byte[] prev = VALUES.remove(key);
+    if (prev == null) {
+      return false;
+    }
+
+    final byte[] keyBytes = key.getBytes(Charsets.UTF_8);
+    liveBytes -= sizeOf(keyBytes.length, prev.length);
+    append(TYPE_REMOVE, keyBytes, new byte[0]);
+    return true;
+  }
+
+  /**
+   * Returns the size of the log, including records which have been superseded.
+   */
+  public synchronized int getLogSize() {
+    return end - HEADER_SIZE;
+  }
+
+  /**
+   * Returns the size of the records within the log which have been superseded.
+   */
+  public synchronized int getGarbageSize() {
+    return end - HEADER_SIZE - liveBytes;
+  }
+
+  /**
+   * Writes all changes to the underlying storage device, compacting the log first if more than
+   * half of it has been superseded.
+   */
+  public synchronized void force() {
+    checkOpen();
+    if (getLogSize() >= COMPACTION_THRESHOLD && getGarbageSize() > liveBytes) {
+      compact();
+      return;
+    }
+
+    if (dirty) {
+      buffer.force();
+      dirty = false;
+    }
+  }
+
+  /**
+   * Rewrites the log so that it only contains the current value of each key.
+   */
+  public synchronized void compact() {
+    checkOpen();
+    final byte[] image = createImage(epoch + 1);
+    try {
+      // written separately first so that an interrupted rewrite can be redone by recover()
+      FileOutputStream out = new FileOutputStream(COMPACTION_FILE);
+      try {
+        out.write(image);
+        out.getFD().sync();
+      } finally {
+        out.close();
+      }
+
+      install(image);
+      if (!COMPACTION_FILE.delete()) {
+        throw new IOException("Unable to delete " + COMPACTION_FILE);
+      }
+    } catch (IOException e) {
+      throw new RecordStoreException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+
+    try {
+      buffer.force();
+      CHANNEL.close();
+      RAF.close();
+    } catch (IOException e) {
+      throw new RecordStoreException(e);
+    } finally {
+      closed = true;
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new RecordStoreException(FILE + " has been closed");
+    }
+  }
+
+  private static int sizeOf(int keyLength, int valueLength) {
+    return RECORD_HEADER_SIZE + BODY_HEADER_SIZE + keyLength + valueLength;
+  }
+
+  private void writeHeader(int epoch) {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, epoch);
+    buffer.putInt(HEADER_SIZE, 0);
+  }
+
+  private void append(byte type, @NonNull byte[] key, @NonNull byte[] value) {
+    if (key.length > 0xFFFF) {
+      throw new RecordStoreException("key cannot be longer than 65535 bytes");
+    }
+
+    final int size = sizeOf(key.length, value.length);
+    ensureCapacity(end + size + TERMINATOR_SIZE);
+    final int bodyLength = size - RECORD_HEADER_SIZE;
+    final int body = end + RECORD_HEADER_SIZE;
+    buffer.putInt(body, epoch);
+    buffer.put(body + 4, type);
+    buffer.putShort(body + 5, (short) key.length);
+    for (int i = 0; i < key.length; i++) {
+      buffer.put(body + BODY_HEADER_SIZE + i, key[i]);
+    }
+
+    for (int i = 0, offset = body + BODY_HEADER_SIZE + key.length; i < value.length; i++) {
+      buffer.put(offset + i, value[i]);
+    }
+
+    buffer.putInt(end + size, 0);
+    buffer.putInt(end + 4, checksum(buffer, body, bodyLength));
+    // length is written last, so the record is ignored until it is complete
+    buffer.putInt(end, bodyLength);
+    end += size;
+    dirty = true;
+  }
+
+  private int checksum(@NonNull ByteBuffer buffer, int offset, int length) {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(offset + i);
+    }
+
+    CRC.reset();
+    CRC.update(bytes, 0, length);
+    return (int) CRC.getValue();
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= buffer.capacity()) {
+      return;
+    }
+
+    try {
+      buffer.force();
+      buffer = CHANNEL.map(FileChannel.MapMode.READ_WRITE, 0,
+          Math.max(capacity, buffer.capacity() * 2));
+    } catch (IOException e) {
+      throw new RecordStoreException(e);
+    }
+  }
+
+  /**
+   * Reads the log into memory, stopping at the first record which is incomplete, corrupt or from
+   * a previous epoch.
+   */
+  private void read() {
+    VALUES.clear();
+    this.epoch = buffer.getInt(8);
+    this.end = scan(buffer, buffer.capacity(), epoch, VALUES);
+    this.liveBytes = 0;
+    for (Map.Entry<String, byte[]> entry : VALUES.entrySet()) {
+      liveBytes += sizeOf(entry.getKey().getBytes(Charsets.UTF_8).length,
+          entry.getValue().length);
+    }
+
+    ensureCapacity(end + TERMINATOR_SIZE);
+    buffer.putInt(end, 0);
+  }
+
+  /**
+   * Applies the records within the specified log to {@code values}.
+   *
+   * @return The offset after the last valid record, or {@code -1} if the log ended with a
+   *         {@linkplain #TYPE_END end} record
+   */
+  private int scan(@NonNull ByteBuffer log, int limit, int epoch,
+                   @NonNull Map<String, byte[]> values) {
+    int offset = HEADER_SIZE;
+    while (offset + RECORD_HEADER_SIZE <= limit) {
+      final int length = log.getInt(offset);
+      final int body = offset + RECORD_HEADER_SIZE;
+      if (length < BODY_HEADER_SIZE || length > limit - body) {
+        break;
+      } else if (log.getInt(body) != epoch) {
+        break;
+      } else if (log.getInt(offset + 4) != checksum(log, body, length)) {
+        break;
+      }
+
+      final byte type = log.get(body + 4);
+      final int keyLength = log.getShort(body + 5) & 0xFFFF;
+      if (keyLength > length - BODY_HEADER_SIZE) {
+        break;
+      }
+
+      final byte[] key = new byte[keyLength];
+      for (int i = 0; i < keyLength; i++) {
+        key[i] = log.get(body + BODY_HEADER_SIZE + i);
+      }
+
+      final byte[] value = new byte[length - BODY_HEADER_SIZE - keyLength];
+      for (int i = 0, start = body + BODY_HEADER_SIZE + keyLength; i < value.length; i++) {
+        value[i] = log.get(start + i);
+      }
+
+      switch (type) {
+        case TYPE_PUT:
+          values.put(new String(key, Charsets.UTF_8), value);
+          break;
+        case TYPE_REMOVE:
+          values.remove(new String(key, Charsets.UTF_8));
+          break;
+        case TYPE_END:
+          if (body + length == limit) {
+            return -1;
+          }
+
+          break;
+        default:
+          return offset;
+      }
+
+      offset = body + length;
+    }
+
+    return offset;
+  }
+
+  /**
+   * Completes a compaction which was interrupted while the log was being rewritten, or discards
+   * it if the compacted log was not completely written.
+   */
+  private void recover() throws IOException {
+    if (!COMPACTION_FILE.exists()) {
+      return;
+    }
+
+    final byte[] image = new byte[(int) COMPACTION_FILE.length()];
+    final RandomAccessFile in = new RandomAccessFile(COMPACTION_FILE, "r");
+    try {
+      in.readFully(image);
+    } finally {
+      in.close();
+    }
+
+    final ByteBuffer log = ByteBuffer.wrap(image);
+    if (image.length >= HEADER_SIZE && log.getInt(0) == MAGIC && log.getInt(4) == VERSION
+        && scan(log, image.length, log.getInt(8), new LinkedHashMap<String, byte[]>()) == -1) {
+      install(image);
+    }
+
+    if (!COMPACTION_FILE.delete()) {
+      throw new IOException("Unable to delete " + COMPACTION_FILE);
+    }
+  }
+
+  @NonNull
+  private byte[] createImage(int epoch) {
+    int size = HEADER_SIZE + sizeOf(0, 0);
+    for (Map.Entry<String, byte[]> entry : VALUES.entrySet()) {
+      size += sizeOf(entry.getKey().getBytes(Charsets.UTF_8).length, entry.getValue().length);
+    }
+
+    final ByteBuffer image = ByteBuffer.allocate(size);
+    image.putInt(MAGIC).putInt(VERSION).putInt(epoch);
+    for (Map.Entry<String, byte[]> entry : VALUES.entrySet()) {
+      putRecord(image, epoch, TYPE_PUT, entry.getKey().getBytes(Charsets.UTF_8), entry.getValue());
+    }
+
+    putRecord(image, epoch, TYPE_END, new byte[0], new byte[0]);
+    return image.array();
+  }
+
+  private void putRecord(@NonNull ByteBuffer image, int epoch, byte type, @NonNull byte[] key,
+                         @NonNull byte[] value) {
+    final int offset = image.position();
+    final int bodyLength = BODY_HEADER_SIZE + key.length + value.length;
+    image.putInt(bodyLength);
+    image.putInt(0);
+    image.putInt(epoch);
+    image.put(type);
+    image.putShort((short) key.length);
+    image.put(key);
+    image.put(value);
+    image.putInt(offset + 4, checksum(image, offset + RECORD_HEADER_SIZE, bodyLength));
+  }
+
+  /**
+   * Replaces the log with the specified compacted log.
+   */
+  private void install(@NonNull byte[] image) {
+    ensureCapacity(image.length + TERMINATOR_SIZE);
+    for (int i = 0; i < image.length; i++) {
+      buffer.put(i, image[i]);
+    }
+
+    buffer.putInt(image.length, 0);
+    buffer.force();
+    dirty = false;
+    read();
+  }
+
+}
@@ -0,0 +1,27 @@
+package com.gmail.collinsmith70.store;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+@SuppressWarnings({ "WeakerAccess", "unused" })
+public class RecordStoreException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public RecordStoreException() {
+    super();
+  }
+
+  public RecordStoreException(@Nullable String message) {
+    super(message);
+  }
+
+  public RecordStoreException(@NonNull Throwable cause) {
+    super(cause);
+  }
+
+  public RecordStoreException(@Nullable String message, @NonNull Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,286 @@
+package com.gmail.collinsmith70.util;
+
+import com.google.common.base.Preconditions;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in instrumentation of listener dispatch. While {@linkplain #setEnabled enabled}, each
+ * dispatch site surrounds the listener it notifies with {@link #start()} and {@link #stop}, which
+ * records the invocation count and a latency histogram for the class of that listener. Statistics
+ * are keyed by class rather than by instance, so profiling never keeps listeners reachable after
+ * they are removed. While disabled, the cost of a dispatch is a single volatile read.
+ * <p>
+ * Note: Latencies are inclusive, e.g., the time recorded for a {@code CvarManager} includes the
+ * time spent notifying its subtree listeners.
+ * <p>
+ * Usage:
+ * <pre>
+ * final long start = ListenerProfiler.start();
+ * l.onChanged(this, from, to);
+ * ListenerProfiler.stop(l, ALIAS, start);
+ * </pre>
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class ListenerProfiler {
+
+  /**
+   * Returned by {@link #start()} while profiling is disabled.
+   */
+  public static final long NOT_PROFILING = Long.MIN_VALUE;
+
+  /**
+   * Number of buckets in each latency histogram. Bucket {@code 0} counts latencies under 1us, and
+   * bucket {@code i} counts latencies within [2<sup>i-1</sup>, 2<sup>i</sup>) us. The last bucket
+   * also counts every latency longer than that.
+   */
+  public static final int BUCKETS = 24;
+
+  private static final Map<Class<?>, Stats> STATS = new IdentityHashMap<>();
+
+  private static volatile boolean enabled;
+
+  private ListenerProfiler() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables or disables profiling. Statistics recorded so far are kept until {@link #reset()}.
+   */
+  public static void setEnabled(boolean enabled) {
+    ListenerProfiler.enabled = enabled;
+  }
+
+  /**
+   * Discards all recorded statistics.
+   */
+  public static void reset() {
+    synchronized (STATS) {
+      STATS.clear();
+    }
+  }
+
+  /**
+   * Returns the time a dispatch to a listener started, or {@link #NOT_PROFILING} if profiling is
+   * disabled.
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : NOT_PROFILING;
+  }
+
+  /**
+   * Records a dispatch to the specified listener.
+   *
+   * @param listener The listener which was notified
+   * @param source   A description of the object which notified the listener, e.g., the alias of a
+   *                 cvar
+   * @param start    The value returned by {@link #start()} before the listener was notified
+   */
+  public static void stop(@NonNull Object listener, @Nullable String source, long start) {
+    if (start == NOT_PROFILING) {
+      return;
+    }
+
+    final long latency = System.nanoTime() - start;
+    synchronized (STATS) {
+      final Class<?> type = listener.getClass();
+      Stats stats = STATS.get(type);
+      if (stats == null) {
+        stats = new Stats(type.getName());
+        STATS.put(type, stats);
+      }
+
+      stats.record(source, latency);
+    }
+  }
+
+  /**
+   * Returns a copy of the statistics recorded for each class of listener, sorted by the total
+   * time spent within each class, in descending order.
+   */
+  @NonNull
+  public static List<Stats> getStats() {
+    final List<Stats> stats;
+    synchronized (STATS) {
+      stats = new ArrayList<>(STATS.size());
+      for (Stats s : STATS.values()) {
+        stats.add(new Stats(s));
+      }
+    }
+
+    Collections.sort(stats, new Comparator<Stats>() {
+      @Override
+      public int compare(Stats s1, Stats s2) {
+        return s1.totalNanos < s2.totalNanos ? 1 : (s1.totalNanos == s2.totalNanos ? 0 : -1);
+      }
+    });
+
+    return stats;
+  }
+
+  /**
+   * Writes a table of the statistics of each class of listener to the specified writer.
+   */
+  public static void print(@NonNull PrintWriter out) {
+    print(out, getStats());
+    out.flush();
+  }
+
+  private static void print(@NonNull PrintWriter out, @NonNull List<Stats> stats) {
+    out.printf("%-60s %10s %12s %10s %10s %10s  %s%n",
+        "listener", "calls", "total (us)", "p50 (us)", "p99 (us)", "max (us)", "slowest");
+    for (Stats s : stats) {
+      out.printf("%-60s %10d %12d %10d %10d %10d  %s%n",
+          s.getLabel(),
+          s.getInvocations(),
+          s.getTotalTime(TimeUnit.MICROSECONDS),
+          s.getPercentile(0.50, TimeUnit.MICROSECONDS),
+          s.getPercentile(0.99, TimeUnit.MICROSECONDS),
+          s.getMaxTime(TimeUnit.MICROSECONDS),
+          s.getSlowestSource());
+    }
+  }
+
+  /**
+   * Writes the table written by {@link #print}, followed by the latency histogram of each
+   * listener, to the specified writer.
+   */
+  public static void dump(@NonNull PrintWriter out) {
+    final List<Stats> stats = getStats();
+    print(out, stats);
+    for (Stats s : stats) {
+      out.printf("%n%s%n", s.getLabel());
+      final long[] histogram = s.getHistogram();
+      for (int i = 0; i < histogram.length; i++) {
+        if (histogram[i] > 0) {
+          out.printf("  < %8d us %10d%n", 1L << i, histogram[i]);
+        }
+      }
+    }
+
+    out.flush();
+  }
+
+  /**
+   * Statistics recorded for the listeners of a single class.
+   */
+  public static final class Stats {
+
+    @NonNull
+    private final String LABEL;
+
+    @NonNull
+    private final long[] HISTOGRAM;
+
+    private long invocations;
+
+    private long totalNanos;
+
+    private long maxNanos;
+
+    @Nullable
+    private String slowestSource;
+
+    private Stats(@NonNull String label) {
+      this.LABEL = label;
+      this.HISTOGRAM = new long[BUCKETS];
+    }
+
+    private Stats(@NonNull Stats stats) {
+      this.LABEL = stats.LABEL;
+      this.HISTOGRAM = Arrays.copyOf(stats.HISTOGRAM, BUCKETS);
+      this.invocations = stats.invocations;
+      this.totalNanos = stats.totalNanos;
+      this.maxNanos = stats.maxNanos;
+      this.slowestSource = stats.slowestSource;
+    }
+
+    private void record(@Nullable String source, long latency) {
+      invocations++;
+      totalNanos += latency;
+      if (latency > maxNanos || slowestSource == null) {
+        maxNanos = Math.max(maxNanos, latency);
+        slowestSource = source;
+      }
+
+      final long micros = TimeUnit.NANOSECONDS.toMicros(latency);
+      final int bucket = micros <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(micros);
+      HISTOGRAM[Math.min(bucket, BUCKETS - 1)]++;
+    }
+
+    /**
+     * Returns the name of the class of the listener.
+     */
+    @NonNull
+    public String getLabel() {
+      return LABEL;
+    }
+
+    public long getInvocations() {
+      return invocations;
+    }
+
+    public long getTotalTime(@NonNull TimeUnit unit) {
+      return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxTime(@NonNull TimeUnit unit) {
+      return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the source of the slowest dispatch to the listener.
+     */
+    @Nullable
+    public String getSlowestSource() {
+      return slowestSource;
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of latencies, limited by the resolution
+     * of the histogram.
+     *
+     * @param percentile The percentile, within [0, 1]
+     */
+    public long getPercentile(double percentile, @NonNull TimeUnit unit) {
+      Preconditions.checkArgument(0.0 <= percentile && percentile <= 1.0,
+          "percentile must be within [0, 1]");
+      final long rank = (long) Math.ceil(percentile * invocations);
+      long count = 0;
+      for (int i = 0; i < BUCKETS - 1; i++) {
+        count += HISTOGRAM[i];
+        if (count >= rank) {
+          return Math.min(unit.convert(1L << i, TimeUnit.MICROSECONDS), getMaxTime(unit));
+        }
+      }
+
+      return getMaxTime(unit);
+    }
+
+    /**
+     * Returns a copy of the latency histogram of the listener.
+     *
+     * @see #BUCKETS
+     */
+    @NonNull
+    public long[] getHistogram() {
+      return Arrays.copyOf(HISTOGRAM, BUCKETS);
+    }
+
+  }
+
+}
@@ -1,5 +1,6 @@
 package com.gmail.collinsmith70.validator;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 /**
@@ -15,7 +16,10 @@ public final class AcceptAllValidator extends SimpleValidator {
    *
    * @param obj {@inheritDoc}
    */
+  @NonNull
   @Override
-  public void validate(@Nullable Object obj) {}
+  public ValidationResult check(@Nullable Object obj) {
+    return ValidationResult.VALID;
+  }
 
 }
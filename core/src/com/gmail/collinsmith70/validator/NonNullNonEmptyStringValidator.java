@@ -5,17 +5,29 @@ import android.support.annotation.NonNull;
 @SuppressWarnings("unused")
 public class NonNullNonEmptyStringValidator extends NonNullValidator {
 
+  @NonNull
+  private static final ValidationResult NOT_A_STRING
+      = ValidationResult.failure("obj is not a String");
+
+  @NonNull
+  private static final ValidationResult EMPTY = ValidationResult.failure("passed String is empty");
+
+  @NonNull
   @Override
-  public void validate(@NonNull Object obj) {
-    super.validate(obj);
-    if (obj.getClass() != String.class) {
-      throw new ValidationException("obj is not a String");
+  public ValidationResult check(@NonNull Object obj) {
+    final ValidationResult result = super.check(obj);
+    if (!result.isValid()) {
+      return result;
+    } else if (obj.getClass() != String.class) {
+      return NOT_A_STRING;
     }
 
     String str = (String) obj;
     if (str.isEmpty()) {
-      throw new ValidationException("passed String is empty");
+      return EMPTY;
     }
+
+    return ValidationResult.VALID;
   }
 
 }
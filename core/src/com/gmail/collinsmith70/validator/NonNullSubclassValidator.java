@@ -16,11 +16,14 @@ public class NonNullSubclassValidator<T> extends NonNullValidator {
 
   /**
    * Reference the {@link Class} this {@linkplain NonNullSubclassValidator} is basing its
-   * {@linkplain #validate(Object) validations} on.
+   * {@linkplain #check(Object) validations} on.
    */
   @NonNull
   private final Class<T> TYPE;
 
+  @NonNull
+  private final ValidationResult NOT_A_SUBCLASS;
+
   /**
    * Constructs a new {@code NonNullSubclassValidator} instance.
    *
@@ -28,6 +31,8 @@ public class NonNullSubclassValidator<T> extends NonNullValidator {
    */
   public NonNullSubclassValidator(@NonNull Class<T> type) {
     this.TYPE = Preconditions.checkNotNull(type, "type cannot be null");
+    this.NOT_A_SUBCLASS
+        = ValidationResult.failure("passed reference is not a subclass of " + TYPE.getName());
   }
 
   /**
@@ -46,12 +51,17 @@ public class NonNullSubclassValidator<T> extends NonNullValidator {
    *
    * @param obj {@inheritDoc}
    */
+  @NonNull
   @Override
-  public void validate(@NonNull Object obj) {
-    super.validate(obj);
-    if (!TYPE.isAssignableFrom(obj.getClass())) {
-      throw new ValidationException("passed reference is not a subclass of " + TYPE.getName());
+  public ValidationResult check(@NonNull Object obj) {
+    final ValidationResult result = super.check(obj);
+    if (!result.isValid()) {
+      return result;
+    } else if (!TYPE.isAssignableFrom(obj.getClass())) {
+      return NOT_A_SUBCLASS;
     }
+
+    return ValidationResult.VALID;
   }
 
 }
@@ -7,19 +7,21 @@ import android.support.annotation.NonNull;
  */
 public class NonNullValidator extends SimpleValidator {
 
+  @NonNull
+  private static final ValidationResult NULL = ValidationResult.failure("obj cannot be null");
+
   /**
    * Validates that the passed object is not null.
    *
    * @param obj {@inheritDoc}
    */
+  @NonNull
   @Override
   @SuppressWarnings({ "ConstantConditions", "NullableProblems" })
   // The inspection is complaining of this method overriding obj with @NonNull, however this is
   // a special case, where null values are expected to fail
-  public void validate(@NonNull Object obj) {
-    if (obj == null) {
-      throw new ValidationException("obj cannot be null");
-    }
+  public ValidationResult check(@NonNull Object obj) {
+    return obj == null ? NULL : ValidationResult.VALID;
   }
 
 }
@@ -21,6 +21,10 @@ public class NumberRangeValidator<T extends Number & Comparable<? super T>>
     return new NumberRangeValidator<>(type, min, max);
   }
 
+  @NonNull
+  private static final ValidationResult NULL
+      = ValidationResult.failure("passed reference cannot be null");
+
   @NonNull
   private final Class<T> TYPE;
 
@@ -30,6 +34,12 @@ public class NumberRangeValidator<T extends Number & Comparable<? super T>>
   @Nullable
   private final T MAX;
 
+  @NonNull
+  private final ValidationResult NOT_A_SUBCLASS;
+
+  @NonNull
+  private final ValidationResult OUT_OF_RANGE;
+
   /**
    * Constructs a new {@code NumberRangeValidator} instance with the specified minimum and maximum
    * values.
@@ -42,6 +52,9 @@ public class NumberRangeValidator<T extends Number & Comparable<? super T>>
     this.TYPE = type;
     this.MIN = min;
     this.MAX = max;
+    this.NOT_A_SUBCLASS
+        = ValidationResult.failure("passed reference is not a subclass of " + TYPE.getName());
+    this.OUT_OF_RANGE = new RangeValidationResult(min, max);
   }
 
   @Override
@@ -58,38 +71,63 @@ public class NumberRangeValidator<T extends Number & Comparable<? super T>>
 
   @Override
   public boolean isValid(@Nullable Object obj) {
-    try {
-      validate(obj);
-      return true;
-    } catch (ValidationException e) {
-      return false;
-    }
+    return check(obj).isValid();
+  }
+
+  @Override
+  public void validate(@Nullable Object obj) {
+    check(obj).throwIfInvalid();
   }
 
   /**
-   * Validates that the passed object {@code obj} is a {@link Number} which lies within the
+   * Checks that the passed object {@code obj} is a {@link Number} which lies within the
    * {@linkplain RangeValidator#getMin() minimum} and {@linkplain RangeValidator#getMax() maximum}
-   * values of this {@code NumberRangeValidator}.
+   * values of this {@code NumberRangeValidator}. Values outside of the range produce a result which
+   * throws a {@link RangeValidationException}.
    *
    * @param obj {@inheritDoc}
    */
+  @NonNull
   @Override
   @SuppressWarnings("unchecked")
-  public void validate(@Nullable Object obj) {
+  public ValidationResult check(@Nullable Object obj) {
     if (obj == null) {
-      throw new ValidationException("passed reference cannot be null");
+      return NULL;
     }
 
     if (!TYPE.isAssignableFrom(obj.getClass())) {
-      throw new ValidationException(
-              obj.toString() + " is not a subclass of " + TYPE.getName());
+      return NOT_A_SUBCLASS;
     }
 
     T castedObj = (T) obj;
     if ((MIN != null && MIN.compareTo(castedObj) > 0)
         || (MAX != null && MAX.compareTo(castedObj) < 0)) {
-      throw new RangeValidationException(MIN, MAX);
+      return OUT_OF_RANGE;
     }
+
+    return ValidationResult.VALID;
+  }
+
+  private static final class RangeValidationResult extends ValidationResult {
+
+    @Nullable
+    final Object MIN;
+
+    @Nullable
+    final Object MAX;
+
+    RangeValidationResult(@Nullable Object min, @Nullable Object max) {
+      super(false, RangeValidationException.formatMessage(min, max));
+      this.MIN = min;
+      this.MAX = max;
+    }
+
+    @NonNull
+    @Override
+    public ValidationException newException() {
+      return new RangeValidationException(MIN, MAX);
+    }
+
   }
 
 }
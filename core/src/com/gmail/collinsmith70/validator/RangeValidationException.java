@@ -1,5 +1,6 @@
 package com.gmail.collinsmith70.validator;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 /**
@@ -46,7 +47,8 @@ public class RangeValidationException extends ValidationException {
     this.MAX = max;
   }
 
-  private static String formatMessage(@Nullable Object min, @Nullable Object max) {
+  @NonNull
+  /*package*/ static String formatMessage(@Nullable Object min, @Nullable Object max) {
     if (min == null && max != null) {
       return String.format("Value must be less than or equal to %s", max);
     } else if (min != null && max == null) {
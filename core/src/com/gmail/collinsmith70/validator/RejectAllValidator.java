@@ -1,5 +1,6 @@
 package com.gmail.collinsmith70.validator;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 /**
@@ -9,14 +10,18 @@ import android.support.annotation.Nullable;
 @SuppressWarnings("unused")
 public final class RejectAllValidator extends SimpleValidator {
 
+  @NonNull
+  private static final ValidationResult REJECTED = ValidationResult.failure(null);
+
   /**
-   * Rejects the passed object and throws a {@link ValidationException}.
+   * Rejects the passed object.
    *
    * @param obj {@inheritDoc}
    */
+  @NonNull
   @Override
-  public void validate(@Nullable Object obj) {
-    throw new ValidationException();
+  public ValidationResult check(@Nullable Object obj) {
+    return REJECTED;
   }
 
 }
@@ -3,8 +3,8 @@ package com.gmail.collinsmith70.validator;
 import android.support.annotation.Nullable;
 
 /**
- * Partial implementation of a {@link Validator} which determines the return value of
- * {@link #isValid} by checking whether or not {@link #validate} threw an exception.
+ * Partial implementation of a {@link Validator} which determines the return values of
+ * {@link #isValid} and {@link #validate} from the result of {@link #check}.
  */
 public abstract class SimpleValidator implements Validator {
 
@@ -13,16 +13,21 @@ public abstract class SimpleValidator implements Validator {
    *
    * @param obj {@inheritDoc}
    *
-   * @return {@code true} if {@link #validate} will not throw an exception, otherwise {@code false}
+   * @return {@code true} if {@link #check} returns a valid result, otherwise {@code false}
    */
   @Override
   public boolean isValid(@Nullable Object obj) {
-    try {
-      validate(obj);
-      return true;
-    } catch (ValidationException e) {
-      return false;
-    }
+    return check(obj).isValid();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @param obj {@inheritDoc}
+   */
+  @Override
+  public void validate(@Nullable Object obj) {
+    check(obj).throwIfInvalid();
   }
 
 }
@@ -0,0 +1,76 @@
+package com.gmail.collinsmith70.validator;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The outcome of {@linkplain Validator#check checking} an object. Results are immutable, so
+ * validators are expected to create their failures once and return the same instances each time,
+ * which allows values to be probed without allocating. A {@link ValidationException} is only
+ * created if the caller {@linkplain #throwIfInvalid() intends to throw} one.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class ValidationResult {
+
+  /**
+   * Constant reference to the result of a valid object.
+   */
+  public static final ValidationResult VALID = new ValidationResult(true, null);
+
+  /**
+   * Returns a failure with the specified {@code reason}.
+   *
+   * @param reason The reason why the object was not valid
+   */
+  @NonNull
+  public static ValidationResult failure(@Nullable String reason) {
+    return new ValidationResult(false, reason);
+  }
+
+  private final boolean ACCEPTED;
+
+  @Nullable
+  private final String REASON;
+
+  protected ValidationResult(boolean accepted, @Nullable String reason) {
+    this.ACCEPTED = accepted;
+    this.REASON = reason;
+  }
+
+  public boolean isValid() {
+    return ACCEPTED;
+  }
+
+  /**
+   * Returns the reason why the object was not valid, or {@code null} if it was valid or no reason
+   * was given.
+   */
+  @Nullable
+  public String getReason() {
+    return REASON;
+  }
+
+  /**
+   * Creates the exception thrown by {@link Validator#validate} for this result.
+   */
+  @NonNull
+  public ValidationException newException() {
+    return new ValidationException(REASON);
+  }
+
+  /**
+   * Throws a {@linkplain #newException() new} {@link ValidationException} if this result is not
+   * valid.
+   */
+  public void throwIfInvalid() {
+    if (!ACCEPTED) {
+      throw newException();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return ACCEPTED ? "valid" : "invalid: " + REASON;
+  }
+
+}
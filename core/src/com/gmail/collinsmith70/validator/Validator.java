@@ -1,11 +1,13 @@
 package com.gmail.collinsmith70.validator;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 /**
  * An extension of {@link Validatable} with the addition of {@link #validate}, which behaves
  * similarly to {@link #isValid}, except it will throw {@link ValidationException} if the passed
- * object is not valid.
+ * object is not valid, and {@link #check}, which returns a {@link ValidationResult} describing why
+ * without throwing.
  */
 @SuppressWarnings("unused")
 public interface Validator extends Validatable {
@@ -41,4 +43,15 @@ public interface Validator extends Validatable {
    */
   void validate(@Nullable Object obj);
 
+  /**
+   * Validates the specified object {@code obj} without throwing an exception. Implementations
+   * should return shared results so that checking does not allocate.
+   *
+   * @param obj The object to validate
+   *
+   * @return {@link ValidationResult#VALID} if {@code obj} is valid, otherwise the reason why not
+   */
+  @NonNull
+  ValidationResult check(@Nullable Object obj);
+
 }
@@ -1,15 +1,17 @@
 package com.gmail.collinsmith70.diablo;
 
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Files;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
-import com.gmail.collinsmith70.cvar.Cvar;
-import com.gmail.collinsmith70.cvar.CvarStateAdapter;
+import com.gmail.collinsmith70.cvar.BooleanCvar;
+import com.gmail.collinsmith70.cvar.BooleanCvarStateAdapter;
+import com.gmail.collinsmith70.cvar.ShortCvar;
+import com.gmail.collinsmith70.cvar.ShortCvarStateAdapter;
+import com.gmail.collinsmith70.libgdx.util.WatchServiceFileWatcher;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -18,8 +20,34 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class DesktopLauncher {
+
+  /**
+   * Prefix of the command-line arguments which override cvars, e.g.,
+   * {@code +set Client.Windowed true}.
+   */
+  private static final String SET = "+set";
+
   public static void main(String[] args) {
+    // cvar overrides are removed first, since their values may look like options, e.g., -1
+    Map<String, String> cvars = new LinkedHashMap<String, String>();
+    List<String> remaining = new ArrayList<String>(args.length);
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase(SET) && i + 2 < args.length) {
+        cvars.put(args[i + 1], args[i + 2]);
+        i += 2;
+      } else {
+        remaining.add(args[i]);
+      }
+    }
+
+    args = remaining.toArray(new String[remaining.size()]);
     Options options = new Options()
         .addOption("help", false, "prints this message")
         .addOption("w", "windowed", false, "forces windowed mode")
@@ -39,7 +67,7 @@ public class DesktopLauncher {
       if (cmd != null) {
         if (cmd.hasOption("help")) {
           HelpFormatter formatter = new HelpFormatter();
-          formatter.printHelp("diablo", options);
+          formatter.printHelp("diablo [" + SET + " <cvar> <value>]...", options);
           System.exit(0);
         }
       }
@@ -58,8 +86,25 @@ public class DesktopLauncher {
 
     final Client client = new Client(config.width, config.height);
     if (cmd != null) {
-      client.setWindowedForced(cmd.hasOption("w"));
-      client.setDrawFpsForced(cmd.hasOption("fps"));
+      if (cmd.hasOption("w")) {
+        client.setCommandLineCvar(Cvars.Client.Windowed.getAlias(), Boolean.TRUE.toString());
+      }
+
+      if (cmd.hasOption("fps")) {
+        client.setCommandLineCvar(Cvars.Client.Display.ShowFPS.getAlias(),
+            Cvars.Client.Display.FpsLocation.TOP_LEFT.name());
+      }
+    }
+
+    for (Map.Entry<String, String> entry : cvars.entrySet()) {
+      client.setCommandLineCvar(entry.getKey(), entry.getValue());
+    }
+
+    try {
+      client.setFileWatcher(new WatchServiceFileWatcher());
+    } catch (IOException e) {
+      System.out.println("File system cannot be watched, falling back to polling: "
+          + e.getMessage());
     }
 
     new LwjglApplication(client, config);
@@ -76,33 +121,27 @@ public class DesktopLauncher {
       }
     }
 
-    Cvars.Client.Windowed.addStateListener(new CvarStateAdapter<Boolean>() {
+    Cvars.Client.Windowed.addStateListener(new BooleanCvarStateAdapter() {
       @Override
-      public void onChanged(@NonNull Cvar<Boolean> cvar, @Nullable Boolean from,
-                            @Nullable Boolean to) {
-        if (!client.isWindowedForced()) {
-          //noinspection ConstantConditions
-          if (to) {
-            Gdx.graphics.setWindowedMode(client.width(), client.height());
-          } else {
-            Gdx.graphics.setFullscreenMode(Gdx.graphics.getDisplayMode());
-          }
+      public void onChanged(@NonNull BooleanCvar cvar, boolean from, boolean to) {
+        if (to) {
+          Gdx.graphics.setWindowedMode(client.width(), client.height());
+        } else {
+          Gdx.graphics.setFullscreenMode(Gdx.graphics.getDisplayMode());
         }
       }
     });
 
-    Cvars.Client.Display.BackgroundFPSLimit.addStateListener(new CvarStateAdapter<Short>() {
+    Cvars.Client.Display.BackgroundFPSLimit.addStateListener(new ShortCvarStateAdapter() {
       @Override
-      public void onChanged(@NonNull Cvar<Short> cvar, @Nullable Short from, @Nullable Short to) {
-        //noinspection ConstantConditions
+      public void onChanged(@NonNull ShortCvar cvar, short from, short to) {
         config.backgroundFPS = to;
       }
     });
 
-    Cvars.Client.Display.ForegroundFPSLimit.addStateListener(new CvarStateAdapter<Short>() {
+    Cvars.Client.Display.ForegroundFPSLimit.addStateListener(new ShortCvarStateAdapter() {
       @Override
-      public void onChanged(@NonNull Cvar<Short> cvar, @Nullable Short from, @Nullable Short to) {
-        //noinspection ConstantConditions
+      public void onChanged(@NonNull ShortCvar cvar, short from, short to) {
         config.foregroundFPS = to;
       }
     });
@@ -0,0 +1,99 @@
+package com.gmail.collinsmith70.diablo;
+
+import com.gmail.collinsmith70.command.Command;
+import com.gmail.collinsmith70.cvar.Cvar;
+import com.gmail.collinsmith70.libgdx.key.MappedKey;
+import com.gmail.collinsmith70.registry.Registries;
+import com.gmail.collinsmith70.registry.Registry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to collect the cvars, commands and keys registered during
+ * {@link Client#create()} using the generated registries and using reflection.
+ */
+public class StartupBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 1000;
+
+  private static final int ITERATIONS = 10000;
+
+  /**
+   * Consumes benchmark results so that they cannot be optimized away.
+   */
+  private static volatile int blackhole;
+
+  public static void main(String[] args) throws Exception {
+    // load the classes shared by both paths so that they are not attributed to the first one
+    Registries.find(StartupBenchmark.class);
+    Registries.reflective(StartupBenchmark.class, Object.class).entries();
+
+    System.out.printf("%-10s %8s %14s %14s %14s %14s%n",
+        "registry", "entries", "generated", "reflective", "generated", "reflective");
+    System.out.printf("%-10s %8s %14s %14s %14s %14s%n",
+        "", "", "(first, us)", "(first, us)", "(avg, ns)", "(avg, ns)");
+    benchmark(Cvars.class, Cvar.class);
+    benchmark(Commands.class, Command.class);
+    benchmark(Keys.class, MappedKey.class);
+  }
+
+  private static <T> void benchmark(Class<?> owner, Class<T> type) throws Exception {
+    // neither measurement should include constructing the entries themselves
+    initialize(owner);
+
+    long start = System.nanoTime();
+    final Registry<T> generated = Registries.find(owner);
+    if (generated == null) {
+      System.out.printf("%-10s no generated registry found, was annotation processing enabled?%n",
+          owner.getSimpleName());
+      return;
+    }
+
+    final List<T> generatedEntries = generated.entries();
+    final long generatedFirst = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    final Registry<T> reflective = Registries.reflective(owner, type);
+    final List<T> reflectiveEntries = reflective.entries();
+    final long reflectiveFirst = System.nanoTime() - start;
+
+    if (!generatedEntries.containsAll(reflectiveEntries)
+        || !reflectiveEntries.containsAll(generatedEntries)) {
+      System.out.printf("%-10s generated registry does not match reflective registry%n",
+          owner.getSimpleName());
+    }
+
+    System.out.printf("%-10s %8d %14d %14d %14d %14d%n",
+        owner.getSimpleName(),
+        generatedEntries.size(),
+        TimeUnit.NANOSECONDS.toMicros(generatedFirst),
+        TimeUnit.NANOSECONDS.toMicros(reflectiveFirst),
+        measure(generated),
+        measure(reflective));
+  }
+
+  private static void initialize(Class<?> clazz) throws ClassNotFoundException {
+    Class.forName(clazz.getName(), true, clazz.getClassLoader());
+    for (Class<?> subclass : clazz.getDeclaredClasses()) {
+      initialize(subclass);
+    }
+  }
+
+  private static long measure(Registry<?> registry) {
+    int sink = 0;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sink += registry.entries().size();
+    }
+
+    final long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += registry.entries().size();
+    }
+
+    final long elapsed = System.nanoTime() - start;
+    blackhole = sink;
+    return elapsed / ITERATIONS;
+  }
+
+}
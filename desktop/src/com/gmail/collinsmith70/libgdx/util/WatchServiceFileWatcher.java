@@ -0,0 +1,132 @@
+package com.gmail.collinsmith70.libgdx.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import android.support.annotation.NonNull;
+
+import com.badlogic.gdx.Gdx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link FileWatcher} which is notified of changes by the file system through a
+ * {@link WatchService}, rather than polling each file.
+ */
+public class WatchServiceFileWatcher implements FileWatcher {
+
+  private static final String TAG = "WatchServiceFileWatcher";
+
+  @NonNull
+  private final WatchService SERVICE;
+
+  /**
+   * Files watched within each directory, keyed by the registration of the directory.
+   */
+  @NonNull
+  private final SetMultimap<WatchKey, Watched> WATCHED;
+
+  public WatchServiceFileWatcher() throws IOException {
+    this.SERVICE = FileSystems.getDefault().newWatchService();
+    this.WATCHED = HashMultimap.create();
+    new ThreadFactoryBuilder()
+        .setNameFormat(getClass().getSimpleName())
+        .setDaemon(true)
+        .build()
+        .newThread(new Runnable() {
+          @Override
+          public void run() {
+            poll();
+          }
+        })
+        .start();
+  }
+
+  @Override
+  public void watch(@NonNull File file, @NonNull Runnable onModified) {
+    Preconditions.checkArgument(file != null, "file cannot be null");
+    Preconditions.checkArgument(onModified != null, "onModified cannot be null");
+    final Path path = file.getAbsoluteFile().toPath();
+    final WatchKey key;
+    try {
+      key = path.getParent().register(SERVICE,
+          StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot watch " + file + ": " + e.getMessage(), e);
+    }
+
+    synchronized (WATCHED) {
+      WATCHED.put(key, new Watched(path.getFileName(), onModified));
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      SERVICE.close();
+    } catch (IOException e) {
+      Gdx.app.error(TAG, e.getMessage(), e);
+    }
+  }
+
+  private void poll() {
+    final List<Runnable> modified = new ArrayList<Runnable>();
+    try {
+      while (true) {
+        final WatchKey key = SERVICE.take();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            continue;
+          }
+
+          final Path fileName = (Path) event.context();
+          synchronized (WATCHED) {
+            for (Watched watched : WATCHED.get(key)) {
+              if (watched.FILE_NAME.equals(fileName) && !modified.contains(watched.ON_MODIFIED)) {
+                modified.add(watched.ON_MODIFIED);
+              }
+            }
+          }
+        }
+
+        key.reset();
+        // a single save commonly generates several events, so notify once per batch of events
+        for (Runnable onModified : modified) {
+          onModified.run();
+        }
+
+        modified.clear();
+      }
+    } catch (InterruptedException ignored) {
+    } catch (ClosedWatchServiceException ignored) {
+    }
+  }
+
+  private static final class Watched {
+
+    @NonNull
+    final Path FILE_NAME;
+
+    @NonNull
+    final Runnable ON_MODIFIED;
+
+    Watched(@NonNull Path fileName, @NonNull Runnable onModified) {
+      this.FILE_NAME = fileName;
+      this.ON_MODIFIED = onModified;
+    }
+
+  }
+
+}